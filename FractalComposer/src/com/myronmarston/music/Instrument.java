@@ -28,14 +28,49 @@ import java.lang.reflect.UndeclaredThrowableException;
 
 /**
  * Represents a midi instrument.  Cannot be instantiated directly.  Instead,
- * get an instrument using the static getInstrument() method.
+ * get an instrument using the static getInstrument() method.  The available
+ * instruments are the General MIDI programs, so no soundbank is needed until
+ * audio is rendered.
  * 
  * @author Myron
  */
 public class Instrument extends AbstractNotationElement {
-    private final javax.sound.midi.Instrument midiInstrument;
+    private final String name;
+    private final int program;
     private static final int REGULAR_INSTRUMENT_BANK = 0;    
     private static final Map<String, Instrument> INSTRUMENT_MAP;
+    private static final Map<String, Instrument> LEGACY_INSTRUMENT_MAP;
+    
+    /**
+     * The length that soundbank instrument names were cut off at when the
+     * instruments were read from the soundbank.  Saved pieces may contain 
+     * these cut off names.
+     */
+    private static final int LEGACY_INSTRUMENT_NAME_LENGTH = 20;
+    
+    /**
+     * The General MIDI program names, in program number order.  These are
+     * built in so that instruments can be used for midi files and notation
+     * without loading a soundbank.
+     */
+    private static final String[] GENERAL_MIDI_PROGRAM_NAMES = new String[] {
+        "Acoustic Grand Piano", "Bright Acoustic Piano", "Electric Grand Piano", "Honky-tonk Piano", "Electric Piano 1", "Electric Piano 2", "Harpsichord", "Clavi",
+        "Celesta", "Glockenspiel", "Music Box", "Vibraphone", "Marimba", "Xylophone", "Tubular Bells", "Dulcimer",
+        "Drawbar Organ", "Percussive Organ", "Rock Organ", "Church Organ", "Reed Organ", "Accordion", "Harmonica", "Tango Accordion",
+        "Acoustic Guitar (nylon)", "Acoustic Guitar (steel)", "Electric Guitar (jazz)", "Electric Guitar (clean)", "Electric Guitar (muted)", "Overdriven Guitar", "Distortion Guitar", "Guitar harmonics",
+        "Acoustic Bass", "Electric Bass (finger)", "Electric Bass (pick)", "Fretless Bass", "Slap Bass 1", "Slap Bass 2", "Synth Bass 1", "Synth Bass 2",
+        "Violin", "Viola", "Cello", "Contrabass", "Tremolo Strings", "Pizzicato Strings", "Orchestral Harp", "Timpani",
+        "String Ensemble 1", "String Ensemble 2", "SynthStrings 1", "SynthStrings 2", "Choir Aahs", "Voice Oohs", "Synth Voice", "Orchestra Hit",
+        "Trumpet", "Trombone", "Tuba", "Muted Trumpet", "French Horn", "Brass Section", "SynthBrass 1", "SynthBrass 2",
+        "Soprano Sax", "Alto Sax", "Tenor Sax", "Baritone Sax", "Oboe", "English Horn", "Bassoon", "Clarinet",
+        "Piccolo", "Flute", "Recorder", "Pan Flute", "Blown Bottle", "Shakuhachi", "Whistle", "Ocarina",
+        "Lead 1 (square)", "Lead 2 (sawtooth)", "Lead 3 (calliope)", "Lead 4 (chiff)", "Lead 5 (charang)", "Lead 6 (voice)", "Lead 7 (fifths)", "Lead 8 (bass + lead)",
+        "Pad 1 (new age)", "Pad 2 (warm)", "Pad 3 (polysynth)", "Pad 4 (choir)", "Pad 5 (bowed)", "Pad 6 (metallic)", "Pad 7 (halo)", "Pad 8 (sweep)",
+        "FX 1 (rain)", "FX 2 (soundtrack)", "FX 3 (crystal)", "FX 4 (atmosphere)", "FX 5 (brightness)", "FX 6 (goblins)", "FX 7 (echoes)", "FX 8 (sci-fi)",
+        "Sitar", "Banjo", "Shamisen", "Koto", "Kalimba", "Bag pipe", "Fiddle", "Shanai",
+        "Tinkle Bell", "Agogo", "Steel Drums", "Woodblock", "Taiko Drum", "Melodic Tom", "Synth Drum", "Reverse Cymbal",
+        "Guitar Fret Noise", "Breath Noise", "Seashore", "Bird Tweet", "Telephone Ring", "Helicopter", "Applause", "Gunshot"
+    };
     
     /**
      * The default instrument (a piano).
@@ -47,8 +82,9 @@ public class Instrument extends AbstractNotationElement {
      */
     public static final List<String> AVAILABLE_INSTRUMENTS;
     
-    private Instrument(javax.sound.midi.Instrument midiInstrument) {
-        this.midiInstrument = midiInstrument;        
+    private Instrument(String name, int program) {
+        this.name = name;
+        this.program = program;
     }
     
     /**
@@ -56,66 +92,65 @@ public class Instrument extends AbstractNotationElement {
      */
     static {
         HashMap<String, Instrument> map = new HashMap<String, Instrument>();            
+        HashMap<String, Instrument> legacyMap = new HashMap<String, Instrument>();            
         List<String> list = new ArrayList<String>();
-        String trimmedName;
            
-        for (javax.sound.midi.Instrument i : MidiSoundbank.getCurrent().getSoundbank().getInstruments()) {
-            // there are several hundred instruments, but we only care about the
-            // "regular" ones like piano, violin, cello, etc.
-            if (i.getPatch().getBank() == REGULAR_INSTRUMENT_BANK) { 
-                trimmedName = i.getName().trim(); // many instruments have extra spaces on their name
-                map.put(trimmedName.toLowerCase(Locale.ENGLISH), new Instrument(i));
-                list.add(trimmedName);
+        for (int program = 0; program < GENERAL_MIDI_PROGRAM_NAMES.length; program++) {
+            String name = GENERAL_MIDI_PROGRAM_NAMES[program];
+            Instrument instrument = new Instrument(name, program);
+            map.put(name.toLowerCase(Locale.ENGLISH), instrument);
+            list.add(name);
+            
+            if (name.length() > LEGACY_INSTRUMENT_NAME_LENGTH) {
+                String legacyName = name.substring(0, LEGACY_INSTRUMENT_NAME_LENGTH).trim();
+                legacyMap.put(legacyName.toLowerCase(Locale.ENGLISH), instrument);
             }
         }
 
         INSTRUMENT_MAP = Collections.unmodifiableMap(map);            
+        LEGACY_INSTRUMENT_MAP = Collections.unmodifiableMap(legacyMap);            
         Collections.sort(list);
         AVAILABLE_INSTRUMENTS = Collections.unmodifiableList(list);
         
-        Instrument temp = null;
-        // try to get an instrument starting with Piano as the default instrument...
-        for (String instrumentName : AVAILABLE_INSTRUMENTS) {
-            if (instrumentName.toLowerCase(Locale.ENGLISH).startsWith("piano")) {
-                temp = getInstrument(instrumentName);
-                break;
-            }
-        }
-        
-        if (temp == null) {
-            // try any instrument with piano in it, such as "Electric Piano"
-            for (String instrumentName : AVAILABLE_INSTRUMENTS) {
-                if (instrumentName.toLowerCase(Locale.ENGLISH).contains("piano")) {
-                    temp = getInstrument(instrumentName);
-                    break;
-                }
-            }
-        }
-        
-        // otherwise, just pick the first instrument...
-        if (temp == null) temp = getInstrument(list.get(0));
-        
-        DEFAULT = temp;        
+        // General MIDI program 0 is the acoustic grand piano
+        DEFAULT = getInstrument(GENERAL_MIDI_PROGRAM_NAMES[0]);
         assert DEFAULT != null : "The default instrument could not be found.";
     }
 
     /**
-     * Gets the midi instrument.
+     * Gets the midi instrument from the current soundbank.  This loads the 
+     * soundbank if it has not already been loaded, so it should only be used
+     * when rendering audio.
      * 
-     * @return the midi instrument object
+     * @return the midi instrument object, or null if the current soundbank
+     *         does not have this instrument
      */
     protected javax.sound.midi.Instrument getMidiInstrument() {
-        return midiInstrument;
+        return MidiSoundbank.getCurrent().getSoundbank().getInstrument(new Patch(REGULAR_INSTRUMENT_BANK, this.program));
     }        
     
     /**
-     * Gets the instrument with the given name.
+     * Gets the General MIDI program number of the instrument.
+     * 
+     * @return the program number, 0-127
+     */
+    public int getProgram() {
+        return program;
+    }
+    
+    /**
+     * Gets the instrument with the given name.  Names that were cut off at 20
+     * characters by older versions (such as "Bright Acoustic Pian") are also
+     * accepted, so that saved pieces can still be loaded.
      * 
      * @param name the case-insensitive name of the instrument
      * @return the instrument, or null, if none was found with the given name
      */    
     public static Instrument getInstrument(String name) {
-        return INSTRUMENT_MAP.get(name.trim().toLowerCase(Locale.ENGLISH));
+        String key = name.trim().toLowerCase(Locale.ENGLISH);
+        Instrument instrument = INSTRUMENT_MAP.get(key);
+        if (instrument == null) instrument = LEGACY_INSTRUMENT_MAP.get(key);
+        return instrument;
     }
     
     /**
@@ -124,7 +159,7 @@ public class Instrument extends AbstractNotationElement {
      * @return the name of the instrument
      */
     public String getName() {
-        return this.midiInstrument.getName().trim();
+        return name;
     }
     
     /**
@@ -133,7 +168,7 @@ public class Instrument extends AbstractNotationElement {
      * @return the guido string
      */
     public String toGuidoString() {
-        return "\\instr<\"" + this.getName() + "\", \"MIDI " + this.getMidiInstrument().getPatch().getProgram() + "\">";
+        return "\\instr<\"" + this.getName() + "\", \"MIDI " + this.getProgram() + "\">";
     }
 
     /**
@@ -147,7 +182,7 @@ public class Instrument extends AbstractNotationElement {
     
     @Override
     public String toString() {
-        return "FractalComposer Instrument: " + this.getName() + "(bank " + this.getMidiInstrument().getPatch().getBank() + ", program " + this.getMidiInstrument().getPatch().getProgram() + ")";
+        return "FractalComposer Instrument: " + this.getName() + "(bank " + REGULAR_INSTRUMENT_BANK + ", program " + this.getProgram() + ")";
     }
     
     /**
@@ -164,7 +199,7 @@ public class Instrument extends AbstractNotationElement {
         
         ShortMessage msg = new ShortMessage();
         try {
-            msg.setMessage(ShortMessage.PROGRAM_CHANGE, midiChannel, this.midiInstrument.getPatch().getProgram(), midiChannel);
+            msg.setMessage(ShortMessage.PROGRAM_CHANGE, midiChannel, this.getProgram(), midiChannel);
         } catch (InvalidMidiDataException ex) {
             throw new UndeclaredThrowableException(ex, "The program change midi event could not be created for an unknown reason.  This indicates a programming error.");
         }     
@@ -37,11 +37,6 @@ public class MidiSoundbank {
     private Soundbank soundbank;
     private static MidiSoundbank current;
     
-    static {
-        // load the default soundbank...
-        MidiSoundbank.load(null);
-    }
-    
     private MidiSoundbank(File soundbankFile) {                                    
         this.soundbankFile = soundbankFile;
         
@@ -100,11 +95,14 @@ public class MidiSoundbank {
     }
     
     /**
-     * Gets the current midi soundbank.
+     * Gets the current midi soundbank.  The default soundbank is loaded the 
+     * first time this is called if no soundbank has been loaded yet, since 
+     * loading it requires opening a synthesizer.
      * 
      * @return the current soundbank.
      */
     public synchronized static MidiSoundbank getCurrent() {
+        if (current == null) load(null);
         return current;
     }        
     
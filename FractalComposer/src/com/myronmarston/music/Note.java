@@ -101,6 +101,10 @@ public class Note implements Cloneable {
     
     @Attribute
     private boolean isFirstNoteOfGermCopy = false;
+    
+    // true if this note belongs to a read-only note list, which shares its 
+    // notes with its clones (see NoteList.get())
+    private boolean inReadOnlyNoteList;
        
     /**
      * Regular expression pattern for matching and parsing a note string.
@@ -117,6 +121,11 @@ public class Note implements Cloneable {
      */
     public final static int REGEX_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.CANON_EQ;
     
+    /**
+     * The note letters, in letter number order.
+     */
+    private final static String NOTE_LETTERS = "CDEFGAB";
+    
     static {
         // We put the dynamic regex in this one to use it in a negative lookahead.
         // This prevents a dynamic from being used with a rest as that is nonsensical.
@@ -396,6 +405,24 @@ public class Note implements Cloneable {
     public boolean isFirstNoteOfGermCopy() {
         return isFirstNoteOfGermCopy;
     }
+    
+    /**
+     * Returns true if this note belongs to a read-only note list.  The note 
+     * may be shared with clones of that list, so it must not be modified.
+     * 
+     * @return true if this note belongs to a read-only note list
+     */
+    boolean isInReadOnlyNoteList() {
+        return inReadOnlyNoteList;
+    }
+    
+    /**
+     * Marks this note as belonging to a read-only note list.  Clones of this
+     * note are not marked.
+     */
+    void setInReadOnlyNoteList() {
+        this.inReadOnlyNoteList = true;
+    }
 
     /**
      * Sets whether or not this is the first note of a germ or derived copy.
@@ -436,11 +463,10 @@ public class Note implements Cloneable {
         this.setLetterNumber(this.getLetterNumber() + letterNumberAdjustment);
         this.setOctave(this.getOctave() + octaveAdjustment);
         
-        if (this.getScale().getScaleStepArray().length < NoteName.NUM_LETTER_NAMES && 
+        if (this.getScale().getNumScaleSteps() < NoteName.NUM_LETTER_NAMES && 
             this.getChromaticAdjustment() == 0 && this.getSegmentChromaticAdjustment() == 0) {
 
-            int normalizedScaleStep = this.getNormalizedNote().getScaleStep();
-            this.setLetterNumber(this.getScale().getLetterNumberArray()[normalizedScaleStep]);
+            this.setLetterNumber(this.getScale().getLetterNumberForScaleStep(this.getScaleStep()));
         }         
     }
             
@@ -459,160 +485,201 @@ public class Note implements Cloneable {
      *         noteString cannot be parsed
      */
     public static Note parseNoteString(String noteString, Scale scale, Fraction defaultDuration, Integer defaultVolume) throws NoteStringParseException {        
+        return parseNoteString(noteString, 0, noteString.length(), scale, defaultDuration, defaultVolume);
+    }
+    
+    /**
+     * Parses the note string found between the given indices of a larger 
+     * string, such as one token of a note list string.  The note string is 
+     * scanned a single time, character by character, and accepts exactly the
+     * same strings as REGEX_PATTERN.
+     * 
+     * @param str the string containing the note string
+     * @param beginIndex the index of the first character of the note string
+     * @param endIndex the index after the last character of the note string
+     * @param scale the scale to use to determine the scaleStep and 
+     *        chromaticAdjustment
+     * @param defaultDuration duration to use if the note string does not 
+     *        contain a duration
+     * @param defaultVolume volume to use if the note string does not contain
+     *        a volume
+     * @return a new Note with fields set based on the parsed note string
+     * @throws com.myronmarston.music.NoteStringParseException thrown when the
+     *         note string cannot be parsed
+     */
+    static Note parseNoteString(String str, int beginIndex, int endIndex, Scale scale, Fraction defaultDuration, Integer defaultVolume) throws NoteStringParseException {
         if (defaultDuration == null) defaultDuration = new Fraction(1, 4);
         if (defaultVolume == null) defaultVolume = Dynamic.MF.getMidiVolume();
         
-        Matcher match = Note.REGEX_PATTERN.matcher(noteString);        
-        if (match.matches()) {     
-            // Matche groups example: Gbb4,3/8,MF
-            //0. Gbb4,3/8,MF
-            //1. Gbb4
-            //2. Gbb
-            //3. 4
-            //4. 3/8
-            //5. 3
-            //6. 8
-            //7. MF
+        // Example: Gbb4,3/8,MF
+        // first, the note name and octave (Gbb4) or a rest (R)...
+        int index = beginIndex;
+        if (index >= endIndex) throw new NoteStringParseException(str.substring(beginIndex, endIndex));
+        char c = toUpperCase(str.charAt(index++));
+        
+        boolean isRest = (c == 'R');
+        NoteName noteName = null;
+        int octave = 0;
+        if (!isRest) {
+            int letterNumber = NOTE_LETTERS.indexOf(c);
+            if (letterNumber < 0) throw new NoteStringParseException(str.substring(beginIndex, endIndex));
             
-            Fraction duration = parseNoteString_getDuration(match, 5, 6, defaultDuration);
-            Note newNote;
+            // the accidental: nothing, b, bb, # or x...
+            int accidental = 0;
+            if (index < endIndex && toUpperCase(str.charAt(index)) == 'B') {
+                accidental = -1;
+                index++;
+                if (index < endIndex && toUpperCase(str.charAt(index)) == 'B') {
+                    accidental = -2;
+                    index++;
+                }
+            } else if (index < endIndex && str.charAt(index) == '#') {
+                accidental = 1;
+                index++;
+            } else if (index < endIndex && toUpperCase(str.charAt(index)) == 'X') {
+                accidental = 2;
+                index++;
+            }
+            noteName = NoteName.getNoteName(letterNumber, accidental);
             
-            if (match.group(1).toUpperCase(Locale.ENGLISH).startsWith("R")) { // indicates the note is a rest...
-                newNote = Note.createRest(duration);
-            } else {                
-                NoteName noteName = parseNoteString_getNoteName(match, 2);   
-                int octave = parseNoteString_getOctave(match, 3);                
-                int volume = parseNoteString_getVolume(match, 7, defaultVolume);                
+            // the octave is a single digit...
+            if (index >= endIndex || !isDigit(str.charAt(index))) throw new NoteStringParseException(str.substring(beginIndex, endIndex));
+            octave = str.charAt(index++) - '0';
+        }
+        
+        // next, the optional duration (3/8) and dynamic (MF)...
+        Fraction duration = defaultDuration;
+        Dynamic dynamic = null;
+        if (index < endIndex) {
+            if (str.charAt(index++) != ',') throw new NoteStringParseException(str.substring(beginIndex, endIndex));
+            
+            if (index < endIndex && isDigit(str.charAt(index))) {
+                int numeratorEnd = parseNoteString_getPositiveIntegerEnd(str, index, endIndex);
+                if (numeratorEnd < 0) throw new NoteStringParseException(str.substring(beginIndex, endIndex));
+                int durationNum = Integer.parseInt(str.substring(index, numeratorEnd));
+                int durationDen = 1;
+                index = numeratorEnd;
                 
-                // adjust the octave for a note like Cb, Cbb, B# and Bx
-                octave += (noteName.getNoteNumber() - noteName.getNormalizedNoteNumber()) / Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE;
+                if (index < endIndex && str.charAt(index) == '/') {
+                    int denominatorEnd = parseNoteString_getPositiveIntegerEnd(str, ++index, endIndex);
+                    if (denominatorEnd < 0) throw new NoteStringParseException(str.substring(beginIndex, endIndex));
+                    durationDen = Integer.parseInt(str.substring(index, denominatorEnd));
+                    index = denominatorEnd;
+                }
                 
-                newNote = new Note();
-                newNote.setScale(scale);
-                newNote.setDuration(duration);
-                newNote.setVolume(volume);
-                scale.setNotePitchValues(newNote, noteName);
-                newNote.setLetterNumber(scale.getKeyName().getPositiveIntervalSize(noteName));
-                                
-                // The octave number is dependent on the scale.  For example, 
-                // the note C4 (middle C) should parse as scale step 2, octave 3 
-                // for the A minor scale, because the A octave is higher than 
-                // the C octave.
-                // I tried figuring out the logic for this, but it's very 
-                // complicated and I couldn't figure it out after a few hours.
-                // So, instead we use the result of parsing the note using
-                // the chromatic scale as our baseline, and compare to that,
-                // using the difference between the baseline midi pitch number
-                // and the midi pitch number we get from our scale to calculate
-                // the correct octave.                
-                if (scale == Scale.DEFAULT) {
-                    // this is the chromatic scale, so just set the octave directly...
-                    newNote.setOctave(octave);                                
-                } else {                    
-                    Note testNote = parseNoteString(noteString, Scale.DEFAULT, defaultDuration, defaultVolume);
-                    int midiPitchNum = testNote.getMidiPitchNumber(true); 
-                    int midiPitchNumWithoutOctave = newNote.getMidiPitchNumber(true);
-                    int difference = midiPitchNum - midiPitchNumWithoutOctave;
-                    
-                    assert difference % Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE == 0 : difference;
-                    octave = difference / Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE;
-                    newNote.setOctave(octave);
-                    
-                    assert newNote.getMidiPitchNumber(true) == midiPitchNum;
-                }                
-            }            
-            
-            return newNote;
+                duration = new Fraction(durationNum, durationDen);
+                if (index < endIndex) {
+                    if (str.charAt(index++) != ',') throw new NoteStringParseException(str.substring(beginIndex, endIndex));
+                    dynamic = parseNoteString_getDynamic(str, index, endIndex);
+                    if (dynamic == null) throw new NoteStringParseException(str.substring(beginIndex, endIndex));
+                }
+            } else {
+                dynamic = parseNoteString_getDynamic(str, index, endIndex);
+                if (dynamic == null) throw new NoteStringParseException(str.substring(beginIndex, endIndex));
+            }
+        }
+        
+        if (isRest) {
+            // a rest cannot have a dynamic...
+            if (dynamic != null) throw new NoteStringParseException(str.substring(beginIndex, endIndex));
+            return Note.createRest(duration);
+        }
+        
+        int volume = (dynamic == null ? defaultVolume : dynamic.getMidiVolume());
+        
+        // adjust the octave for a note like Cb, Cbb, B# and Bx
+        octave += (noteName.getNoteNumber() - noteName.getNormalizedNoteNumber()) / Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE;
+
+        Note newNote = new Note();
+        newNote.setScale(scale);
+        newNote.setDuration(duration);
+        newNote.setVolume(volume);
+        scale.setNotePitchValues(newNote, noteName);
+        newNote.setLetterNumber(scale.getKeyName().getPositiveIntervalSize(noteName));
+
+        // The octave number is dependent on the scale.  For example, 
+        // the note C4 (middle C) should parse as scale step 2, octave 3 
+        // for the A minor scale, because the A octave is higher than 
+        // the C octave.
+        // We use the midi pitch number the note has in the chromatic scale
+        // as our baseline, and compare to that, using the difference between
+        // the baseline midi pitch number and the midi pitch number we get 
+        // from our scale to calculate the correct octave.
+        if (scale == Scale.DEFAULT) {
+            // this is the chromatic scale, so just set the octave directly...
+            newNote.setOctave(octave);                                
         } else {
-            throw new NoteStringParseException(noteString);            
-        }                
+            // In the chromatic scale, the scale step is the normalized note 
+            // number and there is no chromatic adjustment.
+            int midiPitchNum = getPitchNumberInMidiRange(Scale.DEFAULT.getMidiPitchNumber(noteName.getNormalizedNoteNumber(), octave, 0));
+            int midiPitchNumWithoutOctave = newNote.getMidiPitchNumber(true);
+            int difference = midiPitchNum - midiPitchNumWithoutOctave;
+
+            assert difference % Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE == 0 : difference;
+            octave = difference / Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE;
+            newNote.setOctave(octave);
+
+            assert newNote.getMidiPitchNumber(true) == midiPitchNum;
+        }
+        
+        return newNote;
     }             
     
     /**
-     * Gets the note name for the parseNoteString method.
-     *      
-     * @param match the regex match object
-     * @param matchGroupIndex the index for the captured group containing 
-     *        noteName
-     * @return the NoteName, or null if the note should be a rest     
-     */
-    static private NoteName parseNoteString_getNoteName(Matcher match, int matchGroupIndex) {
-        assert match.matches() : match;
-        String noteNameStr = match.group(matchGroupIndex);
-        assert noteNameStr != null;
-
-        if (noteNameStr.toUpperCase(Locale.ENGLISH).contentEquals("R")) return null;
+     * Gets the end index of the positive integer (with no leading zeros) 
+     * beginning at the given index, for the parseNoteString method.
+     * 
+     * @param str the string being parsed
+     * @param beginIndex the index where the integer begins
+     * @param endIndex the index where the note string ends
+     * @return the index after the last digit, or -1 if there is no positive
+     *         integer at the given index
+     */
+    private static int parseNoteString_getPositiveIntegerEnd(String str, int beginIndex, int endIndex) {
+        if (beginIndex >= endIndex || str.charAt(beginIndex) == '0' || !isDigit(str.charAt(beginIndex))) return -1;
         
-        NoteName noteName = NoteName.getNoteName(noteNameStr);
-        assert noteName != null;        
-        return noteName;         
+        int index = beginIndex + 1;
+        while (index < endIndex && isDigit(str.charAt(index))) index++;
+        return index;
     }
     
     /**
-     * Gets the octave for the parseNoteString method.
+     * Gets the dynamic for the parseNoteString method.
      * 
-     * @param match the regex match object
-     * @param matchGroupIndex the index for the captured group containing the
-     *        octave
-     * @return the octave
-     */
-    private static int parseNoteString_getOctave(Matcher match, int matchGroupIndex) {
-        assert match.matches() : match;
-        String octaveStr = match.group(matchGroupIndex);
-        assert octaveStr != null;
-                
-        return Integer.parseInt(octaveStr);        
+     * @param str the string being parsed
+     * @param beginIndex the index where the dynamic begins
+     * @param endIndex the index where the note string ends
+     * @return the dynamic, or null if the characters are not a dynamic
+     */
+    private static Dynamic parseNoteString_getDynamic(String str, int beginIndex, int endIndex) {
+        int length = endIndex - beginIndex;
+        for (Dynamic dynamic : Dynamic.values()) {
+            String name = dynamic.name();
+            if (name.length() == length && str.regionMatches(true, beginIndex, name, 0, length)) return dynamic;
+        }
+        
+        return null;
     }
     
     /**
-     * Gets the duration fraction for the parseNoteString method.
+     * Converts an ASCII letter to upper case.  Other characters are returned
+     * unchanged.
      * 
-     * @param match the regex match object
-     * @param numeratorMatchGroupIndex the index for the captured group 
-     *        containing the duration fraction numerator
-     * @param denominatorMatchGroupIndex the index for the captured group 
-     *        containing the duration fraction denominator
-     * @param defaultDuration duration to use if the noteString does not have a
-     *        duration
-     * @return the duration fraction
+     * @param c the character
+     * @return the upper case character
      */
-    private static Fraction parseNoteString_getDuration(Matcher match, int numeratorMatchGroupIndex, int denominatorMatchGroupIndex, Fraction defaultDuration) {        
-        assert match.matches() : match;
-        String durationNumStr = match.group(numeratorMatchGroupIndex);
-        String durationDenStr = match.group(denominatorMatchGroupIndex);
-        
-        if (durationNumStr == null && durationDenStr == null) {
-            // This note doesn't have a duration; instead use the default duration
-            return defaultDuration;       
-        } else {
-            assert durationNumStr != null;            
-            int durationNum = Integer.parseInt(durationNumStr);
-            int durationDen = durationDenStr == null ? 1 : Integer.parseInt(durationDenStr);
-            assert durationDen != 0;
-            assert durationNum != 0;
-            
-            return new Fraction(durationNum, durationDen);
-        }
+    private static char toUpperCase(char c) {
+        return (c >= 'a' && c <= 'z') ? (char) (c - ('a' - 'A')) : c;
     }
     
     /**
-     * Gets the volume for the parseNoteString method.
+     * Checks whether a character is an ASCII digit.
      * 
-     * @param match the regex match object
-     * @param matchGroupIndex the index for the captured group containing the
-     *        dynamic
-     * @param defaultVolume volume to use if the noteString does not have a 
-     *        dynamic
-     * @return the volume
+     * @param c the character
+     * @return true if the character is 0 through 9
      */
-    private static int parseNoteString_getVolume(Matcher match, int matchGroupIndex, int defaultVolume) {        
-        String dynamicStr = match.group(matchGroupIndex);
-                
-        if (dynamicStr == null || dynamicStr.isEmpty()) {
-            return defaultVolume;
-        } else {             
-            return Dynamic.valueOf(dynamicStr.toUpperCase(Locale.ENGLISH)).getMidiVolume();                        
-        }
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
             
     /**
@@ -627,25 +694,48 @@ public class Note implements Cloneable {
     public Note getNormalizedNote() {        
         Note tempNote = this.clone();
         if (tempNote.isRest()) return tempNote; // rests are always normalized!
-        int numScaleStepsInOctave = this.getScale().getScaleStepArray().length; // cache it
         
         // put the note's scaleStep into the normal range (0..numScaleSteps - 1), adjusting the octaves.
-        while(tempNote.getScaleStep() < 0) {
-            tempNote.setScaleStep(tempNote.getScaleStep() + numScaleStepsInOctave);
-            tempNote.setOctave(tempNote.getOctave() - 1);
-        }                
-        
-        while(tempNote.getScaleStep() > numScaleStepsInOctave - 1) {
-            tempNote.setScaleStep(tempNote.getScaleStep() - numScaleStepsInOctave);
-            tempNote.setOctave(tempNote.getOctave() + 1);
-        }
-        
-        assert tempNote.getScaleStep() >= 0 && tempNote.getScaleStep() < numScaleStepsInOctave : tempNote.getScaleStep();
-        tempNote.setLetterNumber(MathHelper.getNormalizedValue(tempNote.getLetterNumber(), NoteName.NUM_LETTER_NAMES));
+        tempNote.setOctave(this.getNormalizedOctave());
+        tempNote.setScaleStep(this.getNormalizedScaleStep());
+        tempNote.setLetterNumber(this.getNormalizedLetterNumber());
         
         return tempNote;
     }
     
+    /**
+     * Gets the scale step this note would have if it were normalized (see
+     * getNormalizedNote()), without creating a normalized note.
+     * 
+     * @return the scale step, between 0 and the number of scale steps - 1
+     */
+    public int getNormalizedScaleStep() {
+        if (this.isRest()) return this.getScaleStep();
+        return this.getScale().getNormalizedScaleStep(this.getScaleStep());
+    }
+    
+    /**
+     * Gets the octave this note would have if it were normalized (see
+     * getNormalizedNote()), without creating a normalized note.
+     * 
+     * @return the octave
+     */
+    public int getNormalizedOctave() {
+        if (this.isRest()) return this.getOctave();
+        return this.getOctave() + MathHelper.floorDiv(this.getScaleStep(), this.getScale().getNumScaleSteps());
+    }
+    
+    /**
+     * Gets the letter number this note would have if it were normalized (see
+     * getNormalizedNote()), without creating a normalized note.
+     * 
+     * @return the letter number, between 0 and 6
+     */
+    public int getNormalizedLetterNumber() {
+        if (this.isRest()) return this.getLetterNumber();
+        return MathHelper.floorMod(this.getLetterNumber(), NoteName.NUM_LETTER_NAMES);
+    }
+    
     /**
      * Converts from whole notes to ticks, based on the midi tick resolution.
      * 
@@ -654,15 +744,15 @@ public class Note implements Cloneable {
      * @return the number of ticks
      */
     private static long convertWholeNotesToTicks(Fraction wholeNotes, int midiTickResolution) {
-        Fraction converted = wholeNotes.times(midiTickResolution);        
+        // multiply using longs so that no intermediate Fraction is created...
+        long converted = wholeNotes.numerator() * midiTickResolution;
         
         // converting to midi ticks should result in an integral number of ticks
         // because our tick resolution should be chosen based on what will
         // produce this.  Test that this is in fact the case...
-        assert converted.denominator() == 1 : converted;
+        assert converted % wholeNotes.denominator() == 0 : wholeNotes;
      
-        // since the denominator is 1, the converted value is equal to the numerator...
-        return converted.numerator();
+        return converted / wholeNotes.denominator();
     }        
     
     /**
@@ -677,11 +767,10 @@ public class Note implements Cloneable {
     private int getMidiPitchNumber(boolean keepExactPitch) {
         if (this.isRest()) return 0;
                 
-        int[] scaleSteps = this.getScale().getScaleStepArray(); // cache it
-        Note normalizedNote = this.getNormalizedNote();        
-        int chromaticAdj = normalizedNote.getChromaticAdjustment();
+        Scale noteScale = this.getScale(); // cache it
+        int naturalPitchNum = noteScale.getHalfStepsAboveTonic(this.getScaleStep());
+        int chromaticAdj = this.getChromaticAdjustment();
         int chromaticAdjDecrementer = chromaticAdj > 0 ? 1 : -1;
-        int testPitchNum;
         
         // Figure out the chromatic adjustment to use for the note.  We attempt to
         // use the given chromatic adjustment, but if it results in producing a pitch
@@ -692,27 +781,27 @@ public class Note implements Cloneable {
         // wind up with two of the same pitches in a row.  This loses the "shape"
         // that we are dealing with, so we adjust the accidental as necessary.        
         while (!keepExactPitch && Math.abs(chromaticAdj) > 0) {
-            testPitchNum = (scaleSteps[normalizedNote.getScaleStep()] // the raw (natural) pitch number                    
-                    + chromaticAdj                                    // the chromatic adjustment to test...                    
-                    + Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE)         // necessary for notes like Cb, to prevent testPitchNum from being negative
-                    % Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE;         // mod it, to put it in the range 0-12
-            
-            assert testPitchNum >= 0 && testPitchNum < Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE : testPitchNum;                        
-            
             // stop decrementing our chromatic adjustment if our scale lacks this pitch...
-            if (Arrays.binarySearch(scaleSteps, testPitchNum) < 0) break;
+            if (!noteScale.containsChromaticPitch(naturalPitchNum + chromaticAdj)) break;
             
             // move the chromatic adjustment towards zero...
             chromaticAdj -= chromaticAdjDecrementer;
         }
         
-        int pitchNum = scaleSteps[normalizedNote.getScaleStep()]       // half steps above tonic
-                + chromaticAdj                                 // the note's chromatic adjustment
-                + this.getSegmentChromaticAdjustment() // chromatic adjustment for the segment
-                + this.getScale().getKeyName().getMidiPitchNumberAtOctave(normalizedNote.getOctave()); // take into account the octave
+        int pitchNum = noteScale.getMidiPitchNumber(this.getScaleStep(), this.getOctave(), chromaticAdj) // the scale step and octave, with the note's chromatic adjustment
+                + this.getSegmentChromaticAdjustment(); // chromatic adjustment for the segment
                 
-        // if the pitch number is outside of the allowed midi range, transpose it by some number of octaves
-        // until it is valid...
+        return getPitchNumberInMidiRange(pitchNum);
+    }
+    
+    /**
+     * Transposes the given pitch number by some number of octaves, if it is
+     * outside of the allowed midi range, until it is valid.
+     * 
+     * @param pitchNum the pitch number
+     * @return the pitch number within the midi range
+     */
+    private static int getPitchNumberInMidiRange(int pitchNum) {
         while (pitchNum < MidiNote.MIN_PITCH_NUM) pitchNum += Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE;
         while (pitchNum > MidiNote.MAX_PITCH_NUM) pitchNum -= Scale.NUM_CHROMATIC_PITCHES_PER_OCTAVE;
         return pitchNum;
@@ -732,10 +821,27 @@ public class Note implements Cloneable {
      * @return the MidiNote
      */
     public MidiNote convertToMidiNote(Fraction startTime, int midiTickResolution, int channel, boolean keepExactPitch) {        
+        return this.convertToMidiNote(convertWholeNotesToTicks(startTime, midiTickResolution), midiTickResolution, channel, keepExactPitch);
+    }
+    
+    /**
+     * Converts the note to a Midi Note, that can then be used to get the
+     * actual Midi note on and note off events.
+     *      
+     * @param startTick the time this note should be played, in midi ticks
+     * @param midiTickResolution the number of ticks per whole note for the
+     *        midi sequence
+     * @param channel the midi channel for this note, 0-15
+     * @param keepExactPitch true to keep the exact pitch specified by the note
+     *        parameters; false to allow the chromaticAdjustment to be changed
+     *        if it would create a note that is already found in the scale
+     * @return the MidiNote
+     */
+    public MidiNote convertToMidiNote(long startTick, int midiTickResolution, int channel, boolean keepExactPitch) {        
         MidiNote midiNote = new MidiNote();       
             
         midiNote.setDuration(convertWholeNotesToTicks(this.getDuration(), midiTickResolution));
-        midiNote.setStartTime(convertWholeNotesToTicks(startTime, midiTickResolution) + MidiNote.MIDI_SEQUENCE_START_SILENCE_TICK_OFFSET);
+        midiNote.setStartTime(startTick + MidiNote.MIDI_SEQUENCE_START_SILENCE_TICK_OFFSET);
         midiNote.setVelocity(this.getVolume());        
         midiNote.setPitch(this.getMidiPitchNumber(keepExactPitch));
         midiNote.setChannel(channel);
@@ -755,10 +861,8 @@ public class Note implements Cloneable {
     public NotationNote toNotationNote(PartSection partSection, MidiNote midiNote, Fraction timeLeftInBar) {
         if (this.isRest()) return NotationNote.createRest(partSection, duration, timeLeftInBar, this.isFirstNoteOfGermCopy);
         
-        Note normalizedNote = this.getNormalizedNote();        
-        
         // get the letter
-        NoteName letterNoteName = this.getScale().getKeyName().getNaturalNoteNameForLetterNumber(normalizedNote.getLetterNumber());        
+        NoteName letterNoteName = this.getScale().getKeyName().getNaturalNoteNameForLetterNumber(this.getNormalizedLetterNumber());        
         char letter = letterNoteName.getLetter(true);
                 
         // get the chromatic adjustment
@@ -770,6 +874,7 @@ public class Note implements Cloneable {
             // normalize this to a different letter name
             
             int letterNumberAdjustment = (chromAdjustment > 0 ? 1 : -1);
+            Note normalizedNote = this.getNormalizedNote();
             normalizedNote.performTransformerAdjustment(0, letterNumberAdjustment, 0);
             return normalizedNote.toNotationNote(partSection, midiNote, timeLeftInBar);
         } else {
@@ -795,7 +900,9 @@ public class Note implements Cloneable {
     @Override
     public Note clone() {
         try {
-            return (Note) super.clone();
+            Note clone = (Note) super.clone();
+            clone.inReadOnlyNoteList = false;
+            return clone;
         } catch (CloneNotSupportedException ex) {
             // We have implemented the Cloneable interface, so we should never
             // get this exception.  If we do, there's something very, very wrong...
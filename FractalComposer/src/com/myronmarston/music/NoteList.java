@@ -22,6 +22,7 @@ package com.myronmarston.music;
 import com.myronmarston.music.scales.Scale;
 import com.myronmarston.music.settings.VoiceSection;
 import com.myronmarston.util.Fraction;
+import com.myronmarston.util.MutableFraction;
 
 import org.simpleframework.xml.*;
 import org.simpleframework.xml.load.*;
@@ -36,7 +37,7 @@ import java.util.regex.*;
  * @author Myron
  */
 @Root
-public class NoteList extends AbstractList<Note> implements Cloneable {
+public class NoteList extends AbstractList<Note> implements Cloneable, NoteStream {
     // Used to serialize the class.  Change this if the class has a change significant enough to change the way the class is serialized.
     private static final long serialVersionUID = 1L;
         
@@ -47,6 +48,16 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
     
     private transient Instrument instrument;
     
+    private transient DurationIndex durationIndex;
+    
+    // the number of notes of this modifiable list that belong to a read-only
+    // note list (see get())
+    private transient volatile int sharedNoteCount;
+    
+    // true if internalList is the list of the read-only note list this was
+    // cloned from, in which case it is copied before it is changed
+    private transient boolean internalListShared;
+    
     @Attribute
     private boolean readOnly;
     
@@ -89,33 +100,166 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
     
     private NoteList(List<Note> internalList) {        
         this.internalList = (internalList == null ? new ArrayList<Note>() : internalList);
+        for (Note n : this.internalList) {
+            if (isShared(n)) this.sharedNoteCount++;
+        }
     }
 
+    /**
+     * Gets the note at the given index.  If this list is modifiable and the 
+     * note belongs to a read-only note list (see clone()), it is first 
+     * replaced with a copy, since the caller may modify it.
+     * 
+     * @param index the index of the note
+     * @return the note
+     */
     @Override
     public Note get(int index) {
+        if (this.sharedNoteCount != 0) return this.getUnsharedNote(index);
         return this.internalList.get(index);
     }
+    
+    /**
+     * Gets the note at the given index, first replacing it with a copy if it
+     * belongs to a read-only note list.
+     * 
+     * @param index the index of the note
+     * @return the note
+     */
+    private synchronized Note getUnsharedNote(int index) {
+        Note note = this.internalList.get(index);
+        if (!isShared(note)) return note;
+        
+        note = note.clone();
+        this.unshareInternalList();
+        this.internalList.set(index, note);
+        this.sharedNoteCount--;
+        return note;
+    }
+    
+    /**
+     * Checks whether the given note belongs to a read-only note list.
+     * 
+     * @param note the note
+     * @return true if the note is not null and belongs to a read-only note 
+     *         list
+     */
+    private static boolean isShared(Note note) {
+        return note != null && note.isInReadOnlyNoteList();
+    }
+    
+    /**
+     * Gets a read-only view of the notes of this list.  Unlike get(), this 
+     * never copies a note that is shared with a read-only note list, so the 
+     * notes must not be modified.  This is meant for code that only reads 
+     * the notes, or clones each one before changing it.  The view may not 
+     * reflect changes made to this list after it is returned.
+     * 
+     * @return a read-only view of the notes
+     */
+    public List<Note> getReadOnlyNotes() {
+        return Collections.unmodifiableList(this.internalList);
+    }
+    
+    // equals() and hashCode() only read the notes, so they compare the read-
+    // only views rather than going through get(), which would copy the notes
+    // shared with a read-only note list
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof NoteList) obj = ((NoteList) obj).getReadOnlyNotes();
+        return this.getReadOnlyNotes().equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.getReadOnlyNotes().hashCode();
+    }
 
     @Override
     public int size() {
         return this.internalList.size();
     }
 
+    /**
+     * Replaces the internal list with a copy if it is shared with the 
+     * read-only note list this was cloned from.  This must be called before
+     * the internal list is changed.
+     */
+    private void unshareInternalList() {
+        if (!this.internalListShared) return;
+        this.internalList = new ArrayList<Note>(this.internalList);
+        this.internalListShared = false;
+    }
+
     @Override
     public void add(int index, Note element) {
+        this.unshareInternalList();
         this.modCount++;        
         this.internalList.add(index, element);
+        if (isShared(element)) this.sharedNoteCount++;
     }
 
+    /**
+     * Removes the note at the given index.  The note is returned as it is, 
+     * so if it belongs to a read-only note list, it must not be modified.
+     * 
+     * @param index the index of the note to remove
+     * @return the removed note
+     */
     @Override
     public Note remove(int index) {
+        this.unshareInternalList();
         this.modCount++;
-        return this.internalList.remove(index);
+        Note note = this.internalList.remove(index);
+        if (isShared(note)) this.sharedNoteCount--;
+        return note;
     }
 
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        // AbstractList removes the notes one at a time through an iterator,
+        // which would copy each shared note before removing it...
+        this.unshareInternalList();
+        this.modCount++;
+        List<Note> range = this.internalList.subList(fromIndex, toIndex);
+        int sharedNotesInRange = 0;
+        for (Note n : range) {
+            if (isShared(n)) sharedNotesInRange++;
+        }
+        range.clear();
+        this.sharedNoteCount -= sharedNotesInRange;
+    }
+
+    /**
+     * Replaces the note at the given index.  The replaced note is returned as
+     * it is, so if it belongs to a read-only note list, it must not be 
+     * modified.
+     * 
+     * @param index the index of the note to replace
+     * @param element the new note
+     * @return the replaced note
+     */
     @Override
     public Note set(int index, Note element) {        
-        return this.internalList.set(index, element);
+        // set() does not change the modCount, so we clear the index directly...
+        this.durationIndex = null;
+        this.unshareInternalList();
+        Note note = this.internalList.set(index, element);
+        if (isShared(note)) this.sharedNoteCount--;
+        if (isShared(element)) this.sharedNoteCount++;
+        return note;
+    }
+    
+    /**
+     * Reverses the order of the notes in this list.  Unlike 
+     * Collections.reverse(), this does not copy the notes that belong to a 
+     * read-only note list.
+     */
+    public void reverse() {
+        // like set(), this does not change the modCount...
+        this.durationIndex = null;
+        this.unshareInternalList();
+        Collections.reverse(this.internalList);
     }
 
     /**
@@ -158,9 +302,9 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
      * @return the first note that is audible, or null
      */
     public Note getFirstAudibleNote() {
-        for (Note n : this) {
-            if (!n.isRest()) {
-                return n;
+        for (int i = 0; i < this.internalList.size(); i++) {
+            if (!this.internalList.get(i).isRest()) {
+                return this.get(i);
             }                
         }
         
@@ -168,14 +312,101 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
     }
     
     /**
-     * Gets the total length of the note list.
+     * Gets the total length of the note list.  The duration is cached until 
+     * the list is next modified.  Changing the duration of a note that is 
+     * already in the list is not detected, so a note should be given its 
+     * duration before it is added.
      * 
      * @return the duration of the note list
      */
     public Fraction getDuration() {
-        Fraction duration = new Fraction(0, 1);
-        for (Note n : this) duration = duration.plus(n.getDuration());        
-        return duration;        
+        DurationIndex index = this.durationIndex;
+        if (index == null || index.modCount != this.modCount) {
+            MutableFraction duration = new MutableFraction();
+            for (Note n : this.internalList) duration.add(n.getDuration());        
+            index = new DurationIndex(this.modCount, duration.toFraction(), null);
+            this.durationIndex = index;
+        }
+        return index.duration;
+    }
+    
+    /**
+     * Gets the time at which the note at the given index starts, measured in
+     * whole notes from the start of the list.  The first call builds an index
+     * of the start times, which is kept until the list is next modified.
+     * 
+     * @param index the index of the note; the size of the list may be passed
+     *        to get the time at which the last note ends
+     * @return the start time of the note
+     * @throws IndexOutOfBoundsException if the index is less than zero or 
+     *         greater than the size of the list
+     */
+    public Fraction getStartTime(int index) throws IndexOutOfBoundsException {
+        Fraction[] startTimes = this.getStartTimes();
+        if (index < 0 || index >= startTimes.length) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        return startTimes[index];
+    }
+    
+    /**
+     * Gets the index of the note that sounds at the given time: the note that
+     * starts at or before the time and ends after it.  This is a binary search
+     * of the start time index (see getStartTime()).
+     * 
+     * @param time the time, in whole notes from the start of the list
+     * @return the index of the note, or -1 if the time is before the start or
+     *         at or after the end of the list
+     */
+    public int getNoteIndexAtTime(Fraction time) {
+        Fraction[] startTimes = this.getStartTimes();
+        if (time.compareTo(0L) < 0 || time.compareTo(startTimes[startTimes.length - 1]) >= 0) return -1;
+        
+        // find the last note that starts at or before the time...
+        int low = 0;
+        int high = startTimes.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (startTimes[mid].compareTo(time) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Gets the note that sounds at the given time.
+     * 
+     * @param time the time, in whole notes from the start of the list
+     * @return the note, or null if the time is outside of the list
+     * @see #getNoteIndexAtTime(com.myronmarston.util.Fraction)
+     */
+    public Note getNoteAtTime(Fraction time) {
+        int index = this.getNoteIndexAtTime(time);
+        return (index < 0 ? null : this.get(index));
+    }
+    
+    /**
+     * Gets the start time of each note, followed by the end time of the last 
+     * note, building the index if it is not current.
+     * 
+     * @return array of the start times
+     */
+    private Fraction[] getStartTimes() {
+        DurationIndex index = this.durationIndex;
+        if (index == null || index.modCount != this.modCount || index.startTimes == null) {
+            int size = this.size();
+            Fraction[] startTimes = new Fraction[size + 1];
+            MutableFraction time = new MutableFraction();
+            startTimes[0] = time.toFraction();
+            for (int i = 0; i < size; i++) {
+                time.add(this.internalList.get(i).getDuration());
+                startTimes[i + 1] = time.toFraction();
+            }
+            index = new DurationIndex(this.modCount, startTimes[size], startTimes);
+            this.durationIndex = index;
+        }
+        return index.startTimes;
     }
     
     /**
@@ -194,11 +425,19 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
         Note note = null;
         Fraction defaultDuration = null;
         Integer defaultVolume = null;                        
-        StringTokenizer st = new StringTokenizer(noteListString);
         NoteList list = new NoteList();
+        int length = noteListString.length();
+        int tokenStart = 0;
         
-        while (st.hasMoreTokens()) {
-            note = Note.parseNoteString(st.nextToken(), scale, defaultDuration, defaultVolume);
+        while (true) {
+            // find the next whitespace-delimited token and parse it in place...
+            while (tokenStart < length && isNoteListDelimiter(noteListString.charAt(tokenStart))) tokenStart++;
+            if (tokenStart == length) break;            
+            int tokenEnd = tokenStart + 1;
+            while (tokenEnd < length && !isNoteListDelimiter(noteListString.charAt(tokenEnd))) tokenEnd++;
+            
+            note = Note.parseNoteString(noteListString, tokenStart, tokenEnd, scale, defaultDuration, defaultVolume);
+            tokenStart = tokenEnd;
             
             // get our defaults for the next note from this note...
             defaultDuration = note.getDuration();            
@@ -222,6 +461,17 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
         return list;
     }
     
+    /**
+     * Checks whether a character separates the notes of a note list string.
+     * These are the same whitespace characters used by StringTokenizer.
+     * 
+     * @param c the character
+     * @return true if the character is a delimiter
+     */
+    private static boolean isNoteListDelimiter(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+    
     /**
      * Gets a list of notes with all rests normalized.  Adjacent rests are 
      * combined into one longer rest.
@@ -230,63 +480,55 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
      */
     public NoteList getListWithNormalizedRests() {
         NoteList newList = new NoteList(this.size());
-        
-        if (this.size() == 1) {
-            // our logic below doesn't work for the case where we have a one-note
-            // list, so just make it manually here
-            newList.add(this.get(0));
-        } else {                    
-            Note thisNote, nextNote = null;
-            Fraction currentRestDuration = new Fraction(0, 1);
-
-            for (int i = 0; i < this.size() - 1; i++) {
-                thisNote = this.get(i);
-                nextNote = this.get(i+1);
-
-                if (thisNote.isRest()) {
-                    currentRestDuration = currentRestDuration.plus(thisNote.getDuration());
-
-                    if (!nextNote.isRest() || thisNote.getSourceVoiceSection() != nextNote.getSourceVoiceSection()) {
-                        // the next note should not be collapsed into a rest with this one,
-                        // so just create a rest with our current duration
-                        getListWithNormalizedRests_createRestHelper(newList, currentRestDuration, thisNote);
-
-                        // reset the current rest duration to zero
-                        currentRestDuration = new Fraction(0, 1);
-                    }
-                } else {
-                    // we should never have a rest duration queued up when we reach here
-                    assert currentRestDuration.numerator() == 0L;
-                    newList.add(thisNote);
-                }
-            }            
-
-            // our nextNote should be the last note of the list
-            assert nextNote == this.get(this.size() - 1);
-            if (currentRestDuration.numerator() > 0L) {
-                getListWithNormalizedRests_createRestHelper(newList, currentRestDuration.plus(nextNote.getDuration()), nextNote);                
-            } else {
-                newList.add(nextNote);
-            }
-        }    
-                
+        Iterator<Note> normalizedNotes = getNormalizedRestIterator(this.iterator());
+        while (normalizedNotes.hasNext()) newList.add(normalizedNotes.next());
         return newList;
     }
     
     /**
-     * Helper method for getListWithNormalizedRests to create the combined
-     * rest note and add it to the new list.
+     * Gets an iterator that normalizes the rests of the given notes as it 
+     * goes.  Adjacent rests from the same voice section are combined into one
+     * longer rest.  This allows the rests of a NoteStream to be normalized 
+     * without holding all of its notes in memory.
      * 
-     * @param newList new NoteList to add the rest to
-     * @param currentRestDuration the rest duration of the previous notes
-     * @param restNoteWithSourceVoiceSection a rest note with the desired source voice
-     *        section
+     * @param notes the notes to normalize
+     * @return an iterator of notes with normalized rests
      */
-    private static void getListWithNormalizedRests_createRestHelper(NoteList newList, Fraction currentRestDuration, Note restNoteWithSourceVoiceSection) {
-        assert restNoteWithSourceVoiceSection.isRest();
-        Note rest = Note.createRest(currentRestDuration);
-        rest.setSourceVoiceSection(restNoteWithSourceVoiceSection.getSourceVoiceSection());
-        newList.add(rest);
+    public static Iterator<Note> getNormalizedRestIterator(final Iterator<Note> notes) {
+        return new Iterator<Note>() {
+            private Note nextNote = (notes.hasNext() ? notes.next() : null);
+            
+            public boolean hasNext() {
+                return this.nextNote != null;
+            }
+
+            public Note next() {
+                if (this.nextNote == null) throw new NoSuchElementException();                
+                Note thisNote = this.advance();
+                
+                // the last note is used as-is, since there is nothing to combine it with
+                if (!thisNote.isRest() || this.nextNote == null) return thisNote;
+                                
+                Fraction currentRestDuration = thisNote.getDuration();
+                while (this.nextNote != null && this.nextNote.isRest() && this.nextNote.getSourceVoiceSection() == thisNote.getSourceVoiceSection()) {
+                    currentRestDuration = currentRestDuration.plus(this.advance().getDuration());
+                }
+                
+                Note rest = Note.createRest(currentRestDuration);
+                rest.setSourceVoiceSection(thisNote.getSourceVoiceSection());
+                return rest;
+            }
+            
+            private Note advance() {
+                Note note = this.nextNote;
+                this.nextNote = (notes.hasNext() ? notes.next() : null);
+                return note;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException("This iterator does not support removal.");
+            }
+        };
     }
     
     /**
@@ -297,14 +539,17 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
      */
     public void updateScale(Scale scale) {
         Scale originalScale = null;
-        for (Note n : this) {
+        for (int i = 0; i < this.internalList.size(); i++) {
+            Note n = this.internalList.get(i);
             if (n.isRest()) continue;
             if (originalScale == null) originalScale = n.getScale();
             
             // we should never update the scale on all the notes if they have 
             // mixed scales--in this case, this method is being used improperly
             assert n.getScale() == originalScale : n.getScale();
-            n.setScale(scale);            
+            
+            // only notes we change need to be unshared...
+            if (n.getScale() != scale) this.get(i).setScale(scale);            
         }
     }
     
@@ -316,7 +561,7 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
     public int getNumberOfAccidentals() {
         int accidentalCount = 0;
         
-        for (Note n : this) {
+        for (Note n : this.internalList) {
             if (n.getChromaticAdjustment() != 0 || n.getSegmentChromaticAdjustment() != 0) {
                 accidentalCount++;                        
             }
@@ -333,7 +578,10 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
      *        list
      */
     public void setSourceVoiceSectionOnAllNotes(VoiceSection source) {
-        for (Note n : this) n.setSourceVoiceSection(source);
+        for (int i = 0; i < this.internalList.size(); i++) {
+            // only notes we change need to be unshared...
+            if (this.internalList.get(i).getSourceVoiceSection() != source) this.get(i).setSourceVoiceSection(source);
+        }
     }
     
     /**
@@ -353,17 +601,59 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
     }
     
     /**
-     * Gets a read-only copy of this note list.
+     * Gets a read-only copy of this note list.  The notes of a read-only list
+     * must not be modified, since clones of the list share them.
      * 
      * @return a read-only copy
      */
     public NoteList getReadOnlyCopy() {
         NoteList copy = this.clone();        
-        copy.readOnly = true;
-        copy.updateListInstanceBasedOnReadOnlySetting();
+        copy.makeReadOnly();
+        return copy;
+    }
+    
+    /**
+     * Gets a read-only copy of this note list whose notes use the given 
+     * scale.  This gives the same result as cloning the list, updating the 
+     * scale of the clone and getting a read-only copy of that, but each note
+     * is copied at most once.
+     * 
+     * @param scale the scale the notes of the copy should use
+     * @return a read-only copy
+     */
+    public NoteList getReadOnlyCopy(Scale scale) {
+        NoteList copy = this.clone();
+        copy.updateScale(scale);
+        copy.makeReadOnly();
         return copy;
     }
     
+    /**
+     * Makes this list read-only.  This is only used on a new copy of a list.
+     */
+    private void makeReadOnly() {
+        this.readOnly = true;
+        
+        // the notes of a read-only list are never modified, so it can keep
+        // any it shares, along with a shared list, which is already read-only...
+        if (!this.internalListShared) this.updateListInstanceBasedOnReadOnlySetting();
+        this.internalListShared = false;
+        this.markNotesAsInReadOnlyNoteList();
+    }
+    
+    /**
+     * Marks the notes of this read-only list, so that a modifiable list that
+     * gets one of them (from a clone of this list, or any other way) copies 
+     * it before handing it out.
+     */
+    private void markNotesAsInReadOnlyNoteList() {
+        assert this.isReadOnly();
+        this.sharedNoteCount = 0;
+        for (Note n : this.internalList) {
+            if (n != null) n.setInReadOnlyNoteList();
+        }
+    }
+    
     @Persist
     private void prepareForXmlSerialization() {
         listForSerialization = new ArrayList<Note>(this.internalList);
@@ -380,12 +670,18 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
         assert this.listForSerialization != null;  
         this.internalList = this.listForSerialization;
         updateListInstanceBasedOnReadOnlySetting();
+        if (this.isReadOnly()) this.markNotesAsInReadOnlyNoteList();
         this.listForSerialization = null;
     }
     
     @Override
     /**
-     * Clones the note list.  Each individual note is also cloned.
+     * Clones the note list.  Each individual note is also cloned.  The notes
+     * of a read-only list are never modified, so a clone of one shares them
+     * instead, and each is only cloned when the clone's get() first hands it
+     * out.  The clone shares the read-only list itself, too, until notes are
+     * added, removed, set or copied.  Most clones of the germ are only read,
+     * so this saves copying it.
      */
     public NoteList clone() {
         NoteList clone;
@@ -401,12 +697,40 @@ public class NoteList extends AbstractList<Note> implements Cloneable {
         // purpose of a clone is getting a copy we can modify while leaving
         // the original untouched.
         clone.readOnly = false;
-        clone.updateListInstanceBasedOnReadOnlySetting();
         
-        for (int i = 0; i < clone.size(); i++) {
-            clone.set(i, clone.get(i).clone());
+        int size = clone.internalList.size();
+        if (this.isReadOnly()) {
+            // the list and its notes are copied when the clone changes them...
+            clone.internalListShared = true;
+            clone.sharedNoteCount = size;
+            return clone;
+        }
+        
+        clone.updateListInstanceBasedOnReadOnlySetting();
+        clone.internalListShared = false;
+        for (int i = 0; i < size; i++) {
+            Note note = clone.internalList.get(i);
+            if (!isShared(note)) clone.internalList.set(i, note.clone());
         }
         
         return clone;
     }        
+    
+    /**
+     * Holds the cached duration of the list, and optionally the start time of
+     * each note, along with the modCount they were calculated at.  These are 
+     * kept in one immutable object so that they are always consistent with 
+     * each other.
+     */
+    private static final class DurationIndex {
+        private final int modCount;
+        private final Fraction duration;
+        private final Fraction[] startTimes;
+        
+        public DurationIndex(int modCount, Fraction duration, Fraction[] startTimes) {
+            this.modCount = modCount;
+            this.duration = duration;
+            this.startTimes = startTimes;
+        }
+    }
 }
@@ -82,6 +82,8 @@ public enum NoteName {
     private final boolean defaultNoteNameForNumber;
     private final int majorKeySharpsOrFlats;    
     private final static HashMap<String, NoteName> NOTE_NAME_HASH;    
+    private final static NoteName[][] NOTE_NAMES_BY_LETTER_AND_ACCIDENTAL;
+    private final static int MAX_ACCIDENTAL = 2;
     
     /**
      * The number of letter names (i.e. A through G).
@@ -98,6 +100,19 @@ public enum NoteName {
             // convert to upper case so that the case doesn't matter...
             NOTE_NAME_HASH.put(nn.toString().toUpperCase(Locale.ENGLISH), nn);
         }                
+        
+        // index the note names by letter number and accidental (-2 to 2),
+        // using the natural note name of each letter as the reference...
+        int[] naturalNoteNumbers = new int[NUM_LETTER_NAMES];
+        for (NoteName nn : NoteName.values()) {
+            if (nn.name().length() == 1) naturalNoteNumbers[nn.letterNumber] = nn.noteNumber;
+        }
+        
+        NOTE_NAMES_BY_LETTER_AND_ACCIDENTAL = new NoteName[NUM_LETTER_NAMES][MAX_ACCIDENTAL * 2 + 1];
+        for (NoteName nn : NoteName.values()) {
+            int accidental = nn.noteNumber - naturalNoteNumbers[nn.letterNumber];
+            NOTE_NAMES_BY_LETTER_AND_ACCIDENTAL[nn.letterNumber][accidental + MAX_ACCIDENTAL] = nn;
+        }
     }
     
     private NoteName(int letterNumber, int noteNumber) {
@@ -285,4 +300,21 @@ public enum NoteName {
         // convert to upper case so that the case doesn't matter...
         return NOTE_NAME_HASH.get(str.toUpperCase(Locale.ENGLISH));
     }        
+    
+    /**
+     * Gets the note name for the given letter number and accidental.
+     * 
+     * @param letterNumber the letter number, from 0 (C) to 6 (B)
+     * @param accidental the number of half steps the note name is raised 
+     *        (positive) or lowered (negative) from the natural note name, 
+     *        from -2 (double flat) to 2 (double sharp)
+     * @return the note name
+     * @throws IllegalArgumentException if the letter number or accidental 
+     *         is out of range
+     */
+    public static NoteName getNoteName(int letterNumber, int accidental) throws IllegalArgumentException {
+        if (letterNumber < 0 || letterNumber >= NUM_LETTER_NAMES) throw new IllegalArgumentException("The letter number must be between 0 and " + (NUM_LETTER_NAMES - 1) + ".  The given value was " + letterNumber + ".");
+        if (Math.abs(accidental) > MAX_ACCIDENTAL) throw new IllegalArgumentException("The accidental must be between -" + MAX_ACCIDENTAL + " and " + MAX_ACCIDENTAL + ".  The given value was " + accidental + ".");
+        return NOTE_NAMES_BY_LETTER_AND_ACCIDENTAL[letterNumber][accidental + MAX_ACCIDENTAL];
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music;
+
+/**
+ * A sequence of notes, along with the instrument that should play them.  
+ * Unlike a NoteList, the notes of a NoteStream do not have to be held in 
+ * memory all at once; they may be generated as they are iterated over.  Each
+ * call to iterator() starts over at the beginning of the stream.  The notes 
+ * returned by the iterator should not be modified.
+ * 
+ * @author Myron
+ */
+public interface NoteStream extends Iterable<Note> {
+    
+    /**
+     * Gets the instrument for this stream of notes.
+     * 
+     * @return the instrument, or null to use the default instrument
+     */
+    Instrument getInstrument();
+}
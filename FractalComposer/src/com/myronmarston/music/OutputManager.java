@@ -24,6 +24,7 @@ import com.myronmarston.music.settings.*;
 import com.myronmarston.music.scales.KeySignature;
 import com.myronmarston.util.Fraction;
 import com.myronmarston.util.MathHelper;
+import com.myronmarston.util.MutableFraction;
 import java.io.*;
 import java.lang.reflect.UndeclaredThrowableException;
 import javax.sound.midi.*;
@@ -40,7 +41,9 @@ public class OutputManager {
     private Sequence sequence;
     private final FractalPiece fractalPiece;
     private final int tempo;
+    private final int midiTickResolution;
     private final Fraction timeSignatureFraction;
+    private final List<? extends NoteStream> noteStreams;
     private List<NoteList> noteLists;
     private SheetMusicCreator sheetMusicCreator;
     private AudioFileCreator audioFileCreator;
@@ -56,6 +59,13 @@ public class OutputManager {
     private String lastPngFileName;
     
     private static final int MIDI_FILE_TYPE_FOR_MULTI_TRACK_SEQUENCE = 1;    
+    
+    /**
+     * The largest midi tick resolution, in ticks per quarter note, that a 
+     * midi sequence supports.  The resolution is stored in 15 bits of the 
+     * midi file header.
+     */
+    public static final int MAX_MIDI_TICK_RESOLUTION = 0x7FFF;
         
     /**
      * Gets the Midi sequence.
@@ -117,12 +127,38 @@ public class OutputManager {
     
     /**
      * Gets the collection of note lists that was used to generate the output.
+     * If the output was generated from note streams that are not note lists,
+     * the streams are collected into note lists the first time this is called.
      * 
      * @return the collection of note lists
      */
     public List<NoteList> getNoteLists() {
+        if (this.noteLists == null) {
+            List<NoteList> lists = new ArrayList<NoteList>(this.noteStreams.size());
+            for (NoteStream ns : this.noteStreams) {
+                if (ns instanceof NoteList) {
+                    lists.add((NoteList) ns);
+                } else {
+                    NoteList nl = new NoteList();
+                    for (Note n : ns) nl.add(n);
+                    nl.setInstrument(ns.getInstrument());
+                    lists.add(nl);
+                }
+            }
+            this.noteLists = lists;
+        }
+        
         return this.noteLists;
     }
+    
+    /**
+     * Gets the collection of note streams that was used to generate the output.
+     * 
+     * @return the collection of note streams
+     */
+    public List<? extends NoteStream> getNoteStreams() {
+        return this.noteStreams;
+    }
 
     /**
      * Gets the fractal piece to generate the output.
@@ -148,10 +184,11 @@ public class OutputManager {
      * guido notation.  All aspects of the guido notation are included.
      * 
      * @param fractalPiece the fractal piece
-     * @param noteLists collection of noteLists containing music
+     * @param noteLists collection of noteLists (or other note streams) 
+     *        containing music
      * @throws com.myronmarston.music.GermIsEmptyException if the germ is empty
      */
-    public OutputManager(FractalPiece fractalPiece, List<NoteList> noteLists) throws GermIsEmptyException {
+    public OutputManager(FractalPiece fractalPiece, List<? extends NoteStream> noteLists) throws GermIsEmptyException {
         this(fractalPiece, noteLists, true, true, true);
     }
 
@@ -160,31 +197,90 @@ public class OutputManager {
      * guido notation.
      * 
      * @param fractalPiece the fractal piece 
-     * @param noteLists collection of noteLists containing music     
+     * @param noteLists collection of noteLists (or other note streams) 
+     *        containing music
+     * @param includeTempoOnSheetMusic whether or not to include a tempo marking
+     *        on the produced sheet music
+     * @param includeInstrumentOnSheetMusic whether or not to include 
+     *        instrument markings on the produced sheet music
+     * @param generateKeySignaturesForSections whether or not to generate seperate
+     *        key signatures for each section
+     * @throws com.myronmarston.music.GermIsEmptyException if the germ is empty
+     */
+    public OutputManager(FractalPiece fractalPiece, List<? extends NoteStream> noteLists, boolean includeTempoOnSheetMusic, boolean includeInstrumentOnSheetMusic, boolean generateKeySignaturesForSections) throws GermIsEmptyException {
+        this(fractalPiece, noteLists, includeTempoOnSheetMusic, includeInstrumentOnSheetMusic, generateKeySignaturesForSections, 0);
+    }
+    
+    /**
+     * Constructor.  This automatically constructs the midi sequence and the
+     * guido notation, using the given midi tick resolution rather than 
+     * examining every note to find one.
+     * 
+     * @param fractalPiece the fractal piece 
+     * @param noteLists collection of noteLists (or other note streams) 
+     *        containing music
+     * @param includeTempoOnSheetMusic whether or not to include a tempo marking
+     *        on the produced sheet music
+     * @param includeInstrumentOnSheetMusic whether or not to include 
+     *        instrument markings on the produced sheet music
+     * @param generateKeySignaturesForSections whether or not to generate seperate
+     *        key signatures for each section
+     * @param midiTickResolution the midi tick resolution, in ticks per quarter
+     *        note; every note's duration must be a whole number of ticks.  
+     *        Pass 0 to find the resolution from the notes.
+     * @throws com.myronmarston.music.GermIsEmptyException if the germ is empty
+     */
+    public OutputManager(FractalPiece fractalPiece, List<? extends NoteStream> noteLists, boolean includeTempoOnSheetMusic, boolean includeInstrumentOnSheetMusic, boolean generateKeySignaturesForSections, int midiTickResolution) throws GermIsEmptyException {
+        this(fractalPiece, noteLists, includeTempoOnSheetMusic, includeInstrumentOnSheetMusic, generateKeySignaturesForSections, midiTickResolution, null);
+    }
+    
+    /**
+     * Constructor.  This automatically constructs the midi sequence and the
+     * guido notation.  Any track of the previous output manager that was 
+     * created from the same note list (the identical object, at the same 
+     * index) is reused rather than created again, along with its notation 
+     * part.  The reused parts are moved to this output manager, so the 
+     * previous output manager's notation should not be used afterwards.
+     * 
+     * @param fractalPiece the fractal piece 
+     * @param noteLists collection of noteLists (or other note streams) 
+     *        containing music
      * @param includeTempoOnSheetMusic whether or not to include a tempo marking
      *        on the produced sheet music
      * @param includeInstrumentOnSheetMusic whether or not to include 
      *        instrument markings on the produced sheet music
      * @param generateKeySignaturesForSections whether or not to generate seperate
      *        key signatures for each section
+     * @param midiTickResolution the midi tick resolution, in ticks per quarter
+     *        note; every note's duration must be a whole number of ticks.  
+     *        Pass 0 to find the resolution from the notes.
+     * @param previousOutputManager the output manager to reuse unchanged 
+     *        tracks from, or null
      * @throws com.myronmarston.music.GermIsEmptyException if the germ is empty
+     * @throws UnsupportedOperationException if the resolution is found from
+     *         the notes and is greater than MAX_MIDI_TICK_RESOLUTION
      */
-    public OutputManager(FractalPiece fractalPiece, List<NoteList> noteLists, boolean includeTempoOnSheetMusic, boolean includeInstrumentOnSheetMusic, boolean generateKeySignaturesForSections) throws GermIsEmptyException {
+    public OutputManager(FractalPiece fractalPiece, List<? extends NoteStream> noteLists, boolean includeTempoOnSheetMusic, boolean includeInstrumentOnSheetMusic, boolean generateKeySignaturesForSections, int midiTickResolution, OutputManager previousOutputManager) throws GermIsEmptyException {
+        if (midiTickResolution < 0) throw new IllegalArgumentException("The midi tick resolution cannot be negative.");
+        if (midiTickResolution > MAX_MIDI_TICK_RESOLUTION) throw new IllegalArgumentException("The midi tick resolution cannot be greater than " + MAX_MIDI_TICK_RESOLUTION + ".");
+        this.midiTickResolution = midiTickResolution;
         this.fractalPiece = fractalPiece;
         this.timeSignatureFraction = this.fractalPiece.getTimeSignature().toFraction();
-        this.noteLists = noteLists;
+        this.noteStreams = noteLists;
         this.tempo = this.fractalPiece.getTempo();        
         this.pieceNotation = new Piece(this.fractalPiece.getScale().getKeySignature(), this.fractalPiece.getTimeSignature(), this.tempo, includeTempoOnSheetMusic, includeInstrumentOnSheetMusic);
         this.generateKeySignaturesForSections = generateKeySignaturesForSections;
-        constructMidiSequence();
+        constructMidiSequence(previousOutputManager);
     }   
     
     /**
      * Creates the midi sequence and the guido notation
      *      
+     * @param previousOutputManager the output manager to reuse unchanged 
+     *        tracks from, or null
      * @throws com.myronmarston.music.GermIsEmptyException if the germ is empty
      */           
-    private void constructMidiSequence() throws GermIsEmptyException {
+    private void constructMidiSequence(OutputManager previousOutputManager) throws GermIsEmptyException {
         // this is only meant to be called once, to construct the sequence...
         assert this.sequence == null : sequence;
         
@@ -192,7 +288,7 @@ public class OutputManager {
         if (this.fractalPiece.getGerm() == null || this.fractalPiece.getGerm().size() == 0) throw new GermIsEmptyException();                
                 
         try {
-            this.sequence = new Sequence(Sequence.PPQ, this.getMidiTickResolution());
+            this.sequence = new Sequence(Sequence.PPQ, (this.midiTickResolution == 0 ? this.getMidiTickResolution() : this.midiTickResolution));
         } catch (InvalidMidiDataException ex) {
             // our logic should prevent this exception from ever occurring, 
             // so we transform this to an unchecked exception instead of 
@@ -207,12 +303,70 @@ public class OutputManager {
         track1.add(this.fractalPiece.getTimeSignature().getMidiTimeSignatureEvent());
         track1.add(Tempo.getMidiTempoEvent(this.getTempo()));
 
-        // finally, create and fill our midi tracks...
-        for (NoteList nl : noteLists) {                       
-            this.constructMidiTrack(nl);             
+        // finally, create and fill our midi tracks.  Reused parts are removed
+        // from the previous piece as we go, so we hold on to the original list...
+        List<NotationElement> previousParts = (previousOutputManager == null ? null : new ArrayList<NotationElement>(previousOutputManager.pieceNotation.getParts()));
+        for (int i = 0; i < noteStreams.size(); i++) {
+            if (this.canReuseMidiTrack(previousOutputManager, previousParts, i)) {
+                this.reuseMidiTrack(previousOutputManager, (Part) previousParts.get(i), i);
+            } else {
+                this.constructMidiTrack(noteStreams.get(i));             
+            }
         }        
     }
     
+    /**
+     * Checks whether or not the track for the note stream at the given index
+     * can be taken from the previous output manager.  This is the case when
+     * the previous output manager had the identical note stream at the same
+     * index (and so the same midi channel), and the notes would be laid out 
+     * the same way: same resolution, key signature, time signature and 
+     * instrument.
+     * 
+     * @param previousOutputManager the previous output manager, or null
+     * @param previousParts the parts of the previous output manager's piece, 
+     *        as they were before any were moved
+     * @param index the index of the note stream
+     * @return true if the track can be reused
+     */
+    private boolean canReuseMidiTrack(OutputManager previousOutputManager, List<NotationElement> previousParts, int index) {
+        if (previousOutputManager == null || previousOutputManager.sequence == null) return false;
+        if (index >= previousOutputManager.noteStreams.size()) return false;
+        
+        NoteStream noteStream = this.noteStreams.get(index);
+        if (previousOutputManager.noteStreams.get(index) != noteStream) return false;
+        if (previousOutputManager.sequence.getResolution() != this.sequence.getResolution()) return false;
+        
+        Piece previousPiece = previousOutputManager.pieceNotation;
+        if (!previousPiece.getKeySignature().equals(this.pieceNotation.getKeySignature())) return false;
+        if (!previousPiece.getTimeSignature().equals(this.pieceNotation.getTimeSignature())) return false;
+        
+        // the part may already have been moved to another output manager...
+        if (previousParts.size() <= index) return false;
+        Part part = (Part) previousParts.get(index);
+        Instrument instrument = (noteStream.getInstrument() == null ? Instrument.DEFAULT : noteStream.getInstrument());
+        return part.getPiece() == previousPiece && part.getInstrument() == instrument;
+    }
+    
+    /**
+     * Copies the midi track for the note stream at the given index from the
+     * previous output manager, and moves its notation part to our piece.
+     * 
+     * @param previousOutputManager the previous output manager
+     * @param part the previous output manager's part for the note stream
+     * @param index the index of the note stream
+     */
+    private void reuseMidiTrack(OutputManager previousOutputManager, Part part, int index) {
+        // the first track holds the tempo, key signature and time signature...
+        Track previousTrack = previousOutputManager.sequence.getTracks()[index + 1];
+        Track track = sequence.createTrack();
+        for (int i = 0; i < previousTrack.size(); i++) {
+            track.add(previousTrack.get(i));
+        }
+        
+        this.pieceNotation.movePart(part);
+    }
+    
     /**
      * Adds key signature events to the given track for each section, as needed.
      * 
@@ -222,33 +376,32 @@ public class OutputManager {
     private void addSectionKeySigEventsToTrack(Track track, int sequenceResolution) {
         if (!generateKeySignaturesForSections) return;
         
-        Fraction durationSoFar = new Fraction(0, 1);
+        MutableFraction durationSoFar = new MutableFraction();
         KeySignature lastKeySignature = this.fractalPiece.getScale().getKeySignature();
         KeySignature sectionKeySignature;
         for (Section s : this.fractalPiece.getSections()) { 
             sectionKeySignature = s.getSectionKeySignature();
             if (!lastKeySignature.equals(sectionKeySignature)) {
-                Fraction tickCount = durationSoFar.times(sequenceResolution);
-        
-                // our tick count should be an integral value...
-                assert tickCount.denominator() == 1L : tickCount.denominator();
-                long tickValue = convertMidiTickUnitFromQuarterNotesToWholeNotes((long) tickCount.asDouble());
+                // our tick count should be an integral value; timesAsLong asserts this...
+                long tickValue = convertMidiTickUnitFromQuarterNotesToWholeNotes(durationSoFar.timesAsLong(sequenceResolution));
                 track.add(sectionKeySignature.getKeySignatureMidiEvent(tickValue));
             }
             lastKeySignature = sectionKeySignature;            
-            durationSoFar = durationSoFar.plus(s.getDuration());
+            durationSoFar.add(s.getDuration());
         }
     }    
     
     /**
-     * Constructs a midi track based on the given note list.
+     * Constructs a midi track based on the given note list or note stream.  
+     * The notes are consumed one at a time, so a note stream does not have to
+     * be collected into a list first.
      * 
-     * @param noteList the note list     
+     * @param noteList the note list or note stream
      */
-    protected void constructMidiTrack(NoteList noteList) {
+    protected void constructMidiTrack(NoteStream noteList) {
         MidiNote thisMidiNote, lastMidiNote = null;
         Note lastNote = null;
-        Fraction startTime = new Fraction(0, 1);        
+        long startTick = 0L;        
         
         // get a default instrument if we we're not passed one...
         Instrument instrument = (noteList.getInstrument() == null ? Instrument.DEFAULT : noteList.getInstrument());
@@ -265,12 +418,19 @@ public class OutputManager {
         PartSection partSection = null;
         Track track = sequence.createTrack();
         track.add(instrument.getProgramChangeMidiEvent(midiChannel));        
-        Fraction timeLeftInBar = this.timeSignatureFraction;
         
         // in Midi, the tick resolution is based on quarter notes, but we use whole notes...
         int midiTicksPerWholeNote = convertMidiTickUnitFromQuarterNotesToWholeNotesInt(sequence.getResolution());
         
-        for (Note thisNote : noteList.getListWithNormalizedRests()) {                        
+        // keep track of the time left in the bar in units fine enough for both
+        // the note durations and the time signature, so that all of our 
+        // timing is plain long arithmetic...
+        BarTimer barTimer = new BarTimer(midiTicksPerWholeNote);
+        
+        Iterator<Note> normalizedNotes = NoteList.getNormalizedRestIterator(noteList.iterator());
+        while (normalizedNotes.hasNext()) {
+            Note thisNote = normalizedNotes.next();
+            
             // update our part section if necessary...
             if (partSection == null) {
                 partSection = new PartSection(part, thisNote.getSourceVoiceSection());
@@ -278,19 +438,19 @@ public class OutputManager {
                 partSection = new PartSection(part, lastNote.getSourceVoiceSection());
             }
             
-            thisMidiNote = thisNote.convertToMidiNote(startTime, midiTicksPerWholeNote, midiChannel, true);                        
+            thisMidiNote = thisNote.convertToMidiNote(startTick, midiTicksPerWholeNote, midiChannel, true);                        
             
             if (lastMidiNote != null) {
                 assert lastNote != null;
                                 
-                if (thisMidiNote.getPitch() == lastMidiNote.getPitch() && lastNote.getNormalizedNote().getScaleStep() != thisNote.getNormalizedNote().getScaleStep()) {               
+                if (thisMidiNote.getPitch() == lastMidiNote.getPitch() && lastNote.getNormalizedScaleStep() != thisNote.getNormalizedScaleStep()) {               
                     // the notes are different scale steps and should have different pitches.
                     // This can happen with notes like B# and C in the key of C.
 
                     if (lastNote.getChromaticAdjustment() != 0) {
-                        lastMidiNote = lastNote.convertToMidiNote(startTime.minus(thisNote.getDuration()), midiTicksPerWholeNote, midiChannel, false);
+                        lastMidiNote = lastNote.convertToMidiNote(startTick - thisMidiNote.getDuration(), midiTicksPerWholeNote, midiChannel, false);
                     } else if (thisNote.getChromaticAdjustment() != 0) {
-                        thisMidiNote = thisNote.convertToMidiNote(startTime, midiTicksPerWholeNote, midiChannel, false);
+                        thisMidiNote = thisNote.convertToMidiNote(startTick, midiTicksPerWholeNote, midiChannel, false);
                     } else {
                         // one of these notes should always have a chromatic 
                         // adjustment--otherwise, how do they have the same pitches
@@ -300,17 +460,63 @@ public class OutputManager {
                     
                     assert thisMidiNote.getPitch() != lastMidiNote.getPitch() : "The midi notes have the same pitch and should not: " + thisMidiNote.getPitch();
                 }              
-                timeLeftInBar = addMidiNoteEventsToTrack(track, partSection, lastMidiNote, lastNote, timeLeftInBar);                
+                addMidiNoteEventsToTrack(track, partSection, lastMidiNote, lastNote, barTimer);                
             }                                      
             
             //The next note start time will be the end of this note...
-            startTime = startTime.plus(thisNote.getDuration());
+            startTick += thisMidiNote.getDuration();
             
             lastMidiNote = thisMidiNote;
             lastNote = thisNote;
         }           
-        timeLeftInBar = addMidiNoteEventsToTrack(track, partSection, lastMidiNote, lastNote, timeLeftInBar);                
+        addMidiNoteEventsToTrack(track, partSection, lastMidiNote, lastNote, barTimer);                
     }        
+    
+    /**
+     * Keeps track of the time left in the current bar as a long, in units fine
+     * enough to represent both midi ticks and the time signature.
+     */
+    private class BarTimer {
+        private final long unitsPerWholeNote;
+        private final long unitsPerTick;
+        private final long unitsPerBar;
+        private long unitsLeftInBar;
+        
+        /**
+         * Constructor.
+         * 
+         * @param midiTicksPerWholeNote the number of midi ticks per whole note
+         */
+        public BarTimer(long midiTicksPerWholeNote) {
+            this.unitsPerWholeNote = MathHelper.leastCommonMultiple(midiTicksPerWholeNote, timeSignatureFraction.denominator());
+            this.unitsPerTick = this.unitsPerWholeNote / midiTicksPerWholeNote;
+            this.unitsPerBar = timeSignatureFraction.numerator() * (this.unitsPerWholeNote / timeSignatureFraction.denominator());
+            this.unitsLeftInBar = this.unitsPerBar;
+        }
+        
+        /**
+         * Gets the time left in the current bar, in whole notes.  Common values
+         * come from Fraction's cache.
+         * 
+         * @return the time left in the bar
+         */
+        public Fraction getTimeLeftInBar() {
+            return Fraction.valueOf(this.unitsLeftInBar, this.unitsPerWholeNote);
+        }
+        
+        /**
+         * Moves forward in time by the given number of midi ticks.
+         * 
+         * @param ticks the number of ticks
+         */
+        public void advance(long ticks) {
+            this.unitsLeftInBar -= ticks * this.unitsPerTick;
+            if (this.unitsLeftInBar <= 0) {
+                // move to the bar that the end of the note falls in...
+                this.unitsLeftInBar += this.unitsPerBar * (1 + (-this.unitsLeftInBar / this.unitsPerBar));
+            }
+        }
+    }
   
     /**
      * Adds the midi note on and note off events to a track.  Also adds the 
@@ -320,10 +526,10 @@ public class OutputManager {
      * @param part the notation part
      * @param midiNote the midi note
      * @param note the note
-     * @param timeLeftInBar the time left in the bar so far
-     * @return the new timeLeftInBar
+     * @param barTimer keeps track of the time left in the bar so far; it is
+     *        advanced by the duration of the note
      */
-    private Fraction addMidiNoteEventsToTrack(Track track, PartSection partSection, MidiNote midiNote, Note note, Fraction timeLeftInBar) {
+    private void addMidiNoteEventsToTrack(Track track, PartSection partSection, MidiNote midiNote, Note note, BarTimer barTimer) {
         try {
             track.add(midiNote.getNoteOnEvent());
             track.add(midiNote.getNoteOffEvent());
@@ -335,12 +541,10 @@ public class OutputManager {
         }        
           
         // add the NotationNote to our partSection...        
-        partSection.getNotationElements().add(note.toNotationNote(partSection, midiNote, timeLeftInBar));
+        partSection.getNotationElements().add(note.toNotationNote(partSection, midiNote, barTimer.getTimeLeftInBar()));
         
-        // calculate and return the new timeLeftInBar
-        timeLeftInBar = timeLeftInBar.minus(note.getDuration());
-        while (timeLeftInBar.compareTo(0L) <= 0) timeLeftInBar = timeLeftInBar.plus(this.timeSignatureFraction);
-        return timeLeftInBar;
+        // calculate the new time left in the bar...
+        barTimer.advance(midiNote.getDuration());
     }
 
     /**
@@ -348,23 +552,43 @@ public class OutputManager {
      * noteLists, based on the duration of the notes.
      *      
      * @return the midi tick resolution
+     * @throws UnsupportedOperationException if the resolution is greater than
+     *         MAX_MIDI_TICK_RESOLUTION
      */
     protected int getMidiTickResolution() {        
         // next, figure out the resolution of our Midi sequence...
-        ArrayList<Long> uniqueDurationDenominators = new ArrayList<Long>();
-        for (NoteList nl : noteLists) {
-            for (Note n : nl) {
-                if (!uniqueDurationDenominators.contains(n.getDuration().denominator())) {
-                    uniqueDurationDenominators.add(n.getDuration().denominator());
-                }                
+        // keep a running least common multiple; most denominators will 
+        // already divide it, so there's usually no need to calculate anything
+        long resolution = 1L;
+        for (NoteStream ns : noteStreams) {
+            for (Note n : ns) {
+                long denominator = n.getDuration().denominator();
+                if (resolution % denominator != 0) {
+                    resolution = MathHelper.leastCommonMultiple(resolution, denominator);
+                    checkMidiTickResolution(resolution);
+                }
             }
         }        
         
-        long resolution = MathHelper.leastCommonMultiple(uniqueDurationDenominators);
-        assert resolution < Integer.MAX_VALUE;
         return (int) resolution;
     }
     
+    /**
+     * Checks that the given midi tick resolution is small enough to be used 
+     * for a midi sequence.  Note durations with many different denominators
+     * (or speed scale factors that produce them) can need more ticks than a
+     * midi sequence allows.
+     * 
+     * @param resolution the midi tick resolution, in ticks per quarter note
+     * @throws UnsupportedOperationException if the resolution is greater than
+     *         MAX_MIDI_TICK_RESOLUTION
+     */
+    public static void checkMidiTickResolution(long resolution) throws UnsupportedOperationException {
+        if (resolution > MAX_MIDI_TICK_RESOLUTION) {
+            throw new UnsupportedOperationException("The note durations need a midi tick resolution of " + resolution + " ticks per quarter note, but a midi sequence allows at most " + MAX_MIDI_TICK_RESOLUTION + ".  Use fewer distinct duration denominators or speed scale factors.");
+        }
+    }
+    
     /**
      * Converts the midi tick unit from quarter notes to whole notes, using 
      * longs.
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music;
+
+import com.myronmarston.music.scales.Scale;
+import com.myronmarston.music.settings.VoiceSection;
+import com.myronmarston.util.Fraction;
+import com.myronmarston.util.MutableFraction;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A compact, append-only list of notes.  Rather than holding a Note object 
+ * (and its Fraction duration) for each note, the note fields are packed into 
+ * parallel primitive arrays.  The scale and source voice section rarely change
+ * from one note to the next, so they are stored in a segment table: one entry
+ * for each run of consecutive notes that share the same scale and source 
+ * voice section.  
+ * 
+ * Notes are unpacked into new Note objects as they are retrieved, so changes
+ * made to a retrieved note do not affect the list.  This makes the list well 
+ * suited to holding large generated results, such as a NoteStream that is 
+ * passed to the OutputManager.
+ * 
+ * This list is opt-in only: the FractalPiece does not use it, and its voice 
+ * section results and piece results are still ordinary NoteLists.  Callers 
+ * that want the packed form get it from 
+ * SelfSimilarityTransformer.transformToPackedList() or by packing a 
+ * NoteStream or note iterator with one of the constructors, and can pass it
+ * to the OutputManager like any other NoteStream.
+ * 
+ * @author Myron
+ */
+public class PackedNoteList extends AbstractList<Note> implements NoteStream, RandomAccess {
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final byte FIRST_NOTE_OF_GERM_COPY_FLAG = 1;
+    
+    private int size;
+    private int[] letterNumbers;
+    private int[] scaleSteps;
+    private int[] octaves;
+    private int[] chromaticAdjustments;
+    private int[] segmentChromaticAdjustments;
+    private byte[] volumes;
+    private long[] durationNumerators;
+    private long[] durationDenominators; // 0 indicates a null duration
+    private byte[] flags;
+    
+    private int segmentCount;
+    private int[] segmentStarts;
+    private Scale[] segmentScales;
+    private VoiceSection[] segmentVoiceSections;
+    
+    private Instrument instrument;
+    
+    /**
+     * Default constructor.
+     */
+    public PackedNoteList() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param initialCapacity initial capacity for the list
+     */
+    public PackedNoteList(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("The initial capacity cannot be negative.");
+        
+        this.letterNumbers = new int[initialCapacity];
+        this.scaleSteps = new int[initialCapacity];
+        this.octaves = new int[initialCapacity];
+        this.chromaticAdjustments = new int[initialCapacity];
+        this.segmentChromaticAdjustments = new int[initialCapacity];
+        this.volumes = new byte[initialCapacity];
+        this.durationNumerators = new long[initialCapacity];
+        this.durationDenominators = new long[initialCapacity];
+        this.flags = new byte[initialCapacity];
+        
+        this.segmentStarts = new int[1];
+        this.segmentScales = new Scale[1];
+        this.segmentVoiceSections = new VoiceSection[1];
+    }
+    
+    /**
+     * Constructor.  Packs each of the given notes into the list.  The instrument
+     * of the given note stream is used as the instrument of this list.
+     * 
+     * @param notes the notes to put in the list
+     */
+    public PackedNoteList(NoteStream notes) {
+        this(notes.iterator());
+        this.setInstrument(notes.getInstrument());
+    }
+    
+    /**
+     * Constructor.  Packs each of the notes returned by the given iterator into
+     * the list.  This allows a generated result, such as that of the 
+     * SelfSimilarityTransformer's iterator, to be packed without having all of
+     * the Note objects in memory at once.
+     * 
+     * @param notes iterator over the notes to put in the list
+     */
+    public PackedNoteList(Iterator<Note> notes) {
+        this();
+        while (notes.hasNext()) this.add(notes.next());
+    }
+    
+    /**
+     * Gets the instrument for this note list.
+     * 
+     * @return the instrument
+     */
+    public Instrument getInstrument() {
+        return instrument;
+    }
+
+    /**
+     * Sets the instrument to use for this note list.
+     *  
+     * @param instrument the instrument
+     */     
+    public void setInstrument(Instrument instrument) {
+        this.instrument = instrument;
+    }
+    
+    @Override
+    public int size() {
+        return this.size;
+    }
+    
+    /**
+     * Gets the number of segments in the segment table.  Each segment is a run
+     * of consecutive notes that share the same scale and source voice section.
+     * 
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return this.segmentCount;
+    }
+
+    /**
+     * Unpacks the note at the given index.  A new Note is returned on each 
+     * call; modifying it does not affect this list.
+     * 
+     * @param index the index of the note
+     * @return the note
+     */
+    @Override
+    public Note get(int index) {
+        this.checkIndex(index);
+        
+        int segment = Arrays.binarySearch(this.segmentStarts, 0, this.segmentCount, index);
+        // when the index isn't the start of a segment, binarySearch returns 
+        // (-insertionPoint - 1), and the note belongs to the segment before
+        // the insertion point
+        if (segment < 0) segment = -segment - 2;
+        
+        return this.unpack(index, segment);
+    }
+    
+    /**
+     * Appends the given note to the end of this list.
+     * 
+     * @param note the note to add
+     * @return true
+     */
+    @Override
+    public boolean add(Note note) {
+        this.modCount++;
+        this.ensureCapacity(this.size + 1);
+        
+        int i = this.size;
+        this.letterNumbers[i] = note.getLetterNumber();
+        this.scaleSteps[i] = note.getScaleStep();
+        this.octaves[i] = note.getOctave();
+        this.chromaticAdjustments[i] = note.getChromaticAdjustment();
+        this.segmentChromaticAdjustments[i] = note.getSegmentChromaticAdjustment();
+        this.volumes[i] = (byte) note.getVolume(); // volumes are in the range 0-127, so they fit in a byte
+        
+        Fraction duration = note.getDuration();
+        this.durationNumerators[i] = (duration == null ? 0L : duration.numerator());
+        this.durationDenominators[i] = (duration == null ? 0L : duration.denominator());
+        this.flags[i] = (note.isFirstNoteOfGermCopy() ? FIRST_NOTE_OF_GERM_COPY_FLAG : 0);
+        
+        this.addToSegmentTable(i, note.getScale(), note.getSourceVoiceSection());
+        
+        this.size++;
+        return true;
+    }
+    
+    /**
+     * Appends the given note at the given index.  Only appending to the end of
+     * the list is supported.
+     * 
+     * @param index the index; must be equal to the size of the list
+     * @param note the note to add
+     * @throws UnsupportedOperationException if the index is not the end of the
+     *         list
+     */
+    @Override
+    public void add(int index, Note note) throws UnsupportedOperationException {
+        if (index != this.size) throw new UnsupportedOperationException("Notes can only be appended to a PackedNoteList.");
+        this.add(note);
+    }
+
+    @Override
+    public void clear() {
+        this.modCount++;
+        this.size = 0;
+        Arrays.fill(this.segmentScales, 0, this.segmentCount, null);
+        Arrays.fill(this.segmentVoiceSections, 0, this.segmentCount, null);
+        this.segmentCount = 0;
+    }
+    
+    /**
+     * Gets the total length of the note list.  The durations are summed as
+     * primitives, so no intermediate Fraction objects are created.
+     * 
+     * @return the duration of the note list
+     */
+    public Fraction getDuration() {
+        MutableFraction duration = new MutableFraction();
+        
+        for (int i = 0; i < this.size; i++) {
+            if (this.durationDenominators[i] == 0L) continue; // a null duration
+            duration.add(this.durationNumerators[i], this.durationDenominators[i]);
+        }
+        
+        return duration.toFraction();
+    }
+    
+    /**
+     * Unpacks the notes of this list into a new NoteList.
+     * 
+     * @return the note list
+     */
+    public NoteList toNoteList() {
+        NoteList list = new NoteList(this.size);
+        list.addAll(this);
+        list.setInstrument(this.getInstrument());
+        return list;
+    }
+    
+    /**
+     * Gets an iterator over the notes of this list.  The segment table is 
+     * walked sequentially, so the iteration is linear.
+     * 
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Note> iterator() {
+        return new Iterator<Note>() {
+            private int index = 0;
+            private int segment = -1;
+            private final int expectedModCount = PackedNoteList.this.modCount;
+            
+            public boolean hasNext() {
+                return this.index < PackedNoteList.this.size;
+            }
+
+            public Note next() {
+                if (PackedNoteList.this.modCount != this.expectedModCount) throw new ConcurrentModificationException();
+                if (!this.hasNext()) throw new NoSuchElementException();
+                
+                while (this.segment + 1 < PackedNoteList.this.segmentCount && PackedNoteList.this.segmentStarts[this.segment + 1] <= this.index) {
+                    this.segment++;
+                }
+                
+                return PackedNoteList.this.unpack(this.index++, this.segment);
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException("Notes cannot be removed from a PackedNoteList.");
+            }
+        };
+    }
+    
+    private Note unpack(int index, int segment) {
+        Note note = new Note();
+        note.setLetterNumber(this.letterNumbers[index]);
+        note.setScaleStep(this.scaleSteps[index]);
+        note.setOctave(this.octaves[index]);
+        note.setChromaticAdjustment(this.chromaticAdjustments[index]);
+        note.setSegmentChromaticAdjustment(this.segmentChromaticAdjustments[index]);
+        
+        long den = this.durationDenominators[index];
+        if (den != 0L) note.setDuration(new Fraction(this.durationNumerators[index], den));
+        
+        // set the volume after the pitch fields, since the pitch fields cannot
+        // be changed once the note is a rest
+        note.setVolume(this.volumes[index]);
+        note.setIsFirstNoteOfGermCopy((this.flags[index] & FIRST_NOTE_OF_GERM_COPY_FLAG) != 0);
+        
+        Scale scale = this.segmentScales[segment];
+        if (scale != null) note.setScale(scale);
+        note.setSourceVoiceSection(this.segmentVoiceSections[segment]);
+        return note;
+    }
+    
+    private void addToSegmentTable(int index, Scale scale, VoiceSection voiceSection) {
+        if (this.segmentCount > 0 && 
+            this.segmentScales[this.segmentCount - 1] == scale && 
+            this.segmentVoiceSections[this.segmentCount - 1] == voiceSection) {
+            return; // the note is part of the current segment
+        }
+        
+        if (this.segmentCount == this.segmentStarts.length) {
+            int newLength = this.segmentCount * 2;
+            this.segmentStarts = Arrays.copyOf(this.segmentStarts, newLength);
+            this.segmentScales = Arrays.copyOf(this.segmentScales, newLength);
+            this.segmentVoiceSections = Arrays.copyOf(this.segmentVoiceSections, newLength);
+        }
+        
+        this.segmentStarts[this.segmentCount] = index;
+        this.segmentScales[this.segmentCount] = scale;
+        this.segmentVoiceSections[this.segmentCount] = voiceSection;
+        this.segmentCount++;
+    }
+    
+    private void ensureCapacity(int minCapacity) {
+        int capacity = this.letterNumbers.length;
+        if (minCapacity <= capacity) return;
+        
+        int newCapacity = Math.max(minCapacity, (capacity * 3) / 2 + 1);
+        this.letterNumbers = Arrays.copyOf(this.letterNumbers, newCapacity);
+        this.scaleSteps = Arrays.copyOf(this.scaleSteps, newCapacity);
+        this.octaves = Arrays.copyOf(this.octaves, newCapacity);
+        this.chromaticAdjustments = Arrays.copyOf(this.chromaticAdjustments, newCapacity);
+        this.segmentChromaticAdjustments = Arrays.copyOf(this.segmentChromaticAdjustments, newCapacity);
+        this.volumes = Arrays.copyOf(this.volumes, newCapacity);
+        this.durationNumerators = Arrays.copyOf(this.durationNumerators, newCapacity);
+        this.durationDenominators = Arrays.copyOf(this.durationDenominators, newCapacity);
+        this.flags = Arrays.copyOf(this.flags, newCapacity);
+    }
+    
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", index, this.size));
+        }
+    }
+}
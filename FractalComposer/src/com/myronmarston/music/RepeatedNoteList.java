@@ -0,0 +1,156 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music;
+
+import com.myronmarston.util.Fraction;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A read-only view of a list of notes repeated a number of times, optionally
+ * followed by one trailing note (usually a rest to fill out a section).  The
+ * notes are not copied, so the view takes constant space no matter how many 
+ * times the notes are repeated, and its total duration is calculated up front.
+ * The same Note objects are returned for each repeat, so they should not be 
+ * modified.
+ * 
+ * @author Myron
+ */
+public class RepeatedNoteList extends AbstractList<Note> implements NoteStream, RandomAccess {
+    private final List<Note> notes;
+    private final int repeatCount;
+    private final Note trailingNote;
+    private final int size;
+    private final Fraction duration;
+    private Instrument instrument;
+
+    /**
+     * Constructor.  The instrument of the given note list is used as the 
+     * instrument of this list.
+     * 
+     * @param notes the notes to repeat
+     * @param repeatCount the number of times to repeat the notes
+     * @param trailingNote the note to put after the last repeat, or null
+     * @throws IllegalArgumentException if repeatCount is negative, or if the
+     *         size of the view would be larger than Integer.MAX_VALUE
+     */
+    public RepeatedNoteList(NoteList notes, int repeatCount, Note trailingNote) throws IllegalArgumentException {
+        this(notes, notes.getDuration(), repeatCount, trailingNote);
+        this.setInstrument(notes.getInstrument());
+    }
+    
+    /**
+     * Constructor.  Use this when the duration of the notes is already known,
+     * so they don't have to be summed again.
+     * 
+     * @param notes the notes to repeat
+     * @param notesDuration the total duration of the notes
+     * @param repeatCount the number of times to repeat the notes
+     * @param trailingNote the note to put after the last repeat, or null
+     * @throws IllegalArgumentException if repeatCount is negative, or if the
+     *         size of the view would be larger than Integer.MAX_VALUE
+     */
+    public RepeatedNoteList(List<Note> notes, Fraction notesDuration, int repeatCount, Note trailingNote) throws IllegalArgumentException {
+        if (repeatCount < 0) throw new IllegalArgumentException("The repeat count cannot be negative.");
+        long totalSize = (long) notes.size() * repeatCount + (trailingNote == null ? 0 : 1);
+        if (totalSize > Integer.MAX_VALUE) throw new IllegalArgumentException("The repeated notes have more than Integer.MAX_VALUE notes.");
+        
+        this.notes = notes;
+        this.repeatCount = repeatCount;
+        this.trailingNote = trailingNote;
+        this.size = (int) totalSize;
+        
+        Fraction totalDuration = notesDuration.times(repeatCount);
+        if (trailingNote != null) totalDuration = totalDuration.plus(trailingNote.getDuration());
+        this.duration = totalDuration;
+    }
+
+    /**
+     * Gets the number of times the notes are repeated.
+     * 
+     * @return the repeat count
+     */
+    public int getRepeatCount() {
+        return repeatCount;
+    }
+
+    /**
+     * Gets the note after the last repeat.
+     * 
+     * @return the trailing note, or null if there is none
+     */
+    public Note getTrailingNote() {
+        return trailingNote;
+    }
+    
+    /**
+     * Gets the total duration of the notes.  This was calculated when the view
+     * was created.
+     * 
+     * @return the duration
+     */
+    public Fraction getDuration() {
+        return duration;
+    }
+
+    /**
+     * Gets the instrument for these notes.
+     * 
+     * @return the instrument, or null to use the default instrument
+     */
+    public Instrument getInstrument() {
+        return instrument;
+    }
+
+    /**
+     * Sets the instrument for these notes.
+     * 
+     * @param instrument the instrument
+     */
+    public void setInstrument(Instrument instrument) {
+        this.instrument = instrument;
+    }
+
+    @Override
+    public Note get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (trailingNote != null && index == size - 1) return trailingNote;
+        return notes.get(index % notes.size());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Copies the notes of this view into a new NoteList.
+     * 
+     * @return the note list
+     */
+    public NoteList toNoteList() {
+        NoteList list = new NoteList(this.size);
+        list.addAll(this);
+        list.setInstrument(this.getInstrument());
+        return list;
+    }
+}
@@ -33,7 +33,7 @@ import java.util.*;
  */
 public class Part extends AbstractNotationElement {    
     private final NotationElementList partSections = new NotationElementList();
-    private final Piece piece;
+    private Piece piece;
     private final Instrument instrument;
     private String pieceTitle;
     private String pieceComposer;        
@@ -63,6 +63,25 @@ public class Part extends AbstractNotationElement {
         return piece;
     }
     
+    /**
+     * Sets the notation piece that owns this part.  Used by Piece.movePart().
+     * 
+     * @param piece the piece
+     */
+    void setPiece(Piece piece) {
+        assert piece != null : "Piece should not be null.";
+        this.piece = piece;
+    }
+    
+    /**
+     * Gets the instrument for this part.
+     * 
+     * @return the instrument
+     */
+    public Instrument getInstrument() {
+        return instrument;
+    }
+    
     /**
      * Checks to see if this part is the first part of the piece.
      * 
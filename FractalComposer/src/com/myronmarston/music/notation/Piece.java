@@ -133,6 +133,28 @@ public class Piece {
     public NotationElementList getParts() {
         return parts;
     }           
+    
+    /**
+     * Moves a part from another piece to the end of this piece, so that an 
+     * unchanged part does not have to be created again.  The part's notes 
+     * were laid out using its piece's key signature and time signature, so 
+     * these must be the same for both pieces.
+     * 
+     * @param part the part to move
+     * @throws IllegalArgumentException if the part's piece has a different
+     *         key signature or time signature
+     */
+    public void movePart(Part part) throws IllegalArgumentException {
+        Piece otherPiece = part.getPiece();
+        if (otherPiece == this) return;
+        if (!this.getKeySignature().equals(otherPiece.getKeySignature()) || !this.getTimeSignature().equals(otherPiece.getTimeSignature())) {
+            throw new IllegalArgumentException("The part can only be moved to a piece with the same key signature and time signature.");
+        }
+        
+        otherPiece.getParts().remove(part);
+        part.setPiece(this);
+        this.getParts().add(part);
+    }
             
     /**
      * Gets the lilypond paper section.  If the image width is less than or 
@@ -21,7 +21,6 @@ package com.myronmarston.music.scales;
 
 import com.myronmarston.music.Note;
 import com.myronmarston.music.NoteName;
-import com.myronmarston.util.ClassHelper;
 import com.myronmarston.util.MathHelper;
 
 import org.simpleframework.xml.*;
@@ -38,7 +37,9 @@ import java.util.*;
  * All extending classes need to have the @Root annotation to be serializable
  * by the simple XML framework and also need to provide two constructors:
  * a no-argument one (which should set the scale with some reasonable default
- * key) and one that takes a note name to specify the key.
+ * key) and one that takes a note name to specify the key.  Concrete scale 
+ * types must also be listed in the static initializer so that they are 
+ * included in SCALE_TYPES.
  * 
  * @author Myron 
  */
@@ -47,6 +48,8 @@ public abstract class Scale implements Cloneable {
     @Element
     private KeySignature keySignature;
     
+    private transient PitchTables pitchTables;
+    
     /**
      * A list of all valid scale types, mapped to a list of valid key names for
      * that scale type.
@@ -62,39 +65,33 @@ public abstract class Scale implements Cloneable {
      * Initializes the default scale and the scale types list.
      */
     static {
+        // The scale types are listed explicitly rather than found by scanning
+        // this package on the classpath, so that initializing this class needs
+        // no I/O or reflection.  New scale types must be added here.
+        Scale[] scaleTypes;
         try {
             DEFAULT = new ChromaticScale();
+            scaleTypes = new Scale[] {
+                DEFAULT,
+                new MajorScale(),
+                new NaturalMinorScale(),
+                new HarmonicMinorScale(),
+                new MajorPentatonicScale(),
+                new MinorPentatonicScale(),
+                new DorianScale(),
+                new PhrygianScale(),
+                new LydianScale(),
+                new MixolydianScale(),
+                new LocrianScale()
+            };
         } catch (InvalidKeySignatureException ex) {
-            throw new UndeclaredThrowableException(ex, "An exception occurred while instantiating a ChromaticScale.  This indicates a programming error.");
+            throw new UndeclaredThrowableException(ex, "An exception occurred while instantiating the scale types.  This indicates a programming error.");
         }
-                     
-        List<Class> scaleTypeList;
-        try {                
-            scaleTypeList = ClassHelper.getSubclassesInPackage(Scale.class.getPackage().getName(), Scale.class);            
-        } catch (ClassNotFoundException ex) {
-            // our code above is guarenteed to pass a valid package name, so we 
-            // should never get this exception; if we do, there is a bug in the
-            // code somewhere, so throw an assertion error.
-            throw new UndeclaredThrowableException(ex, "An exception occurred while getting the scale types.  This indicates a programming error.");
-        } 
         
         //TODO: make SCALE_TYPES unmodifiable
-        SCALE_TYPES = new LinkedHashMap<Class, List<NoteName>>(scaleTypeList.size());
-        for (Class scaleType : scaleTypeList) {   
-            try {                
-                if (Modifier.isAbstract(scaleType.getModifiers())) continue;
-                
-                @SuppressWarnings("unchecked")
-                Constructor constructor = scaleType.getDeclaredConstructor();                
-                Scale s = (Scale) constructor.newInstance();
-                SCALE_TYPES.put(scaleType, s.getValidKeyNames());    
-            } catch (Exception ex) {
-                // the reflection code above has lots of declared exceptions,
-                // but they should only occur if we have a programming error,
-                // so we'll just wrap them in an undeclared exception if they 
-                // occur...
-                throw new UndeclaredThrowableException(ex, "An exception occurred while getting the valid key names.  This indicates a programming error.");
-            }                    
+        SCALE_TYPES = new LinkedHashMap<Class, List<NoteName>>(scaleTypes.length);
+        for (Scale s : scaleTypes) {
+            SCALE_TYPES.put(s.getClass(), s.getValidKeyNames());
         }        
     }
     
@@ -145,6 +142,187 @@ public abstract class Scale implements Cloneable {
      */
     abstract public int[] getLetterNumberArray();     
     
+    /**
+     * Lookup tables for the pitch queries of a scale in a particular key.  
+     * These are built once per scale instance (and rebuilt if the key 
+     * signature is replaced); the fields are final so that a built instance can
+     * be shared by the threads generating the piece.
+     */
+    private static final class PitchTables {
+        private final KeySignature keySignature;
+        private final int[] scaleSteps;
+        private final int[] letterNumbers;
+        private final int[] midiPitchNumbersAtOctaveZero;
+        private final boolean[] chromaticPitchesInScale;
+        private final int[] noteNameScaleSteps;
+        private final int[] noteNameChromaticAdjustments;
+        
+        private PitchTables(Scale scale) {
+            this.keySignature = scale.keySignature;
+            this.scaleSteps = scale.getScaleStepArray();
+            
+            int[] letters;
+            try {
+                letters = scale.getLetterNumberArray();
+            } catch (UnsupportedOperationException ex) {
+                // the chromatic scale does not have letter numbers...
+                letters = null;
+            }
+            this.letterNumbers = letters;
+            
+            int tonicPitchAtOctaveZero = scale.getKeyName().getMidiPitchNumberAtOctave(0);
+            this.midiPitchNumbersAtOctaveZero = new int[this.scaleSteps.length];
+            this.chromaticPitchesInScale = new boolean[NUM_CHROMATIC_PITCHES_PER_OCTAVE];
+            for (int i = 0; i < this.scaleSteps.length; i++) {
+                this.midiPitchNumbersAtOctaveZero[i] = tonicPitchAtOctaveZero + this.scaleSteps[i];
+                this.chromaticPitchesInScale[this.scaleSteps[i]] = true;
+            }
+            
+            NoteName[] noteNames = NoteName.values();
+            this.noteNameScaleSteps = new int[noteNames.length];
+            this.noteNameChromaticAdjustments = new int[noteNames.length];
+            if (this.letterNumbers != null) {
+                for (NoteName noteName : noteNames) {
+                    int scaleStepIndex = this.getScaleStepIndex(scale.getKeyName(), noteName);
+                    this.noteNameScaleSteps[noteName.ordinal()] = scaleStepIndex;
+                    this.noteNameChromaticAdjustments[noteName.ordinal()] = this.getChromaticAdjustment(scale.getKeyName(), noteName, scaleStepIndex);
+                }
+            }
+        }
+        
+        /**
+         * Gets the index of the scale step to use for the given note name.
+         * 
+         * @param keyName the key name of the scale
+         * @param noteName the note name
+         * @return the scale step index
+         */
+        private int getScaleStepIndex(NoteName keyName, NoteName noteName) {
+            int intervalAboveTonic = keyName.getPositiveIntervalSize(noteName);
+            int scaleStepIndex = Arrays.binarySearch(this.letterNumbers, intervalAboveTonic);
+            
+            // our scale contains this letter, so we can use it to determine our scale step
+            if (scaleStepIndex >= 0) return scaleStepIndex;
+            
+            // our scale does not contain this letter (example: F# for C major 
+            // pentatonic-C D E G A).  We need to figure out which of our scale
+            // steps this is closest to, and use that, modifying the chromatic
+            // adjustment accordingly            
+
+            // find the two closest note letters...
+            int letterNumberArrayInsertionPt = -scaleStepIndex - 1;
+            int nearestLowerScaleStepIndex = (letterNumberArrayInsertionPt == 0 ? this.letterNumbers.length - 1 : letterNumberArrayInsertionPt - 1);
+            int nearestHigherScaleStepIndex = (letterNumberArrayInsertionPt == this.letterNumbers.length ?  0 : letterNumberArrayInsertionPt);
+
+            // figure out which of these two is closest to our given note...
+            int lowerScaleStepNumHalfStepsAboveTonic = this.scaleSteps[nearestLowerScaleStepIndex];
+            int higherScaleStepNumHalfStepsAboveTonic = this.scaleSteps[nearestHigherScaleStepIndex];
+            int givenNoteHalfStepsAboveTonic = keyName.getPositiveChromaticSteps(noteName);
+
+            int distanceFromLowerScaleStep = Math.abs(getNormalizedChromaticAdjustment(givenNoteHalfStepsAboveTonic - lowerScaleStepNumHalfStepsAboveTonic));
+            int distanceFromHigherScaleStep = Math.abs(getNormalizedChromaticAdjustment(higherScaleStepNumHalfStepsAboveTonic - givenNoteHalfStepsAboveTonic));
+
+            return (distanceFromLowerScaleStep < distanceFromHigherScaleStep ? nearestLowerScaleStepIndex : nearestHigherScaleStepIndex);
+        }
+        
+        /**
+         * Gets the chromatic adjustment needed to produce the given note name
+         * from the given scale step.
+         * 
+         * @param keyName the key name of the scale
+         * @param noteName the note name
+         * @param scaleStepIndex the scale step index
+         * @return the chromatic adjustment
+         */
+        private int getChromaticAdjustment(NoteName keyName, NoteName noteName, int scaleStepIndex) {
+            int givenNoteHalfStepAboveTonic = keyName.getPositiveChromaticSteps(noteName);
+            return getNormalizedChromaticAdjustment(givenNoteHalfStepAboveTonic - this.scaleSteps[scaleStepIndex]);
+        }
+    }
+    
+    /**
+     * Gets the pitch lookup tables for this scale, building them if they have
+     * not been built for the current key signature.
+     * 
+     * @return the pitch tables
+     */
+    private PitchTables getPitchTables() {
+        PitchTables tables = this.pitchTables;
+        if (tables == null || tables.keySignature != this.keySignature) {
+            tables = new PitchTables(this);
+            this.pitchTables = tables;
+        }
+        
+        return tables;
+    }
+    
+    /**
+     * Gets the number of scale steps in an octave of this scale.  This is the
+     * length of the scale step array, without copying it.
+     * 
+     * @return the number of scale steps
+     */
+    public int getNumScaleSteps() {
+        return this.getPitchTables().scaleSteps.length;
+    }
+    
+    /**
+     * Gets the letter number above the tonic letter number for the given 
+     * scale step.  The scale step is normalized first.
+     * 
+     * @param scaleStep the scale step
+     * @return the letter number
+     * @throws UnsupportedOperationException if this scale does not support
+     *         letter numbers
+     */
+    public int getLetterNumberForScaleStep(int scaleStep) throws UnsupportedOperationException {
+        int[] letterNumbers = this.getPitchTables().letterNumbers;
+        if (letterNumbers == null) return this.getLetterNumberArray()[this.getNormalizedScaleStep(scaleStep)];
+        return letterNumbers[this.getNormalizedScaleStep(scaleStep)];
+    }
+    
+    /**
+     * Gets the midi pitch number for the given scale step, octave and 
+     * chromatic adjustment.  The scale step need not be normalized.  The 
+     * result is not limited to the valid midi range.
+     * 
+     * @param scaleStep the scale step
+     * @param octave the octave
+     * @param chromaticAdjustment the number of half steps to adjust the pitch
+     * @return the midi pitch number
+     */
+    public int getMidiPitchNumber(int scaleStep, int octave, int chromaticAdjustment) {
+        PitchTables tables = this.getPitchTables();
+        int numScaleSteps = tables.scaleSteps.length;
+        return tables.midiPitchNumbersAtOctaveZero[MathHelper.floorMod(scaleStep, numScaleSteps)]
+                + NUM_CHROMATIC_PITCHES_PER_OCTAVE * (octave + MathHelper.floorDiv(scaleStep, numScaleSteps))
+                + chromaticAdjustment;
+    }
+    
+    /**
+     * Gets the number of half steps above the tonic for the given scale step.
+     * The scale step is normalized first.
+     * 
+     * @param scaleStep the scale step
+     * @return the number of half steps above the tonic, from 0 to 11
+     */
+    public int getHalfStepsAboveTonic(int scaleStep) {
+        PitchTables tables = this.getPitchTables();
+        return tables.scaleSteps[MathHelper.floorMod(scaleStep, tables.scaleSteps.length)];
+    }
+    
+    /**
+     * Checks whether or not the given pitch is one of the pitches of this 
+     * scale.
+     * 
+     * @param halfStepsAboveTonic the number of half steps above the tonic; 
+     *        this need not be in the range 0 to 11
+     * @return true if this scale contains the pitch
+     */
+    public boolean containsChromaticPitch(int halfStepsAboveTonic) {
+        return this.getPitchTables().chromaticPitchesInScale[MathHelper.floorMod(halfStepsAboveTonic, NUM_CHROMATIC_PITCHES_PER_OCTAVE)];
+    }
+    
     /**
      * Normalizes a chromatic adjustment, putting it in the range -6 to 6.
      * 
@@ -173,7 +351,7 @@ public abstract class Scale implements Cloneable {
      * @return the normalized scale step
      */
     public int getNormalizedScaleStep(int scaleStep) {
-        return MathHelper.getNormalizedValue(scaleStep, this.getScaleStepArray().length);
+        return MathHelper.floorMod(scaleStep, this.getNumScaleSteps());
     }
     
     /**
@@ -186,38 +364,9 @@ public abstract class Scale implements Cloneable {
      *        determine the pitch values
      */
     public void setNotePitchValues(Note note, NoteName noteName) {
-        int intervalAboveTonic = this.getKeyName().getPositiveIntervalSize(noteName);
-        int scaleStepIndex = Arrays.binarySearch(this.getLetterNumberArray(), intervalAboveTonic);
-        
-        if (scaleStepIndex >= 0) { 
-            // our scale contains this letter, so we can use it to determine our scale step
-            // and then figure out our necessary chromaticAdjustment
-            setNotePitchValues_Helper(note, noteName, scaleStepIndex);
-        } else {
-            // our scale does not contain this letter (example: F# for C major 
-            // pentatonic-C D E G A).  We need to figure out which of our scale
-            // steps this is closest to, and use that, modifying the chromatic
-            // adjustment accordingly            
-            
-            // find the two closest note letters...
-            int letterNumberArrayInsertionPt = -scaleStepIndex - 1;
-            int nearestLowerScaleStepIndex = (letterNumberArrayInsertionPt == 0 ? this.getLetterNumberArray().length - 1 : letterNumberArrayInsertionPt - 1);
-            int nearestHigherScaleStepIndex = (letterNumberArrayInsertionPt == this.getLetterNumberArray().length ?  0 : letterNumberArrayInsertionPt);
-            
-            // figure out which of these two is closest to our given note...
-            int lowerScaleStepNumHalfStepsAboveTonic = this.getScaleStepArray()[nearestLowerScaleStepIndex];
-            int higherScaleStepNumHalfStepsAboveTonic = this.getScaleStepArray()[nearestHigherScaleStepIndex];
-            int givenNoteHalfStepsAboveTonic = this.getKeyName().getPositiveChromaticSteps(noteName);
-                        
-            int distanceFromLowerScaleStep = Math.abs(getNormalizedChromaticAdjustment(givenNoteHalfStepsAboveTonic - lowerScaleStepNumHalfStepsAboveTonic));
-            int distanceFromHigherScaleStep = Math.abs(getNormalizedChromaticAdjustment(higherScaleStepNumHalfStepsAboveTonic - givenNoteHalfStepsAboveTonic));
-                        
-            if (distanceFromLowerScaleStep < distanceFromHigherScaleStep) {
-                setNotePitchValues_Helper(note, noteName, nearestLowerScaleStepIndex);
-            } else {
-                setNotePitchValues_Helper(note, noteName, nearestHigherScaleStepIndex);
-            }    
-        }    
+        PitchTables tables = this.getPitchTables();
+        note.setScaleStep(tables.noteNameScaleSteps[noteName.ordinal()]);
+        note.setChromaticAdjustment(tables.noteNameChromaticAdjustments[noteName.ordinal()]);
     }
 
     /**
@@ -233,12 +382,7 @@ public abstract class Scale implements Cloneable {
      */
     protected void setNotePitchValues_Helper(Note note, NoteName noteNameForPitch, int scaleStepIndex) {        
         note.setScaleStep(scaleStepIndex);
-
-        int givenNoteHalfStepAboveTonic = this.getKeyName().getPositiveChromaticSteps(noteNameForPitch);
-        int diatonicNoteHalfStepsAboveTonic = this.getScaleStepArray()[scaleStepIndex];
-        int chromaticAdjustment = getNormalizedChromaticAdjustment(givenNoteHalfStepAboveTonic - diatonicNoteHalfStepsAboveTonic);
-                
-        note.setChromaticAdjustment(chromaticAdjustment);
+        note.setChromaticAdjustment(this.getPitchTables().getChromaticAdjustment(this.getKeyName(), noteNameForPitch, scaleStepIndex));
     }        
     
     /**
@@ -262,6 +406,7 @@ public abstract class Scale implements Cloneable {
     public Scale getCopyWithDifferentKey(NoteName key) throws InvalidKeySignatureException {
         Scale scale = this.clone();
         scale.keySignature = new KeySignature(this.keySignature.getTonality(), key);
+        scale.pitchTables = null;
         return scale;
     }
     
@@ -273,7 +418,7 @@ public abstract class Scale implements Cloneable {
      * @return the recommended number of letter numbers to transpose
      */
     public int getRecommendedTransposeLetterNumber(int transposeScaleSteps) {        
-        return this.getLetterNumberArray()[this.getNormalizedScaleStep(transposeScaleSteps)];        
+        return this.getLetterNumberForScaleStep(transposeScaleSteps);        
     }
         
     @Override
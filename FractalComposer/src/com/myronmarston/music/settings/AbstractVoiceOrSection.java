@@ -42,6 +42,7 @@ public abstract class AbstractVoiceOrSection<M extends AbstractVoiceOrSection, O
     private int uniqueIndex;
     private VoiceSectionList voiceSections;
     private String className = null;
+    private boolean readOnly;
 
     /**
      * Constructor.
@@ -97,7 +98,7 @@ public abstract class AbstractVoiceOrSection<M extends AbstractVoiceOrSection, O
      * @return the list of VoiceSections
      */
     public VoiceSectionList getVoiceSections() {
-        if (voiceSections == null) voiceSections = new VoiceSectionList(this.getFractalPiece().getVoiceSections(), this);                           
+        if (voiceSections == null) voiceSections = new VoiceSectionList(this);                           
         return voiceSections;
     }
     
@@ -123,25 +124,23 @@ public abstract class AbstractVoiceOrSection<M extends AbstractVoiceOrSection, O
     protected abstract VoiceOrSectionList<O, M> getListOfOtherType();    
     
     /**
-     * Creates a VoiceSectionHashMapKey, combining this object with an object 
-     * of the other type, based on the index.
+     * Gets the VoiceSection combining this object with an object of the other
+     * type, based on the index.
      * 
      * @param index The index in the list of the other type to combine 
-     *        with to create the hash map key
-     * @return A VoiceSectionHashMapKey that can be used to get a 
-     *         specific VoiceSection
+     *        with
+     * @return the VoiceSection
      */
-    protected abstract VoiceSectionHashMapKey getHashMapKeyForOtherTypeIndex(int index);
+    protected abstract VoiceSection getVoiceSectionForOtherTypeIndex(int index);
     
     /**
-     * Creates a VoiceSectionHashMapKey, combining this object with an object 
-     * of the other type, based on the unique index.
+     * Gets the VoiceSection combining this object with an object of the other
+     * type, based on the unique index.
      * @param uniqueIndex The unique index in the list of the other type to 
-     *        combine with to create the hash map key
-     * @return A VoiceSectionHashMapKey that can be used to get a 
-     *         specific VoiceSection
+     *        combine with
+     * @return the VoiceSection
      */
-    protected abstract VoiceSectionHashMapKey getHashMapKeyForOtherTypeUniqueIndex(int uniqueIndex);
+    protected abstract VoiceSection getVoiceSectionForOtherTypeUniqueIndex(int uniqueIndex);
     
     /**
      * Instantiates and returns a VoiceSection, using this and the passed voice 
@@ -169,6 +168,34 @@ public abstract class AbstractVoiceOrSection<M extends AbstractVoiceOrSection, O
         return className;
     }
     
+    /**
+     * Gets a value indicating whether or not this voice or section is 
+     * read-only.  The voices and sections of a snapshot of a fractal piece
+     * are read-only.
+     * 
+     * @return true if this object is read-only
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+    
+    /**
+     * If the object is read-only, throws an UnsupportedOperationException. 
+     * 
+     * @throws UnsupportedOperationException if this object is read-only
+     */
+    protected void readOnlyException() throws UnsupportedOperationException {
+        ReadOnlyHelper.readOnlyException(this.readOnly);
+    }
+    
+    /**
+     * Makes this voice or section read-only.  Sub classes should override this
+     * to also make their settings read-only.
+     */
+    protected void makeReadOnly() {
+        this.readOnly = true;
+    }
+    
     /**
      * Sets all voice sections for this voice or section to rest.
      * 
@@ -185,6 +212,7 @@ public abstract class AbstractVoiceOrSection<M extends AbstractVoiceOrSection, O
      * setting is changed that is used by the voice sections.
      */
     protected void clearVoiceSectionResults() {
+        if (this.getFractalPiece().deferVoiceSectionResultInvalidation(this)) return;
         for (VoiceSection vs : this.getVoiceSections()) {
             vs.clearVoiceSectionResult();
         }
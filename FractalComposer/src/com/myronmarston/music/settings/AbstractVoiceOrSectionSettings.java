@@ -23,6 +23,7 @@ import com.myronmarston.music.NoteList;
 import com.myronmarston.music.scales.Scale;
 import com.myronmarston.music.transformers.OctaveTransformer;
 import com.myronmarston.music.transformers.RhythmicDurationTransformer;
+import com.myronmarston.music.transformers.TransformerChain;
 import com.myronmarston.music.transformers.TransposeTransformer;
 import com.myronmarston.music.transformers.VolumeTransformer;
 import com.myronmarston.util.AbstractPublisher;
@@ -196,8 +197,7 @@ public abstract class AbstractVoiceOrSectionSettings extends AbstractPublisher {
      * @throws UnsupportedOperationException if this object is read-only
      */
     protected void readOnlyException() throws UnsupportedOperationException {
-        if (this.readOnly) 
-            throw new UnsupportedOperationException("Cannot change values on a read-only object.");
+        ReadOnlyHelper.readOnlyException(this.readOnly);
     }
     
     /**
@@ -210,18 +210,16 @@ public abstract class AbstractVoiceOrSectionSettings extends AbstractPublisher {
     public NoteList applySettingsToNoteList(NoteList noteList, Scale scale) {                        
         // we want the offset to be in the range -NumScaleSteps to +NumScaleSteps
         int offsetToUse = scale.getNormalizedScaleStep(scaleStepOffset);
-        offsetToUse -= (scaleStepOffset < 0 ? scale.getScaleStepArray().length : 0);
+        offsetToUse -= (scaleStepOffset < 0 ? scale.getNumScaleSteps() : 0);
         
         OctaveTransformer octaveT = new OctaveTransformer(this.getOctaveAdjustment());
         RhythmicDurationTransformer rhythmT = new RhythmicDurationTransformer(this.getSpeedScaleFactor());                        
         TransposeTransformer transposeT = new TransposeTransformer(offsetToUse, scale.getRecommendedTransposeLetterNumber(this.scaleStepOffset));
         VolumeTransformer volumeT = new VolumeTransformer(this.getVolumeAdjustment());                
-               
-        NoteList temp = octaveT.transform(noteList);
-        temp = volumeT.transform(temp);                
-        temp = rhythmT.transform(temp);                          
-        temp = transposeT.transform(temp);
-        return temp;
+        
+        // fuse the transformers so that each note is only copied once...
+        TransformerChain chain = new TransformerChain(octaveT, volumeT, rhythmT, transposeT);
+        return chain.transform(noteList);
     }
     
     /**
@@ -235,6 +233,26 @@ public abstract class AbstractVoiceOrSectionSettings extends AbstractPublisher {
         return settings;
     }
 
+    /**
+     * Gets an editable copy of this object.  Unlike clone(), the copy will
+     * never be read-only, even if this object is.
+     * 
+     * @return an editable copy of this object
+     */
+    public AbstractVoiceOrSectionSettings getEditableCopy() {
+        AbstractVoiceOrSectionSettings settings = this.clone();
+        settings.readOnly = false;
+        return settings;
+    }
+    
+    /**
+     * Makes this object read-only in place.  Used when freezing a snapshot
+     * of a fractal piece.
+     */
+    void makeReadOnly() {
+        this.readOnly = true;
+    }
+
     @Override
     public AbstractVoiceOrSectionSettings clone() {
         return (AbstractVoiceOrSectionSettings) super.clone();
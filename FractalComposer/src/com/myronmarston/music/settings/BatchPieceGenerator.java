@@ -0,0 +1,244 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+import com.myronmarston.music.OutputManager;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates many fractal pieces and saves each one as a midi file.  The 
+ * pieces are generated on a fixed number of threads, and no more than a fixed
+ * number of pieces are pending at any one time: the piece specs are only 
+ * read from the iterator as room becomes available, so an iterator that 
+ * creates its specs lazily can supply an arbitrarily large batch.  Each midi
+ * file is saved as soon as its piece has been generated, and the piece is
+ * then released.  Germs parsed while the pieces are generated (such as the
+ * germs of sections that override the piece scale) are shared between the
+ * pieces through the GermParseCache, and voice section results through the
+ * VoiceSectionResultCache, so pieces with the same germ and similar settings
+ * do not have to reparse the germ or regenerate the same sections.
+ * 
+ * @author Myron
+ */
+public class BatchPieceGenerator {
+    private final int threadCount;
+    private final int maxPendingPieces;
+    
+    /**
+     * Describes one piece to generate.  The methods of this interface are 
+     * called on the generator's threads.
+     */
+    public interface PieceSpec {
+        /**
+         * Creates the fractal piece to generate.
+         * 
+         * @return the fractal piece
+         * @throws java.lang.Exception if the piece cannot be created
+         */
+        FractalPiece createFractalPiece() throws Exception;
+        
+        /**
+         * Gets the name of the midi file to save the piece to.
+         * 
+         * @return the midi file name
+         */
+        String getMidiFileName();
+    }
+    
+    /**
+     * Gets notified as each piece finishes.  The methods of this interface 
+     * are called on the generator's threads, so implementations must be 
+     * thread safe.
+     */
+    public interface Listener {
+        /**
+         * Called when a piece has been generated and its midi file saved.
+         * 
+         * @param spec the spec of the piece
+         */
+        void pieceGenerated(PieceSpec spec);
+        
+        /**
+         * Called when a piece could not be generated or saved.
+         * 
+         * @param spec the spec of the piece
+         * @param ex the exception that occurred
+         */
+        void pieceFailed(PieceSpec spec, Exception ex);
+    }
+    
+    /**
+     * A piece spec that loads the piece from its xml representation.
+     */
+    public static class XmlPieceSpec implements PieceSpec {
+        private final String xml;
+        private final String midiFileName;
+        
+        /**
+         * Constructor.
+         * 
+         * @param xml the xml representation of the fractal piece
+         * @param midiFileName the name of the midi file to save the piece to
+         */
+        public XmlPieceSpec(String xml, String midiFileName) {
+            this.xml = xml;
+            this.midiFileName = midiFileName;
+        }
+        
+        /**
+         * Gets the xml representation of the fractal piece.
+         * 
+         * @return the xml
+         */
+        public String getXml() {
+            return xml;
+        }
+
+        public FractalPiece createFractalPiece() throws Exception {
+            return FractalPiece.loadFromXml(this.xml);
+        }
+
+        public String getMidiFileName() {
+            return midiFileName;
+        }
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param threadCount the number of threads to generate pieces on
+     * @param maxPendingPieces the maximum number of pieces that may be queued
+     *        or in progress at once; must be at least the thread count
+     * @throws IllegalArgumentException if the thread count is less than 1 or
+     *         the maximum number of pending pieces is less than the thread 
+     *         count
+     */
+    public BatchPieceGenerator(int threadCount, int maxPendingPieces) throws IllegalArgumentException {
+        if (threadCount < 1) throw new IllegalArgumentException("The thread count must be at least 1.  The passed value was " + threadCount + ".");
+        if (maxPendingPieces < threadCount) throw new IllegalArgumentException("The maximum number of pending pieces must be at least the thread count.  The passed value was " + maxPendingPieces + ".");
+        this.threadCount = threadCount;
+        this.maxPendingPieces = maxPendingPieces;
+    }
+
+    /**
+     * Gets the number of threads to generate pieces on.
+     * 
+     * @return the thread count
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Gets the maximum number of pieces that may be queued or in progress at
+     * once.
+     * 
+     * @return the maximum number of pending pieces
+     */
+    public int getMaxPendingPieces() {
+        return maxPendingPieces;
+    }
+    
+    /**
+     * Generates the piece for each of the given specs and saves it to its 
+     * midi file.  This blocks until every piece has finished.  A piece that
+     * fails does not stop the rest of the batch; the failure is reported to
+     * the listener.  An error (such as an OutOfMemoryError) stops the batch 
+     * from reading any more specs; it is rethrown once the pieces already in
+     * progress have finished.
+     * 
+     * @param specs the piece specs; this is only used on the calling thread
+     * @param listener the listener to notify as each piece finishes, or null
+     * @return the number of pieces that were generated and saved successfully
+     * @throws java.lang.InterruptedException if the calling thread is 
+     *         interrupted while waiting; the pending pieces are cancelled
+     * @throws java.lang.Error the first error that occurred while generating
+     *         a piece
+     */
+    public int generate(Iterator<? extends PieceSpec> specs, final Listener listener) throws InterruptedException {
+        final Semaphore pendingPieces = new Semaphore(this.maxPendingPieces);
+        final AtomicInteger generatedCount = new AtomicInteger();
+        final AtomicReference<Error> firstError = new AtomicReference<Error>();
+        ExecutorService executor = Executors.newFixedThreadPool(this.threadCount);
+        boolean finished = false;
+        
+        try {
+            while (firstError.get() == null && specs.hasNext()) {
+                // wait for room before reading the next spec, so that the
+                // iterator never gets ahead of the pieces we can handle...
+                pendingPieces.acquire();
+                final PieceSpec spec = specs.next();
+                
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            Exception failure = null;
+                            try {
+                                generatePiece(spec);
+                            } catch (Exception ex) {
+                                failure = ex;
+                            }
+                            
+                            if (failure == null) {
+                                generatedCount.incrementAndGet();
+                                if (listener != null) listener.pieceGenerated(spec);
+                            } else if (listener != null) {
+                                listener.pieceFailed(spec, failure);
+                            }
+                        } catch (Error err) {
+                            // errors are not piece failures; keep the first one
+                            // so that generate() can rethrow it
+                            firstError.compareAndSet(null, err);
+                        } finally {
+                            // the permit must always be released, or generate()
+                            // would wait for this piece forever
+                            pendingPieces.release();
+                        }
+                    }
+                });
+            }
+            
+            // once we can get every permit, every piece has finished...
+            pendingPieces.acquire(this.maxPendingPieces);
+            finished = true;
+        } finally {
+            if (finished) executor.shutdown(); else executor.shutdownNow();
+        }
+        
+        if (firstError.get() != null) throw firstError.get();
+        
+        return generatedCount.get();
+    }
+    
+    /**
+     * Generates the piece for the given spec and saves it to its midi file.
+     * 
+     * @param spec the piece spec
+     * @throws java.lang.Exception if the piece cannot be generated or saved
+     */
+    protected void generatePiece(PieceSpec spec) throws Exception {
+        FractalPiece piece = spec.createFractalPiece();
+        OutputManager outputManager = piece.createPieceResultOutputManager();
+        outputManager.saveMidiFile(spec.getMidiFileName());
+    }
+}
@@ -27,7 +27,9 @@ import com.myronmarston.music.NoteStringParseException;
 import com.myronmarston.music.scales.Scale;
 import com.myronmarston.music.Tempo;
 
+import com.myronmarston.util.ConcurrencyHelper;
 import com.myronmarston.util.Fraction;
+import com.myronmarston.util.MathHelper;
 
 import org.simpleframework.xml.*;
 import org.simpleframework.xml.graph.*;
@@ -36,6 +38,11 @@ import org.simpleframework.xml.load.*;
 import java.io.*;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * The GrandDaddy of them all.  This class controls the entire piece of music.
@@ -71,7 +78,7 @@ public class FractalPiece {
     private VoiceOrSectionList<Section, Voice> sections = new VoiceOrSectionList<Section, Voice>(this);
     
     @Element
-    private Map<VoiceSectionHashMapKey, VoiceSection> voiceSections = new VoiceSectionHashMap();
+    private VoiceSectionHashMap voiceSections = new VoiceSectionHashMap();
        
     @Attribute
     private boolean generateLayeredIntro = true;
@@ -80,10 +87,37 @@ public class FractalPiece {
     private boolean generateLayeredOutro = true;        
         
     private List<Section> tempIntroOutroSections = new ArrayList<Section>();    
+    
+    private Executor voiceGenerationExecutor;
+    
+    private boolean precalculateMidiTickResolution;
+    
+    private boolean incrementalGeneration;
+    
+    private OutputManager lastPieceResultOutputManager;
+    
+    /**
+     * The note count limit value that means there is no limit.
+     */
+    public static final long NO_NOTE_COUNT_LIMIT = Long.MAX_VALUE;
+    
+    private long pieceResultNoteCountLimit = NO_NOTE_COUNT_LIMIT;
+    
+    private ConcurrentMap<VoiceSectionResultCacheKey, FutureTask<NoteList>> distinctVoiceSectionResults;
+    
+    private boolean readOnly;
+    
+    private int batchUpdateDepth;
+    
+    private Set<AbstractVoiceOrSection> batchInvalidatedVoicesAndSections = new LinkedHashSet<AbstractVoiceOrSection>();
+    
+    private Set<VoiceSection> batchInvalidatedVoiceSections = new LinkedHashSet<VoiceSection>();
                                     
     /**
      * Returns the germ NoteList.  Guarenteed to never be null.  Is read-only.  
      * The germ is the short melody from which the entire piece is generated.
+     * The notes of the germ use this piece's scale instance, but the germ 
+     * itself may be shared with other pieces through the GermParseCache.
      * 
      * @return the germ NoteList
      */
@@ -114,9 +148,11 @@ public class FractalPiece {
      * @param germString string containing a list of notes
      * @throws com.myronmarston.music.NoteStringParseException if the note list
      *         string cannot be parsed
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public void setGermString(String germString) throws NoteStringParseException {        
-        this.germ = NoteList.parseNoteListString(germString, this.getScale()).getReadOnlyCopy();
+        this.readOnlyException();
+        this.germ = GermParseCache.getInstance().parse(germString, this.getScale());
         this.germString = germString;
         
         // the germ string effects each section's germ for section, so clear them...
@@ -140,8 +176,10 @@ public class FractalPiece {
      * @param tempo the tempo of the piece
      * @throws IllegalArgumentException if the tempo is outside of the 
      *         acceptable range
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public void setTempo(int tempo) throws IllegalArgumentException {
+        this.readOnlyException();
         Tempo.checkTempoValidity(tempo);
         this.tempo = tempo;
     }
@@ -165,13 +203,15 @@ public class FractalPiece {
      * 
      * @param scale the Scale to be used by this FractalPiece
      * @throws IllegalArgumentException if the passed scale is null
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public void setScale(Scale scale) throws IllegalArgumentException {
+        this.readOnlyException();
         if (scale == null) throw new IllegalArgumentException("Scale cannot be set to null.");        
         
         if (this.getGermString() != null && !this.getGermString().isEmpty()) {
             try {
-                this.germ = NoteList.parseNoteListString(this.getGermString(), scale).getReadOnlyCopy();
+                this.germ = GermParseCache.getInstance().parse(this.getGermString(), scale);
             } catch (NoteStringParseException ex) {                
                 // All scales should be able to handle a valid note list string.
                 // if we have a germString, it was valid with the existing scale,
@@ -205,8 +245,10 @@ public class FractalPiece {
      * fractal piece.
      * 
      * @param generateLayeredIntro whether or not to generate the layered intro
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public void setGenerateLayeredIntro(boolean generateLayeredIntro) {
+        this.readOnlyException();
         this.generateLayeredIntro = generateLayeredIntro;
     }
 
@@ -225,10 +267,316 @@ public class FractalPiece {
      * fractal piece.
      * 
      * @param generateLayeredOutro whether or not to generate the layered outro
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public void setGenerateLayeredOutro(boolean generateLayeredOutro) {
+        this.readOnlyException();
         this.generateLayeredOutro = generateLayeredOutro;
     }
+
+    /**
+     * Gets the executor used to generate the voices of the piece in parallel.
+     * It is also used to generate large self-similarity levels in parallel.
+     * 
+     * @return the executor, or null if the voices are generated one after 
+     *         another on the calling thread
+     */
+    public Executor getVoiceGenerationExecutor() {
+        return voiceGenerationExecutor;
+    }
+
+    /**
+     * Sets the executor used to generate the voices of the piece in parallel.
+     * It is also used to generate large self-similarity levels in parallel.
+     * The executor is not shut down by this class.  It is not serialized to 
+     * xml.
+     * 
+     * @param voiceGenerationExecutor the executor, or null to generate the 
+     *        voices one after another on the calling thread
+     */
+    public void setVoiceGenerationExecutor(Executor voiceGenerationExecutor) {
+        this.voiceGenerationExecutor = voiceGenerationExecutor;
+    }
+    
+    /**
+     * Gets whether or not the midi tick resolution of the piece result is 
+     * calculated up front from the settings, rather than by examining every
+     * generated note.
+     * 
+     * @return true if the midi tick resolution is calculated from the settings
+     */
+    public boolean getPrecalculateMidiTickResolution() {
+        return precalculateMidiTickResolution;
+    }
+
+    /**
+     * Sets whether or not the midi tick resolution of the piece result is 
+     * calculated up front from the germ and the speed and self-similarity 
+     * settings (see calculateMidiTickResolution()), rather than by examining
+     * every generated note.  The calculated resolution may be larger than the
+     * resolution found from the notes; generation fails if it is larger than
+     * OutputManager.MAX_MIDI_TICK_RESOLUTION.  This is not serialized to xml.
+     * 
+     * @param precalculateMidiTickResolution true to calculate the midi tick
+     *        resolution from the settings
+     */
+    public void setPrecalculateMidiTickResolution(boolean precalculateMidiTickResolution) {
+        this.precalculateMidiTickResolution = precalculateMidiTickResolution;
+    }
+    
+    /**
+     * Gets whether or not the piece result is generated incrementally, 
+     * reusing the voices, midi tracks and notation parts that have not changed
+     * since the last time it was generated.
+     * 
+     * @return true if the piece result is generated incrementally
+     */
+    public boolean getIncrementalGeneration() {
+        return incrementalGeneration;
+    }
+
+    /**
+     * Sets whether or not the piece result is generated incrementally.  When
+     * this is on, createPieceResultOutputManager() only regenerates the voices
+     * whose voice sections or section durations have changed since the last
+     * call, and the new output manager takes the unchanged midi tracks and 
+     * notation parts from the last one.  The last output manager's notation
+     * should not be used after the next one is created.  This is not 
+     * serialized to xml.
+     * 
+     * @param incrementalGeneration true to generate the piece result 
+     *        incrementally
+     */
+    public void setIncrementalGeneration(boolean incrementalGeneration) {
+        this.incrementalGeneration = incrementalGeneration;
+        if (!incrementalGeneration) {
+            this.lastPieceResultOutputManager = null;
+            for (Voice v : this.getVoices()) v.clearLastEntireVoice();
+        }
+    }
+    
+    /**
+     * Gets the largest number of notes the piece result may have.
+     * 
+     * @return the note count limit, or NO_NOTE_COUNT_LIMIT
+     */
+    public long getPieceResultNoteCountLimit() {
+        return pieceResultNoteCountLimit;
+    }
+
+    /**
+     * Sets the largest number of notes the piece result may have.  Before
+     * generating the piece result, createPieceResultOutputManager() estimates
+     * its size (see estimatePieceResult()); if it would have more notes than
+     * this, the piece is refused before anything is generated.  This is not 
+     * serialized to xml.
+     * 
+     * @param pieceResultNoteCountLimit the note count limit, or 
+     *        NO_NOTE_COUNT_LIMIT
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public void setPieceResultNoteCountLimit(long pieceResultNoteCountLimit) throws IllegalArgumentException {
+        if (pieceResultNoteCountLimit < 0) throw new IllegalArgumentException("The note count limit cannot be negative.");
+        this.pieceResultNoteCountLimit = pieceResultNoteCountLimit;
+    }
+    
+    /**
+     * Gets a value indicating whether or not this piece is read-only.  Pieces
+     * returned by snapshot() are read-only.
+     * 
+     * @return true if this piece is read-only
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+    
+    /**
+     * If the piece is read-only, throws an UnsupportedOperationException. 
+     * 
+     * @throws UnsupportedOperationException if this piece is read-only
+     */
+    protected void readOnlyException() throws UnsupportedOperationException {
+        ReadOnlyHelper.readOnlyException(this.readOnly);
+    }
+    
+    /**
+     * Makes this piece, its voices and sections, their settings and the voice
+     * sections read-only.
+     */
+    private void makeReadOnly() {
+        this.readOnly = true;
+        for (Voice v : this.voices) v.makeReadOnly();
+        for (Section s : this.sections) s.makeReadOnly();
+        for (VoiceSection vs : this.voiceSections.values()) vs.makeReadOnly();
+    }
+    
+    /**
+     * Applies a batch of edits to this piece.  While the batch runs, the 
+     * settings change notifications that would normally clear the cached 
+     * voice section results are collected rather than acted upon; once it 
+     * completes (normally or not), each affected voice section is 
+     * invalidated exactly once.  Batches may be nested; the invalidation 
+     * happens when the outermost batch completes.  Voice section results
+     * read during the batch may not reflect the edits made in it.  The batch
+     * holds the same lock as the generation methods, so a piece is never 
+     * generated part way through a batch.
+     * 
+     * @param update the edits to apply
+     */
+    public synchronized void batchUpdate(Runnable update) {
+        this.batchUpdateDepth++;
+        try {
+            update.run();
+        } finally {
+            this.batchUpdateDepth--;
+            if (this.batchUpdateDepth == 0) this.invalidateBatchedVoiceSectionResults();
+        }
+    }
+    
+    /**
+     * Gets a value indicating whether or not a batch of edits is being 
+     * applied with batchUpdate().
+     * 
+     * @return true if a batch update is in progress
+     */
+    public synchronized boolean isBatchUpdating() {
+        return this.batchUpdateDepth > 0;
+    }
+    
+    /**
+     * Records that the voice section results of the given voice or section 
+     * need to be cleared, if a batch update is in progress.
+     * 
+     * @param vOrS the voice or section whose results are no longer valid
+     * @return true if the invalidation was deferred until the end of the 
+     *         batch, false if it should be done now
+     */
+    synchronized boolean deferVoiceSectionResultInvalidation(AbstractVoiceOrSection vOrS) {
+        if (!this.isBatchUpdating()) return false;
+        this.batchInvalidatedVoicesAndSections.add(vOrS);
+        return true;
+    }
+    
+    /**
+     * Records that the result of the given voice section needs to be cleared,
+     * if a batch update is in progress.
+     * 
+     * @param vs the voice section whose result is no longer valid
+     * @return true if the invalidation was deferred until the end of the 
+     *         batch, false if it should be done now
+     */
+    synchronized boolean deferVoiceSectionResultInvalidation(VoiceSection vs) {
+        if (!this.isBatchUpdating()) return false;
+        this.batchInvalidatedVoiceSections.add(vs);
+        return true;
+    }
+    
+    /**
+     * Clears the result of each voice section invalidated during the batch 
+     * update once.
+     */
+    private void invalidateBatchedVoiceSectionResults() {
+        Set<VoiceSection> invalidated = this.batchInvalidatedVoiceSections;
+        for (AbstractVoiceOrSection vOrS : this.batchInvalidatedVoicesAndSections) {
+            // voices or sections removed during the batch have no voice sections...
+            for (VoiceSection vs : vOrS.getVoiceSections()) invalidated.add(vs);
+        }
+        
+        this.batchInvalidatedVoicesAndSections = new LinkedHashSet<AbstractVoiceOrSection>();
+        this.batchInvalidatedVoiceSections = new LinkedHashSet<VoiceSection>();
+        for (VoiceSection vs : invalidated) vs.clearVoiceSectionResult();
+    }
+    
+    /**
+     * Creates a read-only snapshot of this piece: a deep copy of the germ and
+     * all of the settings that does not change when this piece is edited.  
+     * The generation options (the voice generation executor, the midi tick
+     * resolution precalculation and the note count limit) are carried over.
+     * The piece result and the germ can safely be generated from the 
+     * snapshot on another thread while this piece continues to be edited.  
+     * Only the generation methods of a piece are synchronized; the other 
+     * getters are not, and while a piece is being generated they can see 
+     * its temporary intro and outro sections, so other threads should only 
+     * read the snapshot through the generation methods.
+     * 
+     * @return the snapshot
+     */
+    public FractalPiece snapshot() {
+        FractalPiece snapshot;
+        try {
+            snapshot = loadFromXml(this.getXmlRepresentation());
+        } catch (Exception ex) {
+            // the xml we just created should always be loadable; if it is not 
+            // it is a programming error.
+            throw new UndeclaredThrowableException(ex, "An error occurred while loading the snapshot of the fractal piece.  This indicates a programming error.");
+        }
+        
+        snapshot.voiceGenerationExecutor = this.voiceGenerationExecutor;
+        snapshot.precalculateMidiTickResolution = this.precalculateMidiTickResolution;
+        snapshot.pieceResultNoteCountLimit = this.pieceResultNoteCountLimit;
+        snapshot.makeReadOnly();
+        return snapshot;
+    }
+    
+    /**
+     * Estimates the size and cost of the piece result, including the intro 
+     * and outro, from the germ and the settings.  Nothing is generated.
+     * 
+     * @return the estimate
+     * @throws UnsupportedOperationException if there are no voices or sections
+     */
+    public synchronized PieceEstimate estimatePieceResult() throws UnsupportedOperationException {
+        if (this.voices.isEmpty() || this.sections.isEmpty()) throw new UnsupportedOperationException("You must have at least one voice and one section to generate a fractal piece.");
+        int originalSectionUniqueIndex = this.sections.getLastUniqueIndex();
+        try {
+            this.createIntroSections();
+            this.createOutroSections();
+            return this.createPieceEstimate();
+        } finally {
+            this.clearTempIntroOutroSections(originalSectionUniqueIndex);
+        }
+    }
+    
+    /**
+     * Creates the estimate of the piece result for the current sections.  The
+     * intro and outro sections should already have been created.
+     * 
+     * @return the estimate
+     */
+    private PieceEstimate createPieceEstimate() {
+        long noteCount = 0;
+        for (Section s : this.getSections()) {
+            Fraction sectionDuration = s.getDuration();
+            for (VoiceSection vs : s.getVoiceSections()) {
+                noteCount = MathHelper.saturatedAdd(noteCount, vs.getLengthenedVoiceSectionResultNoteCount(sectionDuration));
+            }
+        }
+        
+        return new PieceEstimate(noteCount, this.calculateMidiTickResolution());
+    }
+    
+    /**
+     * Calculates a midi tick resolution that can represent the timing of every
+     * note of the piece, using only the germ and the speed and self-similarity
+     * settings of each voice section.  Nothing is generated.
+     * 
+     * @return the midi tick resolution, or Long.MAX_VALUE if it is too large
+     *         to be represented as a long
+     */
+    public long calculateMidiTickResolution() {
+        long resolution = 1L;
+        
+        for (Section s : this.getSections()) {
+            for (VoiceSection vs : s.getVoiceSections()) {
+                long voiceSectionResolution = vs.calculateMidiTickResolution();
+                long multiplier = voiceSectionResolution / MathHelper.greatestCommonDivisor(resolution, voiceSectionResolution);
+                if (resolution > Long.MAX_VALUE / multiplier) return Long.MAX_VALUE;
+                resolution *= multiplier;
+            }
+        }
+        
+        return resolution;
+    }
         
     /**
      * Gets the time signature for this piece.  If none has been set, a default
@@ -245,8 +593,10 @@ public class FractalPiece {
      * Sets the time signature for this piece.
      * 
      * @param timeSignature the time signature
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public void setTimeSignature(TimeSignature timeSignature) {
+        this.readOnlyException();
         if (timeSignature == null) throw new IllegalArgumentException("TimeSignature cannot be set to null.");
         this.timeSignature = timeSignature;
     }
@@ -261,6 +611,18 @@ public class FractalPiece {
         return voiceSections;
     }
     
+    /**
+     * Gets the VoiceSection for the given voice and section, using the unique
+     * index table of the voice sections rather than a hash map key.
+     * 
+     * @param voice the voice
+     * @param section the section
+     * @return the VoiceSection, or null if there is none
+     */
+    VoiceSection getVoiceSection(Voice voice, Section section) {
+        return voiceSections.get(voice, section);
+    }
+    
     /**
      * Gets a list of Voices for the FractalPiece.  To add a Voice, use the 
      * provided createVoice() method, rather than attempting to add it to the
@@ -306,8 +668,11 @@ public class FractalPiece {
     
     /**
      * Normalizes the unique indices so as to label the items in natural order.
+     * 
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public void normalizeUniqueIndices() {
+        this.readOnlyException();
         this.voices.normalizeUniqueIndices();
         this.sections.normalizeUniqueIndices();
     }
@@ -328,8 +693,10 @@ public class FractalPiece {
      * @param index the point to insert the voice
      * @return the created voice
      * @throws UnsupportedOperationException if there are more than 15 voices
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public Voice createVoice(int index) throws UnsupportedOperationException {   
+        this.readOnlyException();
         if (this.voices.size() > 15) throw new UnsupportedOperationException("You cannot create more than 16 voices, since Midi only supports 16 channels.");
         Voice v = new Voice(this, this.voices.getNextUniqueIndex());
         this.voices.add(index, v);
@@ -351,8 +718,22 @@ public class FractalPiece {
      * 
      * @param index the point in the list to insert the section
      * @return the created Section
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public Section createSection(int index) {
+        this.readOnlyException();
+        return this.addSection(index);
+    }
+    
+    /**
+     * Creates a Section and inserts it at a particular point in the Section
+     * list, even if this piece is read-only.  Used for the temporary intro and
+     * outro sections.
+     * 
+     * @param index the point in the list to insert the section
+     * @return the created Section
+     */
+    private Section addSection(int index) {
         Section s = new Section(this, this.sections.getNextUniqueIndex());
         this.sections.add(index, s);        
         return s;
@@ -372,8 +753,11 @@ public class FractalPiece {
      * Creates the default voice settings.  This generates three voices.  The
      * highest and fastest voice will have self-similarity applied to the
      * pitch and volume.
+     * 
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public void createDefaultVoices() {        
+        this.readOnlyException();
         this.voices.clear();
         
         createDefaultVoice(1, new Fraction(2, 1), true, false, true, 1);
@@ -398,8 +782,11 @@ public class FractalPiece {
      * overriden.  This generates one normal section, one inversion section,
      * one retrograde inversion section, and one retrograde section.  For each
      * section, the self-similarity is applied to only the fastest voice.
+     * 
+     * @throws UnsupportedOperationException if this piece is read-only
      */
     public void createDefaultSections() {
+        this.readOnlyException();
         this.sections.clear();
         
         createDefaultSection(false, false); // normal
@@ -459,7 +846,7 @@ public class FractalPiece {
         
         for (int sectionIndex = 0; sectionIndex < fastToSlowVoices.size(); sectionIndex++) {
             // create the section at the appropriate index...
-            Section s = this.createSection(insertIndexProvider.getInsertIndex(this.getSections()));
+            Section s = this.addSection(insertIndexProvider.getInsertIndex(this.getSections()));
             
             // add our section to our temp list, since the layered sections are
             // only created during fractal piece generation and should never be
@@ -474,7 +861,7 @@ public class FractalPiece {
             
             // set some of the voice sections to rests, to create our layered effect...
             for (int voiceIndex = 0; voiceIndex < sectionIndex; voiceIndex++) {  
-                VoiceSection vs = this.getVoiceSections().get(new VoiceSectionHashMapKey(fastToSlowVoices.get(voiceIndex), s));
+                VoiceSection vs = this.getVoiceSection(fastToSlowVoices.get(voiceIndex), s);
                 vs.setRest(true);
             }                        
         }
@@ -501,32 +888,123 @@ public class FractalPiece {
      * 
      * @return the output manager
      * @throws com.myronmarston.music.GermIsEmptyException if the germ is empty
-     * @throws UnsupportedOperationException if there are no voices or sections
+     * @throws UnsupportedOperationException if there are no voices or 
+     *         sections, or if the piece needs a midi tick resolution greater 
+     *         than OutputManager.MAX_MIDI_TICK_RESOLUTION
+     * @throws PieceTooLargeException if the piece result would have more 
+     *         notes than the note count limit
      */
-    public OutputManager createPieceResultOutputManager() throws GermIsEmptyException, UnsupportedOperationException {
+    public synchronized OutputManager createPieceResultOutputManager() throws GermIsEmptyException, UnsupportedOperationException, PieceTooLargeException {
         if (this.voices.isEmpty() || this.sections.isEmpty()) throw new UnsupportedOperationException("You must have at least one voice and one section to generate a fractal piece.");
         int originalSectionUniqueIndex = this.sections.getLastUniqueIndex();
+        this.distinctVoiceSectionResults = new ConcurrentHashMap<VoiceSectionResultCacheKey, FutureTask<NoteList>>();
         try {
             // create our intro and outro...
             this.createIntroSections();
             this.createOutroSections();
+            
+            PieceEstimate estimate = null;
+            if (this.getPieceResultNoteCountLimit() != NO_NOTE_COUNT_LIMIT) {
+                estimate = this.createPieceEstimate();
+                if (estimate.getNoteCount() > this.getPieceResultNoteCountLimit()) throw new PieceTooLargeException(estimate, this.getPieceResultNoteCountLimit());
+            }
                         
-            ArrayList<NoteList> voiceResults = new ArrayList<NoteList>();
-            for (Voice v : this.getVoices()) voiceResults.add(v.getEntireVoice());
+            List<NoteList> voiceResults = this.getEntireVoices();
+            int resolution = 0;
+            if (this.getPrecalculateMidiTickResolution()) {
+                // this must be calculated while the intro and outro sections exist...
+                long calculatedResolution = (estimate == null ? this.calculateMidiTickResolution() : estimate.getMidiTickResolution());
+                OutputManager.checkMidiTickResolution(calculatedResolution);
+                resolution = (int) calculatedResolution;
+            }
+            
+            if (!this.getIncrementalGeneration()) return new OutputManager(this, voiceResults, true, true, true, resolution);
             
-            return new OutputManager(this, voiceResults);
+            this.lastPieceResultOutputManager = new OutputManager(this, voiceResults, true, true, true, resolution, this.lastPieceResultOutputManager);
+            return this.lastPieceResultOutputManager;
         } finally {
+            this.distinctVoiceSectionResults = null;
             this.clearTempIntroOutroSections(originalSectionUniqueIndex);
         }         
     }
     
+    /**
+     * Gets the voice section results generated so far while generating the
+     * piece result, keyed by the voice section's effective inputs (see
+     * VoiceSection.createResultCacheKey()).  Many voice sections have the same
+     * inputs: the layered intro and outro sections have self-similarity, 
+     * inversion and retrograde turned off, so each voice has the same one or
+     * two voice sections in all of them.  Each distinct result is generated 
+     * once, by the first voice section to need it, and the others copy it. 
+     * The tasks may still be running when another thread gets them.
+     * 
+     * @return the map of distinct voice section results, or null if the piece
+     *         result is not being generated
+     */
+    ConcurrentMap<VoiceSectionResultCacheKey, FutureTask<NoteList>> getDistinctVoiceSectionResults() {
+        return distinctVoiceSectionResults;
+    }
+    
+    /**
+     * Gets the entire voice result for each voice, in order.  If a voice 
+     * generation executor has been set, the voices are generated in parallel.
+     * 
+     * @return list of the entire voice results
+     */
+    private List<NoteList> getEntireVoices() {
+        if (this.voiceGenerationExecutor == null) {
+            List<NoteList> voiceResults = new ArrayList<NoteList>();
+            for (Voice v : this.getVoices()) voiceResults.add(this.getEntireVoice(v));
+            return voiceResults;
+        }
+        
+        // Voices depend on each other through the section durations, so we 
+        // generate every voice section result before assembling any voice.
+        // The section germs are cached lazily, so we get them here first to
+        // keep the tasks from racing to create them.
+        for (Section s : this.getSections()) s.getGermForSection();
+        
+        List<Callable<NoteList>> voiceSectionTasks = new ArrayList<Callable<NoteList>>();
+        for (Voice v : this.getVoices()) {
+            for (final VoiceSection vs : v.getVoiceSections()) {
+                voiceSectionTasks.add(new Callable<NoteList>() {
+                    public NoteList call() {
+                        return vs.getVoiceSectionResult();
+                    }
+                });
+            }
+        }
+        ConcurrencyHelper.invokeAll(this.voiceGenerationExecutor, voiceSectionTasks);
+        
+        List<Callable<NoteList>> voiceTasks = new ArrayList<Callable<NoteList>>();
+        for (final Voice v : this.getVoices()) {
+            voiceTasks.add(new Callable<NoteList>() {
+                public NoteList call() {
+                    return FractalPiece.this.getEntireVoice(v);
+                }
+            });
+        }
+        return ConcurrencyHelper.invokeAll(this.voiceGenerationExecutor, voiceTasks);
+    }
+    
+    /**
+     * Gets the entire voice result for the given voice, reusing the last one
+     * if the piece is generated incrementally and the voice is unchanged.
+     * 
+     * @param voice the voice
+     * @return the entire voice result
+     */
+    private NoteList getEntireVoice(Voice voice) {
+        return (this.getIncrementalGeneration() ? voice.getEntireVoiceIncrementally() : voice.getEntireVoice());
+    }
+    
     /**
      * Creates the output manager for the germ.
      * 
      * @return the output manager
      * @throws com.myronmarston.music.GermIsEmptyException if the germ is empty
      */
-    public OutputManager createGermOutputManager() throws GermIsEmptyException {        
+    public synchronized OutputManager createGermOutputManager() throws GermIsEmptyException {        
         return new OutputManager(this, Arrays.asList(this.getGerm()), false, false, false);
     }
    
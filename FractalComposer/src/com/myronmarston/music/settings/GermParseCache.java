@@ -0,0 +1,255 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+import com.myronmarston.music.Note;
+import com.myronmarston.music.NoteList;
+import com.myronmarston.music.NoteStringParseException;
+import com.myronmarston.music.scales.Scale;
+
+import java.util.*;
+
+/**
+ * A size-bounded, least-recently-used cache of parsed germs, shared by all 
+ * FractalPieces in this process.  Germs are keyed by the germ string and the 
+ * scale used to parse it.  Scales are compared by equals(), since equal scales
+ * always parse a germ string the same way.  The notes of a germ returned by
+ * this cache always use the given scale instance: when a cached germ was 
+ * parsed with a different (but equal) scale instance, a copy using the given
+ * scale is returned and cached in its place.  The cached germs are read-only, so they can be shared.
+ * 
+ * @author Myron
+ */
+public class GermParseCache {
+    
+    /**
+     * The default maximum number of germs held by the shared cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 256;
+    
+    private static final GermParseCache instance = new GermParseCache(DEFAULT_MAX_SIZE);
+    
+    // access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, NoteList> germs = new LinkedHashMap<Key, NoteList>(16, 0.75f, true);
+    private int maxSize;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    
+    /**
+     * Constructor.
+     * 
+     * @param maxSize the maximum number of germs to hold in the cache
+     */
+    public GermParseCache(int maxSize) {
+        this.setMaxSize(maxSize);
+    }
+    
+    /**
+     * Gets the cache shared by all FractalPieces.
+     * 
+     * @return the shared cache
+     */
+    public static GermParseCache getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Gets the germ for the given germ string and scale, parsing it only if
+     * it is not already cached.
+     * 
+     * @param germString the germ string
+     * @param scale the scale to parse the germ string with
+     * @return the read-only germ
+     * @throws com.myronmarston.music.NoteStringParseException if the germ 
+     *         string cannot be parsed
+     */
+    public NoteList parse(String germString, Scale scale) throws NoteStringParseException {
+        Key key = new Key(germString, scale);
+        synchronized (this) {
+            NoteList germ = germs.get(key);
+            if (germ != null) {
+                hitCount++;
+                NoteList germWithScale = getGermWithScale(germ, scale);
+                
+                // later lookups will most likely use the same scale instance...
+                if (germWithScale != germ) germs.put(key, germWithScale);
+                return germWithScale;
+            }
+            missCount++;
+        }
+        
+        // parse outside of the lock, so that other threads are not held up
+        // by a long germ string.  If two threads parse the same germ at once,
+        // the later one simply replaces the earlier one's equal germ.
+        NoteList germ = NoteList.parseNoteListString(germString, scale).getReadOnlyCopy();
+        synchronized (this) {
+            if (maxSize > 0) {
+                germs.put(key, germ);
+                this.evictToMaxSize();
+            }
+        }
+        return germ;
+    }
+    
+    /**
+     * Gets a germ whose notes use the given scale instance, so that callers
+     * can rely on the notes having the same scale as the one they passed.
+     * 
+     * @param germ the cached germ
+     * @param scale the scale
+     * @return the cached germ if its notes already use the scale; otherwise a
+     *         read-only copy that uses the scale
+     */
+    private static NoteList getGermWithScale(NoteList germ, Scale scale) {
+        for (Note note : germ) {
+            if (note.isRest()) continue;
+            if (note.getScale() == scale) return germ;
+            
+            return germ.getReadOnlyCopy(scale);
+        }
+        
+        // a germ containing only rests has no scale...
+        return germ;
+    }
+    
+    /**
+     * Removes all germs from the cache and resets the statistics.
+     */
+    public synchronized void clear() {
+        germs.clear();
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+    
+    /**
+     * Gets the maximum number of germs to hold in the cache.
+     * 
+     * @return the maximum size
+     */
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+    
+    /**
+     * Sets the maximum number of germs to hold in the cache.  Set this to zero
+     * to disable caching.
+     * 
+     * @param maxSize the maximum size
+     * @throws IllegalArgumentException if maxSize is negative
+     */
+    public synchronized void setMaxSize(int maxSize) throws IllegalArgumentException {
+        if (maxSize < 0) throw new IllegalArgumentException("The maximum size must not be negative.");
+        this.maxSize = maxSize;
+        this.evictToMaxSize();
+    }
+    
+    /**
+     * Gets the number of germs in the cache.
+     * 
+     * @return the number of germs
+     */
+    public synchronized int size() {
+        return germs.size();
+    }
+    
+    /**
+     * Gets the number of lookups that found a cached germ.
+     * 
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+    
+    /**
+     * Gets the number of lookups that did not find a cached germ.
+     * 
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+    
+    /**
+     * Gets the number of germs that have been evicted to stay within the 
+     * maximum size.
+     * 
+     * @return the eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    /**
+     * Evicts the least recently used germs until the size is within the 
+     * maximum.
+     */
+    private void evictToMaxSize() {
+        Iterator<NoteList> iterator = germs.values().iterator();
+        while (germs.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+    
+    /**
+     * The key of a cached germ: the germ string and the scale.
+     */
+    private static class Key {
+        private final String germString;
+        private final Scale scale;
+        private final int hash;
+
+        public Key(String germString, Scale scale) {
+            this.germString = germString;
+            this.scale = scale;
+            this.hash = 59 * (59 * 5 + (germString != null ? germString.hashCode() : 0)) + (scale != null ? scale.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            if (this.hash != other.hash) {
+                return false;
+            }
+            if (this.germString != other.germString && (this.germString == null || !this.germString.equals(other.germString))) {
+                return false;
+            }
+            if (this.scale != other.scale && (this.scale == null || !this.scale.equals(other.scale))) {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
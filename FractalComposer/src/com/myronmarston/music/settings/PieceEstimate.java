@@ -0,0 +1,114 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+import com.myronmarston.util.MathHelper;
+
+/**
+ * An estimate of the size and cost of generating a piece result, made from 
+ * the germ and the settings without generating anything.  The note count and
+ * midi tick resolution are exact; the heap footprint and render time are 
+ * rough figures derived from the note count.  The per-note costs they use are
+ * rough heuristics, not measurements: the byte counts add up approximate 
+ * object sizes on a 64-bit JVM with compressed references, and the time is a
+ * guess that will vary a great deal between machines.  They are meant for 
+ * ordering pieces by cost, not for exact admission decisions; the note count 
+ * limit is based on the exact note count for that reason.
+ * 
+ * @author Myron
+ */
+public class PieceEstimate {
+    /**
+     * The approximate number of bytes of heap used by each note of the 
+     * generated voice results: the note itself, its fractions and its slot
+     * in the note list.
+     */
+    public static final long BYTES_PER_GENERATED_NOTE = 150;
+    
+    /**
+     * The approximate number of bytes of heap used by the output of each 
+     * note: its midi note on and note off events and its notation note.
+     */
+    public static final long BYTES_PER_OUTPUT_NOTE = 350;
+    
+    /**
+     * The approximate number of nanoseconds it takes to generate and output
+     * each note.
+     */
+    public static final long NANOSECONDS_PER_NOTE = 3000;
+    
+    private final long noteCount;
+    private final long midiTickResolution;
+
+    /**
+     * Constructor.
+     * 
+     * @param noteCount the number of notes in the piece result
+     * @param midiTickResolution the midi tick resolution of the piece result
+     */
+    public PieceEstimate(long noteCount, long midiTickResolution) {
+        this.noteCount = noteCount;
+        this.midiTickResolution = midiTickResolution;
+    }
+
+    /**
+     * Gets the number of notes in the piece result, across all voices.
+     * 
+     * @return the note count, or Long.MAX_VALUE if there are too many to count
+     */
+    public long getNoteCount() {
+        return noteCount;
+    }
+
+    /**
+     * Gets the midi tick resolution that can represent the timing of every 
+     * note of the piece result.
+     * 
+     * @return the midi tick resolution, or Long.MAX_VALUE if it is too large
+     *         to be represented as a long
+     */
+    public long getMidiTickResolution() {
+        return midiTickResolution;
+    }
+    
+    /**
+     * Gets the approximate number of bytes of heap needed to generate the 
+     * piece result.
+     * 
+     * @return the approximate heap footprint
+     */
+    public long getEstimatedHeapBytes() {
+        return MathHelper.saturatedMultiply(this.noteCount, BYTES_PER_GENERATED_NOTE + BYTES_PER_OUTPUT_NOTE);
+    }
+    
+    /**
+     * Gets the approximate time it takes to generate the piece result.
+     * 
+     * @return the approximate render time, in milliseconds
+     */
+    public long getEstimatedRenderMillis() {
+        return MathHelper.saturatedMultiply(this.noteCount, NANOSECONDS_PER_NOTE) / 1000000L;
+    }
+
+    @Override
+    public String toString() {
+        return "PieceEstimate{noteCount=" + noteCount + ", midiTickResolution=" + midiTickResolution + ", estimatedHeapBytes=" + this.getEstimatedHeapBytes() + ", estimatedRenderMillis=" + this.getEstimatedRenderMillis() + "}";
+    }
+}
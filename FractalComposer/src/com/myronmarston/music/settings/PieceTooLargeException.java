@@ -0,0 +1,53 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+/**
+ * Thrown when a piece result would have more notes than the limit set on 
+ * the fractal piece.
+ * 
+ * @author Myron
+ */
+public class PieceTooLargeException extends Exception {
+    // Used to serialize the class.  Change this if the class has a change significant enough to change the way the class is serialized.
+    private static final long serialVersionUID = 1L;
+    
+    private final PieceEstimate estimate;
+    
+    /**
+     * Constructor.
+     * 
+     * @param estimate the estimate of the piece result
+     * @param noteCountLimit the note count limit that was exceeded
+     */
+    public PieceTooLargeException(PieceEstimate estimate, long noteCountLimit) {
+        super("The piece result would have " + (estimate.getNoteCount() == Long.MAX_VALUE ? "too many" : String.valueOf(estimate.getNoteCount())) + " notes, which is more than the limit of " + noteCountLimit + ".");
+        this.estimate = estimate;
+    }
+
+    /**
+     * Gets the estimate of the piece result.
+     * 
+     * @return the estimate
+     */
+    public PieceEstimate getEstimate() {
+        return estimate;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+/**
+ * Helper for the objects of this package that can be made read-only: the 
+ * fractal piece, its voices, sections and voice sections, and their 
+ * settings.
+ * 
+ * @author Myron
+ */
+final class ReadOnlyHelper {
+    
+    private ReadOnlyHelper() {        
+    }
+    
+    /**
+     * Throws an UnsupportedOperationException if an object is read-only.  
+     * Each read-only capable object calls this at the start of every method
+     * that changes it.
+     * 
+     * @param readOnly whether or not the object is read-only
+     * @throws UnsupportedOperationException if the object is read-only
+     */
+    static void readOnlyException(boolean readOnly) throws UnsupportedOperationException {
+        if (readOnly) 
+            throw new UnsupportedOperationException("Cannot change values on a read-only object.");
+    }
+}
@@ -23,6 +23,7 @@ import com.myronmarston.music.GermIsEmptyException;
 import com.myronmarston.music.NoteList;
 import com.myronmarston.music.NoteStringParseException;
 import com.myronmarston.music.OutputManager;
+import com.myronmarston.music.RepeatedNoteList;
 import com.myronmarston.music.scales.InvalidKeySignatureException;
 import com.myronmarston.music.scales.KeySignature;
 import com.myronmarston.music.scales.Scale;
@@ -97,8 +98,10 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
      * 
      * @param overridePieceScale false if the default scale will be used, true 
      *        if the scale will be overriden
+     * @throws UnsupportedOperationException if this section is read-only
      */
     public void setOverridePieceScale(boolean overridePieceScale) {
+        this.readOnlyException();
         boolean valueChanged = (this.overridePieceScale != overridePieceScale);
         
         this.overridePieceScale = overridePieceScale;
@@ -127,9 +130,11 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
      * 
      * @param scale the scale to be used by this section
      * @throws UnsupportedOperationException if the scale is changing in a way 
-     *         that would violate the overridePieceScale setting      
+     *         that would violate the overridePieceScale setting, or if 
+     *         this section is read-only
      */
     public void setScale(Scale scale) throws UnsupportedOperationException {
+        this.readOnlyException();
         if (this.getOverridePieceScale()) {
             if (scale == null) throw new UnsupportedOperationException("The scale cannot be set to null since overridePieceScale is true.");
         } else {
@@ -151,7 +156,7 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
      */
     public NoteList getGermForSection() {
         if (!this.getOverridePieceScale() || 
-            this.getScale().getScaleStepArray().length == this.getFractalPiece().getScale().getScaleStepArray().length) {
+            this.getScale().getNumScaleSteps() == this.getFractalPiece().getScale().getNumScaleSteps()) {
             // There is no reason to use a different scale here, as we are either
             // not overriding the scale, or using a scale with the same number of
             // scale steps.  It'll work fine to just use the germ set on the whole piece.
@@ -162,18 +167,22 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
         // scale steps as the whole piece's scale.  The FractalPiece's germ
         // won't work well for this section, so we should reparse the germ
         // using our Section scale.
-        if (germForSection == null) germForSection = this.parseGermForSection();
+        // The parsed germs are shared through the GermParseCache and are
+        // read-only, so we keep our own copy.  The copy shares the notes until
+        // they are changed, so this is cheap.
+        if (germForSection == null) germForSection = this.parseGermForSection().clone();
         return germForSection;
     }        
     
     /**
-     * Parses the FractalPiece's germ using this section's scale.  
+     * Parses the FractalPiece's germ using this section's scale.  The germs
+     * are parsed through the shared GermParseCache, so they may be read-only.
      * 
      * @return the re-parsed germ
      */
     private NoteList parseGermForSection() {
         assert this.getOverridePieceScale() : "parseGermForSection should only be called when the piece scale is being overriden.";
-        assert this.getScale().getScaleStepArray().length != this.getFractalPiece().getScale().getScaleStepArray().length : "parseGermForSection should only be called when the piece scale and section scale have a different number of scale steps.";
+        assert this.getScale().getNumScaleSteps() != this.getFractalPiece().getScale().getNumScaleSteps() : "parseGermForSection should only be called when the piece scale and section scale have a different number of scale steps.";
         
         // It's a little ambiguous what it means to have a different scale for a section.
         // I could spell this out in the instructions of the webpage, but that would
@@ -187,7 +196,7 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
         if (germString.isEmpty()) return new NoteList();
         try {
             // first try parsing the germ using the selected scale and tonic...            
-            NoteList testGerm1 = NoteList.parseNoteListString(germString, this.getScale());                                
+            NoteList testGerm1 = GermParseCache.getInstance().parse(germString, this.getScale());                                
             int testGerm1AccidentalCount = testGerm1.getNumberOfAccidentals();
             if (testGerm1AccidentalCount == 0) return testGerm1;
             
@@ -198,7 +207,7 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
             int testGerm2AccidentalCount = 0;
             try {
                 scale2 = this.getScale().getCopyWithDifferentKey(this.getFractalPiece().getScale().getKeyName());
-                testGerm2 = NoteList.parseNoteListString(germString, scale2);                                
+                testGerm2 = GermParseCache.getInstance().parse(germString, scale2);                                
                 testGerm2AccidentalCount = testGerm2.getNumberOfAccidentals();
                 if (testGerm2AccidentalCount == 0) return testGerm2;
             } catch (InvalidKeySignatureException ivksex) {
@@ -216,7 +225,7 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
             int testGerm3AccidentalCount = Integer.MAX_VALUE;
             try {
                 scale3 = this.getScale().getCopyWithDifferentKey(this.getFractalPiece().getScale().getKeySignature().getKeyNameWithSameNumAccidentals(this.getScale().getKeySignature().getTonality()));                
-                testGerm3 = NoteList.parseNoteListString(germString, scale3);                                
+                testGerm3 = GermParseCache.getInstance().parse(germString, scale3);                                
                 testGerm3AccidentalCount = testGerm3.getNumberOfAccidentals();
                 if (testGerm3AccidentalCount == 0) return testGerm3;
             } catch (InvalidKeySignatureException iksex) {
@@ -249,6 +258,12 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
         }        
     }
 
+    @Override
+    protected void makeReadOnly() {
+        super.makeReadOnly();
+        this.settings.makeReadOnly();
+    }
+    
     /**
      * Clears the cached germForSection.  Should be called anytime a value that
      * effects germForSection is changed.
@@ -303,7 +318,7 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
         ArrayList<Fraction> voiceSectionDurations = new ArrayList<Fraction>(this.getListOfOtherType().size());
         
         for (VoiceSection vs : this.getVoiceSections()) {
-            voiceSectionDurations.add(vs.getVoiceSectionResult().getDuration());
+            voiceSectionDurations.add(vs.getVoiceSectionResultDuration());
         }
         
         return Collections.max(voiceSectionDurations);
@@ -312,9 +327,9 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
     public OutputManager createOutputManager() throws GermIsEmptyException {                
         Fraction sectionDuration = this.getDuration();
                     
-        List<NoteList> voiceSectionResults = new ArrayList<NoteList>(this.getVoiceSections().size());
+        List<RepeatedNoteList> voiceSectionResults = new ArrayList<RepeatedNoteList>(this.getVoiceSections().size());
         for (VoiceSection vs : this.getVoiceSections()) {
-            voiceSectionResults.add(vs.getLengthenedVoiceSectionResult(sectionDuration));
+            voiceSectionResults.add(vs.getLengthenedVoiceSectionResultView(sectionDuration));
         }
         
         return new OutputManager(this.getFractalPiece(), voiceSectionResults);
@@ -336,15 +351,15 @@ public class Section extends AbstractVoiceOrSection<Section, Voice> {
     }    
 
     @Override
-    protected VoiceSectionHashMapKey getHashMapKeyForOtherTypeIndex(int index) {
+    protected VoiceSection getVoiceSectionForOtherTypeIndex(int index) {
         Voice indexedVoice = this.getFractalPiece().getVoices().get(index);
-        return new VoiceSectionHashMapKey(indexedVoice, this);
+        return this.getFractalPiece().getVoiceSection(indexedVoice, this);
     }
 
     @Override
-    protected VoiceSectionHashMapKey getHashMapKeyForOtherTypeUniqueIndex(int uniqueIndex) {
+    protected VoiceSection getVoiceSectionForOtherTypeUniqueIndex(int uniqueIndex) {
         Voice indexedVoice = this.getFractalPiece().getVoices().getByUniqueIndex(uniqueIndex);
-        return new VoiceSectionHashMapKey(indexedVoice, this);
+        return this.getFractalPiece().getVoiceSection(indexedVoice, this);
     }        
 
     @Override
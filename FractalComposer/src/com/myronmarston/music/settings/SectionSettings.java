@@ -108,7 +108,9 @@ public class SectionSettings extends AbstractVoiceOrSectionSettings {
         
     @Override
     public NoteList applySettingsToNoteList(NoteList noteList, Scale scale) {     
-        NoteList temp = noteList.clone();
+        // the transformers never modify their input, so there's no need to 
+        // clone it first...
+        NoteList temp = noteList;
         
         if (this.getApplyInversion()) {
             InversionTransformer iT = new InversionTransformer();
@@ -128,6 +130,11 @@ public class SectionSettings extends AbstractVoiceOrSectionSettings {
         return (SectionSettings) super.getReadOnlyCopy();
     }
 
+    @Override
+    public SectionSettings getEditableCopy() {
+        return (SectionSettings) super.getEditableCopy();
+    }
+
     @Override
     public SectionSettings clone() {
         return (SectionSettings) super.clone();
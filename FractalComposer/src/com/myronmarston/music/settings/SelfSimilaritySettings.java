@@ -202,6 +202,26 @@ public class SelfSimilaritySettings extends AbstractPublisher {
         return sss;     
     }
 
+    /**
+     * Gets an editable copy of this object.  Unlike clone(), the copy will
+     * never be read-only, even if this object is.
+     * 
+     * @return an editable copy of this object
+     */
+    public SelfSimilaritySettings getEditableCopy() {
+        SelfSimilaritySettings sss = this.clone();
+        sss.readOnly = false;
+        return sss;
+    }
+    
+    /**
+     * Makes this object read-only in place.  Used when freezing a snapshot
+     * of a fractal piece.
+     */
+    void makeReadOnly() {
+        this.readOnly = true;
+    }
+
     @Override
     public SelfSimilaritySettings clone() {
         return (SelfSimilaritySettings) super.clone();
@@ -22,11 +22,15 @@ package com.myronmarston.music.settings;
 import com.myronmarston.music.OutputManager;
 import com.myronmarston.music.GermIsEmptyException;
 import com.myronmarston.music.Instrument;
+import com.myronmarston.music.Note;
 import com.myronmarston.music.NoteList;
+import com.myronmarston.music.NoteStream;
 
 import com.myronmarston.util.Publisher;
 import org.simpleframework.xml.*;
+import org.simpleframework.xml.load.*;
 
+import com.myronmarston.util.ConcatenatedIterable;
 import com.myronmarston.util.Fraction;
 import java.util.*;
 
@@ -48,6 +52,9 @@ public class Voice extends AbstractVoiceOrSection<Voice, Section> {
     @Element
     private final VoiceSettings settings;    
     
+    private NoteList lastEntireVoice;
+    private List<Object> lastEntireVoiceDependencies;
+    
     /**
      * Constructor.
      * 
@@ -91,14 +98,30 @@ public class Voice extends AbstractVoiceOrSection<Voice, Section> {
      * @param instrumentName
      * @throws IllegalArgumentException thrown if the given instrument is
      *         unavailable
+     * @throws UnsupportedOperationException if this voice is read-only
      */
     public void setInstrumentName(String instrumentName) throws IllegalArgumentException {
+        this.readOnlyException();
         if (!Instrument.AVAILABLE_INSTRUMENTS.contains(instrumentName)) {
             throw new IllegalArgumentException(instrumentName + " is not one of the available instruments.");
         }
         
         this.instrumentName = instrumentName;                
     }        
+    
+    /**
+     * Saved pieces may have an instrument name that is no longer available,
+     * such as a soundbank name that was cut off or a soundbank instrument 
+     * that is not a General MIDI program.  The name is replaced with the 
+     * name of the matching instrument, or the default instrument if there is
+     * none.
+     */
+    @Commit
+    private void xmlDeserializationCompleted() {
+        Instrument instrument = Instrument.getInstrument(this.instrumentName);
+        if (instrument == null) instrument = Instrument.DEFAULT;
+        this.instrumentName = instrument.getName();
+    }
                
     /**
      * Gets a NoteList containing the notes for all sections of this voice.
@@ -112,13 +135,92 @@ public class Voice extends AbstractVoiceOrSection<Voice, Section> {
         for (VoiceSection vs : this.getVoiceSections()) {
             sectionDuration = vs.getSection().getDuration();
 
-            entireVoice.addAll(vs.getLengthenedVoiceSectionResult(sectionDuration));
+            entireVoice.addAll(vs.getLengthenedVoiceSectionResultView(sectionDuration));
         }
 
         entireVoice.setInstrument(Instrument.getInstrument(this.getInstrumentName()));
         return entireVoice;
     }   
     
+    /**
+     * Gets a NoteList containing the notes for all sections of this voice, 
+     * reusing the list from the last call to this method if nothing it depends 
+     * on has changed.  The same list is returned in that case, so it should 
+     * not be modified.
+     * 
+     * @return a NoteList for the entire voice
+     */
+    public NoteList getEntireVoiceIncrementally() {
+        List<Object> dependencies = this.getEntireVoiceDependencies();
+        if (lastEntireVoice == null || !dependencies.equals(lastEntireVoiceDependencies)) {
+            lastEntireVoice = this.getEntireVoice();
+            lastEntireVoiceDependencies = dependencies;
+        }
+        return lastEntireVoice;
+    }
+    
+    /**
+     * Gets the values the entire voice depends on: the instrument, the 
+     * piece's time signature and tempo, and the content of each voice section 
+     * result along with its section duration.  The voice section results are 
+     * compared by their cache keys rather than by identity, since the intro 
+     * and outro sections are recreated each time the piece is generated.  The
+     * time signature is included by its string value since it is mutable.
+     * 
+     * @return list of the dependencies
+     */
+    private List<Object> getEntireVoiceDependencies() {
+        List<Object> dependencies = new ArrayList<Object>(this.getVoiceSections().size() * 2 + 3);
+        dependencies.add(this.getInstrumentName());
+        dependencies.add(this.getFractalPiece().getTimeSignature().toString());
+        dependencies.add(this.getFractalPiece().getTempo());
+        for (VoiceSection vs : this.getVoiceSections()) {
+            dependencies.add(vs.createResultCacheKey());
+            dependencies.add(vs.getSection().getDuration());
+        }
+        return dependencies;
+    }
+    
+    @Override
+    protected void makeReadOnly() {
+        super.makeReadOnly();
+        this.settings.makeReadOnly();
+    }
+    
+    /**
+     * Clears the entire voice kept by getEntireVoiceIncrementally().
+     */
+    protected void clearLastEntireVoice() {
+        this.lastEntireVoice = null;
+        this.lastEntireVoiceDependencies = null;
+    }
+    
+    /**
+     * Gets a NoteStream containing the notes for all sections of this voice.
+     * This contains the same notes as getEntireVoice(), but they are generated
+     * as the stream is iterated over rather than being held in memory all at
+     * once.
+     * 
+     * @return a NoteStream for the entire voice
+     */
+    public NoteStream getEntireVoiceStream() {
+        final List<Iterable<Note>> voiceSectionStreams = new ArrayList<Iterable<Note>>();
+        for (VoiceSection vs : this.getVoiceSections()) {
+            voiceSectionStreams.add(vs.getLengthenedVoiceSectionResultStream(vs.getSection().getDuration()));
+        }
+        
+        final Instrument instrument = Instrument.getInstrument(this.getInstrumentName());
+        return new NoteStream() {
+            public Instrument getInstrument() {
+                return instrument;
+            }
+
+            public Iterator<Note> iterator() {
+                return new ConcatenatedIterable<Note>(voiceSectionStreams).iterator();
+            }
+        };
+    }
+    
     /**
      * Creates the output manager for this voice.
      * 
@@ -145,15 +247,15 @@ public class Voice extends AbstractVoiceOrSection<Voice, Section> {
     }
 
     @Override
-    protected VoiceSectionHashMapKey getHashMapKeyForOtherTypeIndex(int index) {
+    protected VoiceSection getVoiceSectionForOtherTypeIndex(int index) {
         Section indexedSection = this.getFractalPiece().getSections().get(index);
-        return new VoiceSectionHashMapKey(this, indexedSection);
+        return this.getFractalPiece().getVoiceSection(this, indexedSection);
     }
 
     @Override
-    protected VoiceSectionHashMapKey getHashMapKeyForOtherTypeUniqueIndex(int uniqueIndex) {
+    protected VoiceSection getVoiceSectionForOtherTypeUniqueIndex(int uniqueIndex) {
         Section indexedSection = this.getFractalPiece().getSections().getByUniqueIndex(uniqueIndex);
-        return new VoiceSectionHashMapKey(this, indexedSection);
+        return this.getFractalPiece().getVoiceSection(this, indexedSection);
     }        
 
     @Override
@@ -44,6 +44,8 @@ public class VoiceOrSectionList<M extends AbstractVoiceOrSection, O extends Abst
     
     private boolean isDeserializing = false;
     
+    private ArrayList<M> uniqueIndexTable = new ArrayList<M>();
+    
 
     /**
      * Constructor.
@@ -86,13 +88,53 @@ public class VoiceOrSectionList<M extends AbstractVoiceOrSection, O extends Abst
      *         given unique index
      */
     public M getByUniqueIndex(int uniqueIndex) throws IndexOutOfBoundsException {        
+        M vOrS = this.findByUniqueIndex(uniqueIndex);
+        if (vOrS != null) return vOrS;
+        
+        throw new IndexOutOfBoundsException("No item with unique index " + uniqueIndex + " could be found.");
+    }
+
+    /**
+     * Finds the item with the given unique index.  The item is normally found
+     * in the unique index table; the table is verified on each lookup, and if 
+     * it is out of date (such as after deserialization or 
+     * normalizeUniqueIndices()) the list is scanned and the table repaired.
+     * 
+     * @param uniqueIndex the unique index of the item to find
+     * @return the item, or null if no item has the given unique index
+     */
+    private M findByUniqueIndex(int uniqueIndex) {
+        if (uniqueIndex >= 0 && uniqueIndex < this.uniqueIndexTable.size()) {
+            M vOrS = this.uniqueIndexTable.get(uniqueIndex);
+            if (vOrS != null && vOrS.getUniqueIndex() == uniqueIndex) return vOrS;
+        }
+        
         for (M vOrS : this.internalList) {
             if (vOrS.getUniqueIndex() == uniqueIndex) {
+                this.putInUniqueIndexTable(vOrS);
                 return vOrS;
             }
         }
         
-        throw new IndexOutOfBoundsException("No item with unique index " + uniqueIndex + " could be found.");
+        return null;
+    }
+    
+    private void putInUniqueIndexTable(M vOrS) {
+        int uniqueIndex = vOrS.getUniqueIndex();
+        if (uniqueIndex < 0) return;
+        while (this.uniqueIndexTable.size() <= uniqueIndex) this.uniqueIndexTable.add(null);
+        this.uniqueIndexTable.set(uniqueIndex, vOrS);
+    }
+    
+    /**
+     * Checks whether or not the given voice or section is in this list, using
+     * the unique index table rather than a scan of the list.
+     * 
+     * @param vOrS the voice or section
+     * @return true if the voice or section is in this list
+     */
+    boolean containsVoiceOrSection(AbstractVoiceOrSection vOrS) {
+        return this.findByUniqueIndex(vOrS.getUniqueIndex()) == vOrS;
     }
 
     @Override
@@ -116,6 +158,7 @@ public class VoiceOrSectionList<M extends AbstractVoiceOrSection, O extends Abst
     @SuppressWarnings("unchecked")
     public void add(int index, M mainVorS) {               
         internalList.add(index, mainVorS); 
+        this.putInUniqueIndexTable(mainVorS);
                 
         // the rest of this method is only intended to be run during normal
         // object usage, not during deserialization.
@@ -148,6 +191,7 @@ public class VoiceOrSectionList<M extends AbstractVoiceOrSection, O extends Abst
     @Override
     public M remove(int index) {
         M itemToRemove = this.internalList.get(index);
+        if (itemToRemove.isReadOnly()) throw new UnsupportedOperationException("Cannot remove a read-only " + itemToRemove.getClass().getSimpleName().toLowerCase() + ".");
         int voiceSectionListSize = itemToRemove.getVoiceSections().size();                
         
         // remove the related voice sections...
@@ -161,6 +205,10 @@ public class VoiceOrSectionList<M extends AbstractVoiceOrSection, O extends Abst
         
         this.modCount++;
         this.internalList.remove(index);
+        int uniqueIndex = itemToRemove.getUniqueIndex();
+        if (uniqueIndex >= 0 && uniqueIndex < this.uniqueIndexTable.size() && this.uniqueIndexTable.get(uniqueIndex) == itemToRemove) {
+            this.uniqueIndexTable.set(uniqueIndex, null);
+        }
         
         for (VoiceSection vs : voiceSectionsToRemove) {
             this.getVoiceSections().remove(vs.createHashMapKey());
@@ -234,6 +282,7 @@ public class VoiceOrSectionList<M extends AbstractVoiceOrSection, O extends Abst
         }
         
         this.lastUniqueIndex = index - 1;
+        this.uniqueIndexTable.clear();
     }
 
     @Commit
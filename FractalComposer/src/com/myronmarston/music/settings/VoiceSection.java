@@ -24,14 +24,22 @@ import com.myronmarston.music.Instrument;
 import com.myronmarston.music.Note;
 import com.myronmarston.music.NoteList;
 import com.myronmarston.music.OutputManager;
+import com.myronmarston.music.RepeatedNoteList;
 import com.myronmarston.music.scales.Scale;
+import com.myronmarston.music.transformers.SelfSimilarityTransformer;
+import com.myronmarston.util.ConcatenatedIterable;
+import com.myronmarston.util.ConcurrencyHelper;
 import com.myronmarston.util.Fraction;
+import com.myronmarston.util.MathHelper;
 import com.myronmarston.util.Publisher;
 import com.myronmarston.util.Subscriber;
 
 import org.simpleframework.xml.*;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.FutureTask;
         
 /**
  * Represents the smallest unit of the fractal piece for which the user can
@@ -65,6 +73,8 @@ public class VoiceSection implements Subscriber, Cloneable {
     private Section section;
     
     private NoteList voiceSectionResult;
+    
+    private boolean readOnly;
 
     /**
      * Constructor.
@@ -134,13 +144,15 @@ public class VoiceSection implements Subscriber, Cloneable {
      * 
      * @param overrideSectionSettings false if the default settings will be 
      *        used, true if the settings will be overriden
+     * @throws UnsupportedOperationException if this voice section is read-only
      */
     public void setOverrideSectionSettings(boolean overrideSectionSettings) {
+        this.readOnlyException();
         if (!this.overrideSectionSettings && overrideSectionSettings) {
             // the value is changing from using the default settings to overriding them,
             // so create a local settings object that is initially identical to
             // the default            
-            this.setSectionSettings(this.getSection().getSettings().clone());            
+            this.setSectionSettings(this.getSection().getSettings().getEditableCopy());            
         }
         
         this.overrideSectionSettings = overrideSectionSettings;
@@ -163,13 +175,15 @@ public class VoiceSection implements Subscriber, Cloneable {
      * 
      * @param overrideVoiceSettings false if the default settings will be 
      *        used, true if the settings will be overriden
+     * @throws UnsupportedOperationException if this voice section is read-only
      */
     public void setOverrideVoiceSettings(boolean overrideVoiceSettings) {
+        this.readOnlyException();
         if (!this.overrideVoiceSettings && overrideVoiceSettings) {
             // the value is changing from using the default settings to overriding them,
             // so create a local settings object that is initially identical to
             // the default            
-            this.setVoiceSettings(this.getVoice().getSettings().clone());            
+            this.setVoiceSettings(this.getVoice().getSettings().getEditableCopy());            
         }
         
         this.overrideVoiceSettings = overrideVoiceSettings;
@@ -228,12 +242,42 @@ public class VoiceSection implements Subscriber, Cloneable {
      * overrides all other settings. 
      * 
      * @param val whether or not to make this VoiceSection one long rest
+     * @throws UnsupportedOperationException if this voice section is read-only
      */
     public void setRest(boolean val) {
+        this.readOnlyException();
         if (val != this.rest) clearVoiceSectionResult();
         this.rest = val;
     }
 
+    /**
+     * Gets a value indicating whether or not this voice section is read-only.
+     * The voice sections of a snapshot of a fractal piece are read-only.
+     * 
+     * @return true if this voice section is read-only
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+    
+    /**
+     * If the object is read-only, throws an UnsupportedOperationException. 
+     * 
+     * @throws UnsupportedOperationException if this object is read-only
+     */
+    protected void readOnlyException() throws UnsupportedOperationException {
+        ReadOnlyHelper.readOnlyException(this.readOnly);
+    }
+    
+    /**
+     * Makes this voice section and its override settings read-only.
+     */
+    protected void makeReadOnly() {
+        this.readOnly = true;
+        if (this.sectionSettings != null) this.sectionSettings.makeReadOnly();
+        if (this.voiceSettings != null) this.voiceSettings.makeReadOnly();
+    }
+    
     /**
      * Creates a hash map key using the Voice and Section for this VoiceSection.
      * @return the hash map key
@@ -262,7 +306,7 @@ public class VoiceSection implements Subscriber, Cloneable {
      */
     public OutputManager createOutputManager() throws GermIsEmptyException {                        
         Fraction sectionDuration = this.getSection().getDuration();
-        NoteList result = this.getLengthenedVoiceSectionResult(sectionDuration);
+        RepeatedNoteList result = this.getLengthenedVoiceSectionResultView(sectionDuration);
                 
         return new OutputManager(this.getVoice().getFractalPiece(), Arrays.asList(result));
     }
@@ -275,28 +319,239 @@ public class VoiceSection implements Subscriber, Cloneable {
      * @return the voice section result, set to the given length
      */
     public NoteList getLengthenedVoiceSectionResult(Fraction length) {
+        RepeatedNoteList view = this.getLengthenedVoiceSectionResultView(length);
+        
         // get a clone of the result, so we can modify the clone rather than the original result.
         NoteList temp = this.getVoiceSectionResult().clone();
-        Fraction originalVoiceSectionLength = temp.getDuration();
-        if (originalVoiceSectionLength.compareTo(length) > 0) {
-            throw new IllegalArgumentException(String.format("The voice section length (%f) is longer than the passed argument (%f).  The passed argument must be greater than or equal to the voice section length.", originalVoiceSectionLength.asDouble(), length.asDouble()));
+        for (int i = 1; i < view.getRepeatCount(); i++) {
+            temp.addAll(this.getVoiceSectionResult());
+        }
+        if (view.getTrailingNote() != null) temp.add(view.getTrailingNote());
+        
+        assert temp.getDuration().equals(length) : temp;
+        return temp;
+    }
+    
+    /**
+     * Returns the same notes as getLengthenedVoiceSectionResult(), but as a
+     * read-only view that repeats the voice section result rather than copying
+     * it.  The returned notes are those of the voice section result itself, so
+     * they should not be modified.
+     * 
+     * @param length the length to set the voice section to
+     * @return the voice section result, set to the given length
+     */
+    public RepeatedNoteList getLengthenedVoiceSectionResultView(Fraction length) {
+        NoteList result = this.getVoiceSectionResult();
+        Fraction originalVoiceSectionLength = result.getDuration();
+        int repeatCount = getRepeatCount(originalVoiceSectionLength, length);
+        
+        // fill in the rest of the length with a rest...
+        Fraction restLength = length.minus(originalVoiceSectionLength.times(repeatCount));
+        Note rest = (restLength.compareTo(0L) > 0 ? Note.createRest(restLength) : null);
+        
+        RepeatedNoteList view = new RepeatedNoteList(result, originalVoiceSectionLength, repeatCount, rest);
+        view.setInstrument(result.getInstrument());
+        assert view.getDuration().equals(length) : view;
+        return view;
+    }
+    
+    /**
+     * Gets the number of copies of the voice section that fit in the given 
+     * length.  There is always at least one copy.
+     * 
+     * @param voiceSectionLength the length of one copy of the voice section
+     * @param length the length to fill
+     * @return the number of copies
+     * @throws IllegalArgumentException if the voice section is longer than 
+     *         the length
+     */
+    private static int getRepeatCount(Fraction voiceSectionLength, Fraction length) throws IllegalArgumentException {
+        if (voiceSectionLength.compareTo(length) > 0) {
+            throw new IllegalArgumentException(String.format("The voice section length (%f) is longer than the passed argument (%f).  The passed argument must be greater than or equal to the voice section length.", voiceSectionLength.asDouble(), length.asDouble()));
+        }
+        
+        // only pad with additional copies if we have something...
+        if (voiceSectionLength.compareTo(0L) <= 0) return 1;
+        
+        Fraction copies = length.dividedBy(voiceSectionLength);
+        long repeatCount = copies.numerator() / copies.denominator();
+        if (repeatCount > Integer.MAX_VALUE) throw new IllegalArgumentException("The voice section would be repeated more than Integer.MAX_VALUE times.");
+        return (int) repeatCount;
+    }
+    
+    /**
+     * Gets the duration of the voice section result.  If the result has not
+     * been generated yet, the duration is calculated without generating it.
+     * 
+     * @return the duration of the voice section result
+     */
+    public Fraction getVoiceSectionResultDuration() {
+        if (voiceSectionResult != null) return voiceSectionResult.getDuration();
+        
+        Scale scaleToUse = this.getScaleToUse();
+        NoteList clonedGerm = this.getClonedGerm(scaleToUse);
+        
+        if (this.getRest()) {
+            return clonedGerm.getDuration().dividedBy(this.getVoiceSettings().getSpeedScaleFactor());
         }
-                        
-        if (temp.getDuration().compareTo(0) > 0) { // only do this if we have something...
-            // pad the length with additional copies of the entire voice section 
-            // while there is space left...
-            while (temp.getDuration().plus(originalVoiceSectionLength).compareTo(length) <= 0) {
-                temp.addAll(this.getVoiceSectionResult());
+        
+        NoteList temp = this.getSectionSettings().applySettingsToNoteList(clonedGerm, scaleToUse);
+        return this.getVoiceSettings().getDurationOfSettingsAppliedToNoteList(temp, scaleToUse);
+    }
+    
+    /**
+     * Gets the number of notes in the voice section result.  If the result 
+     * has not been generated yet, the number is calculated without generating
+     * it.
+     * 
+     * @return the number of notes in the voice section result, or 
+     *         Long.MAX_VALUE if there are too many to count
+     */
+    public long getVoiceSectionResultNoteCount() {
+        if (voiceSectionResult != null) return voiceSectionResult.size();
+        
+        Scale scaleToUse = this.getScaleToUse();
+        NoteList clonedGerm = this.getClonedGerm(scaleToUse);
+        
+        if (this.getRest()) return this.createRestResult(clonedGerm).size();
+        
+        NoteList temp = this.getSectionSettings().applySettingsToNoteList(clonedGerm, scaleToUse);
+        return this.getVoiceSettings().getNoteCountOfSettingsAppliedToNoteList(temp, scaleToUse);
+    }
+    
+    /**
+     * Gets the number of notes in getLengthenedVoiceSectionResult(), without
+     * generating the voice section result.
+     * 
+     * @param length the length to set the voice section to
+     * @return the number of notes, or Long.MAX_VALUE if there are too many to
+     *         count
+     * @throws IllegalArgumentException if the voice section is longer than 
+     *         the length
+     */
+    public long getLengthenedVoiceSectionResultNoteCount(Fraction length) throws IllegalArgumentException {
+        Fraction originalVoiceSectionLength = this.getVoiceSectionResultDuration();
+        int repeatCount = getRepeatCount(originalVoiceSectionLength, length);
+        boolean hasTrailingRest = length.compareTo(originalVoiceSectionLength.times(repeatCount)) > 0;
+        
+        long noteCount = MathHelper.saturatedMultiply(this.getVoiceSectionResultNoteCount(), repeatCount);
+        return MathHelper.saturatedAdd(noteCount, (hasTrailingRest ? 1 : 0));
+    }
+    
+    /**
+     * Calculates a midi tick resolution that can represent the timing of every
+     * note this voice section produces, using only the germ and the speed and
+     * self-similarity settings, so the voice section result is not generated.
+     * This is the least common multiple of the denominators of every duration
+     * the voice section could produce, so it may be larger than the resolution
+     * found by examining the generated notes.
+     * 
+     * @return the midi tick resolution, or Long.MAX_VALUE if it is too large
+     *         to be represented as a long
+     */
+    public long calculateMidiTickResolution() {
+        NoteList germ = this.getSection().getGermForSection();
+        if (germ.isEmpty()) return 1L;
+        
+        // a rest voice section is only scaled by the voice's speed...
+        Fraction speedScaleFactor = this.getVoiceSettings().getSpeedScaleFactor();
+        if (!this.getRest()) speedScaleFactor = speedScaleFactor.times(this.getSectionSettings().getSpeedScaleFactor());
+        
+        List<Fraction> durations = new ArrayList<Fraction>(germ.size());
+        for (Note n : germ) durations.add(n.getDuration().dividedBy(speedScaleFactor));
+        
+        // each level of self-similarity scales the copies of the previous 
+        // level by the ratio of the first note's duration to a germ note's...
+        List<Fraction> rhythmRatios = new ArrayList<Fraction>(germ.size());
+        SelfSimilaritySettings selfSimilaritySettings = this.getVoiceSettings().getSelfSimilaritySettings();
+        int levels = 0;
+        if (!this.getRest() && selfSimilaritySettings.getApplyToRhythm()) {
+            // the retrograde reverses the germ, so its first audible note is
+            // the germ's last audible note
+            Note firstNote = null;
+            for (Note n : germ) {
+                if (n.isRest()) continue;
+                if (firstNote == null || this.getSectionSettings().getApplyRetrograde()) firstNote = n;
             }
-        }        
+            
+            if (firstNote != null) {
+                levels = selfSimilaritySettings.getSelfSimilarityIterations();
+                for (Note n : germ) rhythmRatios.add(firstNote.getDuration().dividedBy(n.getDuration()));
+            }
+        }
+        
+        return MathHelper.leastCommonMultipleOfProductDenominators(durations, rhythmRatios, levels);
+    }
+    
+    /**
+     * Returns the same notes as getLengthenedVoiceSectionResult(), but as 
+     * an Iterable that generates the notes as they are iterated over, rather 
+     * than building the entire note list in memory.  The returned notes 
+     * should not be modified.
+     * 
+     * @param length the length to set the voice section to
+     * @return the voice section result, set to the given length
+     */
+    public Iterable<Note> getLengthenedVoiceSectionResultStream(Fraction length) {
+        Fraction originalVoiceSectionLength = this.getVoiceSectionResultDuration();
+        int repeatCount = getRepeatCount(originalVoiceSectionLength, length);
+        
+        Iterable<Note> voiceSectionResultStream = new Iterable<Note>() {
+            public Iterator<Note> iterator() {
+                return iterateVoiceSectionResult();
+            }
+        };
+        
+        List<Iterable<Note>> streams = new ArrayList<Iterable<Note>>(repeatCount + 1);
+        for (int i = 0; i < repeatCount; i++) {
+            streams.add(voiceSectionResultStream);
+        }
         
         // fill in the rest of the length with a rest...
-        if (temp.getDuration().compareTo(length) < 0) {
-            temp.add(Note.createRest(length.minus(temp.getDuration())));
+        Fraction restLength = length.minus(originalVoiceSectionLength.times(repeatCount));
+        if (restLength.compareTo(0L) > 0) {
+            streams.add(Arrays.asList(Note.createRest(restLength)));
         }
         
-        assert temp.getDuration().equals(length) : temp;
-        return temp;
+        return new ConcatenatedIterable<Note>(streams);
+    }
+    
+    /**
+     * Gets an iterator over the voice section result.  If the result has 
+     * already been generated, it is used; otherwise, the notes are generated
+     * as they are iterated over.
+     * 
+     * @return an iterator over the voice section result
+     */
+    private Iterator<Note> iterateVoiceSectionResult() {
+        if (voiceSectionResult != null || this.getRest()) return this.getVoiceSectionResult().iterator();
+        
+        // if an identical voice section has already been generated, copying
+        // its result is cheaper than generating the notes again...
+        if (VoiceSectionResultCache.getInstance().containsKey(this.createResultCacheKey())) {
+            return this.getVoiceSectionResult().iterator();
+        }
+        
+        Scale scaleToUse = this.getScaleToUse();
+        NoteList temp = this.getSectionSettings().applySettingsToNoteList(this.getClonedGerm(scaleToUse), scaleToUse);
+        final Iterator<Note> notes = this.getVoiceSettings().iterateSettingsAppliedToNoteList(temp, scaleToUse);
+        
+        return new Iterator<Note>() {
+            public boolean hasNext() {
+                return notes.hasNext();
+            }
+
+            public Note next() {
+                Note n = notes.next();
+                n.setSourceVoiceSection(VoiceSection.this);
+                return n;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException("This iterator does not support removal.");
+            }
+        };
     }
     
     /**
@@ -304,39 +559,181 @@ public class VoiceSection implements Subscriber, Cloneable {
      * that affects the voiceSectionResult changes. 
      */
     protected void clearVoiceSectionResult() {
+        if (this.getVoice().getFractalPiece().deferVoiceSectionResultInvalidation(this)) return;
         this.voiceSectionResult = null;
     }
     
     /**
-     * Generates the NoteList containing the result of applying this 
-     * VoiceSection's settings to the germ.
+     * Creates the key used to look up this voice section's result in the
+     * VoiceSectionResultCache.
+     * 
+     * @return the cache key
+     */
+    protected VoiceSectionResultCacheKey createResultCacheKey() {
+        FractalPiece fp = this.getSection().getFractalPiece();
+        return new VoiceSectionResultCacheKey(fp.getGermString(), fp.getScale(), this.getScaleToUse(), this.getSectionSettings(), this.getVoiceSettings(), this.getRest());
+    }
+    
+    /**
+     * Gets the NoteList containing the result of applying this VoiceSection's
+     * settings to the germ.  While the piece result is being generated, voice
+     * sections with the same inputs only generate the result once (see 
+     * FractalPiece.getDistinctVoiceSectionResults()).
      * 
      * @return a NoteList containing the result of applying the settings to the 
      *         germ
      */
     private NoteList generateVoiceSectionResult() {
-        NoteList clonedGerm = this.getSection().getGermForSection().clone(); 
-        Scale sectionScale = this.getSection().getScale();
-        Scale scaleToUse = (sectionScale == null ? this.getSection().getFractalPiece().getScale() : sectionScale);
-        clonedGerm.updateScale(scaleToUse);
+        final VoiceSectionResultCacheKey key = this.createResultCacheKey();
+        ConcurrentMap<VoiceSectionResultCacheKey, FutureTask<NoteList>> distinctResults = this.getVoice().getFractalPiece().getDistinctVoiceSectionResults();
+        if (distinctResults == null) return this.generateVoiceSectionResult(key);
+        
+        // if another voice section with the same inputs has already started
+        // on this result while generating the piece, we copy its result...
+        FutureTask<NoteList> task = new FutureTask<NoteList>(new Callable<NoteList>() {
+            public NoteList call() {
+                return VoiceSection.this.generateVoiceSectionResult(key);
+            }
+        });
+        FutureTask<NoteList> existingTask = distinctResults.putIfAbsent(key, task);
+        if (existingTask == null) {
+            task.run();
+            return ConcurrencyHelper.getResult(task);
+        }
+        
+        return this.copySharedVoiceSectionResult(ConcurrencyHelper.getResult(existingTask));
+    }
+    
+    /**
+     * Generates the NoteList containing the result of applying this 
+     * VoiceSection's settings to the germ.  The shared VoiceSectionResultCache
+     * is checked first; the result is generated and added to the cache if it
+     * is not there.
+     * 
+     * @param key the result cache key of this voice section
+     * @return a NoteList containing the result of applying the settings to the 
+     *         germ
+     */
+    private NoteList generateVoiceSectionResult(VoiceSectionResultCacheKey key) {
+        VoiceSectionResultCache cache = VoiceSectionResultCache.getInstance();
+        NoteList sharedResult = cache.get(key);
+        if (sharedResult != null) return this.copySharedVoiceSectionResult(sharedResult);
+        
+        NoteList temp = this.generateUncachedVoiceSectionResult();
+        cache.put(key, temp.getReadOnlyCopy());
+        temp.setSourceVoiceSectionOnAllNotes(this);
+        return temp;
+    }
+    
+    /**
+     * Gets our own copy of a result that was generated for a voice section 
+     * with the same inputs, which may belong to another piece.  Its notes may
+     * use a different (but equal) scale instance, so, as with the germs of 
+     * the GermParseCache, the copy is updated to use the scale instance of 
+     * this voice section.  The notes are copied anyway to set the source 
+     * voice section on them, so this costs no extra copy.
+     * 
+     * @param sharedResult the shared result
+     * @return the copy
+     */
+    private NoteList copySharedVoiceSectionResult(NoteList sharedResult) {
+        NoteList temp = sharedResult.clone();
+        temp.updateScale(this.getScaleToUse());
+        temp.setSourceVoiceSectionOnAllNotes(this);
+        return temp;
+    }
+    
+    /**
+     * Generates the NoteList containing the result of applying this 
+     * VoiceSection's settings to the germ, without using the cache.  The 
+     * source voice section is not set on the notes.
+     * 
+     * @return a NoteList containing the result of applying the settings to the 
+     *         germ
+     */
+    private NoteList generateUncachedVoiceSectionResult() {
+        Scale scaleToUse = this.getScaleToUse();
+        NoteList clonedGerm = this.getClonedGerm(scaleToUse);
         NoteList temp = null;
         
         if (this.getRest()) {            
-            // scale the duration according to the speed of this voice...
-            Fraction duration = clonedGerm.getDuration();            
-            duration = duration.dividedBy(this.getVoiceSettings().getSpeedScaleFactor());
-            
-            // create a note list of a single rest, the duration of the germ            
-            temp = new NoteList();
-            if (duration.compareTo(0L) > 0) temp.add(Note.createRest(duration));                                    
+            temp = this.createRestResult(clonedGerm);
         } else {
             temp = this.getSectionSettings().applySettingsToNoteList(clonedGerm, scaleToUse);
-            temp = this.getVoiceSettings().applySettingsToNoteList(temp, scaleToUse);               
+            temp = this.getVoiceSettings().applySettingsToNoteList(temp, scaleToUse, this.getVoice().getFractalPiece().getVoiceGenerationExecutor());               
         }
                 
-        temp.setSourceVoiceSectionOnAllNotes(this);
         return temp;
     }        
+    
+    /**
+     * Creates the result for a voice section that is a rest: a note list of a
+     * single rest, the duration of the germ at the speed of this voice.
+     * 
+     * @param clonedGerm the cloned germ
+     * @return the rest result
+     */
+    private NoteList createRestResult(NoteList clonedGerm) {
+        // scale the duration according to the speed of this voice...
+        Fraction duration = clonedGerm.getDuration();            
+        duration = duration.dividedBy(this.getVoiceSettings().getSpeedScaleFactor());
+        
+        // create a note list of a single rest, the duration of the germ            
+        NoteList temp = new NoteList();
+        if (duration.compareTo(0L) > 0) temp.add(Note.createRest(duration));                                    
+        return temp;
+    }
+    
+    /**
+     * Creates an index that gives random access to the notes of the voice 
+     * section result without generating it.  Note k of the index is the same
+     * as note k of getVoiceSectionResult(), including its source voice 
+     * section.  This is useful for seeking and for rendering a window of a 
+     * very deep piece.
+     * 
+     * @return the index
+     * @throws UnsupportedOperationException if the result has more than 
+     *         Long.MAX_VALUE notes
+     */
+    public SelfSimilarityTransformer.FractalIndex getFractalIndex() throws UnsupportedOperationException {
+        Scale scaleToUse = this.getScaleToUse();
+        NoteList clonedGerm = this.getClonedGerm(scaleToUse);
+        SelfSimilarityTransformer.FractalIndex index;
+        
+        if (this.getRest()) {
+            // a rest has no self-similarity; the index just holds the rest...
+            index = new SelfSimilarityTransformer(false, false, false, 1).createFractalIndex(this.createRestResult(clonedGerm));
+        } else {
+            NoteList temp = this.getSectionSettings().applySettingsToNoteList(clonedGerm, scaleToUse);
+            index = this.getVoiceSettings().createFractalIndex(temp, scaleToUse);
+        }
+        
+        index.setSourceVoiceSection(this);
+        return index;
+    }
+    
+    /**
+     * Gets the scale to use for this voice section: the section's scale if it
+     * has one, or the piece's scale otherwise.
+     * 
+     * @return the scale to use
+     */
+    private Scale getScaleToUse() {
+        Scale sectionScale = this.getSection().getScale();
+        return (sectionScale == null ? this.getSection().getFractalPiece().getScale() : sectionScale);
+    }
+    
+    /**
+     * Gets a clone of the section's germ, updated to use the given scale.
+     * 
+     * @param scaleToUse the scale to use
+     * @return the cloned germ
+     */
+    private NoteList getClonedGerm(Scale scaleToUse) {
+        NoteList clonedGerm = this.getSection().getGermForSection().clone(); 
+        clonedGerm.updateScale(scaleToUse);
+        return clonedGerm;
+    }
 
     public void publisherNotification(Publisher p, Object args) {   
         assert p == this.sectionSettings || p == this.voiceSettings : p;        
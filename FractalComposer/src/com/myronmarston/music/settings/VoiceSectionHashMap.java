@@ -26,7 +26,11 @@ import java.util.*;
 /**
  * Contains all voice sections for the entire fractal piece, keyed by 
  * voice and section.  In addition, this provides support to serialize the
- * map to XML in a deterministic fashion.
+ * map to XML in a deterministic fashion.  The voice sections are also kept
+ * in a dense table indexed by the unique indices of the voice and section,
+ * so that get(Voice, Section) can find them without allocating and hashing
+ * a key.  The table is not serialized or shared with clones; it is rebuilt
+ * from the hash map on the first lookup that needs it.
  * 
  * @author Myron
  */
@@ -38,6 +42,114 @@ public class VoiceSectionHashMap extends HashMap<VoiceSectionHashMapKey, VoiceSe
     @ElementList(type=VoiceSection.class, required=true)
     private List<VoiceSection> serializableVoiceSections;
     
+    private transient VoiceSection[][] uniqueIndexTable;
+    
+    /**
+     * Gets the voice section for the given voice and section.  This is 
+     * equivalent to get(new VoiceSectionHashMapKey(voice, section)), but the
+     * voice section is normally found in the unique index table.  The table is
+     * verified on each lookup and repaired from the hash map when the unique
+     * indices have changed (such as after normalizeUniqueIndices()).
+     * 
+     * @param voice the voice
+     * @param section the section
+     * @return the voice section, or null if there is none
+     */
+    public VoiceSection get(Voice voice, Section section) {
+        if (this.uniqueIndexTable == null) this.rebuildUniqueIndexTable();
+        VoiceSection vs = this.getFromUniqueIndexTable(voice.getUniqueIndex(), section.getUniqueIndex());
+        if (vs != null && vs.getVoice() == voice && vs.getSection() == section) return vs;
+        
+        vs = this.get(new VoiceSectionHashMapKey(voice, section));
+        if (vs != null) this.putInUniqueIndexTable(vs);
+        return vs;
+    }
+    
+    private void rebuildUniqueIndexTable() {
+        this.uniqueIndexTable = new VoiceSection[0][];
+        for (VoiceSection vs : this.values()) this.putInUniqueIndexTable(vs);
+    }
+    
+    private VoiceSection getFromUniqueIndexTable(int voiceUniqueIndex, int sectionUniqueIndex) {
+        if (this.uniqueIndexTable == null) return null;
+        if (voiceUniqueIndex < 0 || voiceUniqueIndex >= this.uniqueIndexTable.length) return null;
+        VoiceSection[] row = this.uniqueIndexTable[voiceUniqueIndex];
+        if (row == null || sectionUniqueIndex < 0 || sectionUniqueIndex >= row.length) return null;
+        return row[sectionUniqueIndex];
+    }
+    
+    private void putInUniqueIndexTable(VoiceSection vs) {
+        // the table is rebuilt from the hash map on the next lookup
+        if (this.uniqueIndexTable == null) return;
+        
+        // during deserialization, the voice and section may not be set yet;
+        // the table will be repaired on the first lookup
+        if (vs.getVoice() == null || vs.getSection() == null) return;
+        int voiceUniqueIndex = vs.getVoice().getUniqueIndex();
+        int sectionUniqueIndex = vs.getSection().getUniqueIndex();
+        if (voiceUniqueIndex < 0 || sectionUniqueIndex < 0) return;
+        
+        if (voiceUniqueIndex >= this.uniqueIndexTable.length) {
+            this.uniqueIndexTable = Arrays.copyOf(this.uniqueIndexTable, Math.max(voiceUniqueIndex + 1, this.uniqueIndexTable.length * 2));
+        }
+        
+        VoiceSection[] row = this.uniqueIndexTable[voiceUniqueIndex];
+        if (row == null) {
+            row = new VoiceSection[Math.max(sectionUniqueIndex + 1, 8)];
+        } else if (sectionUniqueIndex >= row.length) {
+            row = Arrays.copyOf(row, Math.max(sectionUniqueIndex + 1, row.length * 2));
+        }
+        
+        row[sectionUniqueIndex] = vs;
+        this.uniqueIndexTable[voiceUniqueIndex] = row;
+    }
+    
+    private void removeFromUniqueIndexTable(VoiceSection vs) {
+        if (vs.getVoice() == null || vs.getSection() == null) return;
+        int voiceUniqueIndex = vs.getVoice().getUniqueIndex();
+        int sectionUniqueIndex = vs.getSection().getUniqueIndex();
+        if (this.getFromUniqueIndexTable(voiceUniqueIndex, sectionUniqueIndex) == vs) {
+            this.uniqueIndexTable[voiceUniqueIndex][sectionUniqueIndex] = null;
+        }
+    }
+
+    @Override
+    public VoiceSection put(VoiceSectionHashMapKey key, VoiceSection value) {
+        VoiceSection previous = super.put(key, value);
+        if (previous != null) this.removeFromUniqueIndexTable(previous);
+        if (value != null) this.putInUniqueIndexTable(value);
+        return previous;
+    }
+
+    @Override
+    public void putAll(Map<? extends VoiceSectionHashMapKey, ? extends VoiceSection> m) {
+        for (Map.Entry<? extends VoiceSectionHashMapKey, ? extends VoiceSection> entry : m.entrySet()) {
+            this.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public VoiceSection remove(Object key) {
+        VoiceSection removed = super.remove(key);
+        if (removed != null) this.removeFromUniqueIndexTable(removed);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.uniqueIndexTable = null;
+    }
+
+    @Override
+    public VoiceSectionHashMap clone() {
+        // HashMap.clone() copies the field, so the clone would otherwise share
+        // (and change) the unique index table of this map
+        VoiceSectionHashMap clone = (VoiceSectionHashMap) super.clone();
+        clone.uniqueIndexTable = null;
+        return clone;
+    }
+    
     @Persist
     private void prepareForXmlSerialization() {
         // fractalcomposer.com compares serialized xml strings to see if
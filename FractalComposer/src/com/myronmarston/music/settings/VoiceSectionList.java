@@ -20,15 +20,14 @@
 package com.myronmarston.music.settings;
 
 import java.util.AbstractList;
-import java.util.Map;
 
 /**
  * An instance of this contains a subset of all the VoiceSections of the
  * entire fractal piece.  Specifically, it contains all the VoiceSections
  * for a particular voice or for a particular section.
  * None of the VoiceSections are actually stored here; instead, all voice 
- * sections for a fractal piece are stored in a hash table, and this delegates 
- * to that.  This list is unmodifiable by design.  
+ * sections for a fractal piece are stored in a hash table (indexed by the
+ * unique indices of the voices and sections), and this delegates to that.  This list is unmodifiable by design.  
  * According to the javadocs, I only have to implement get(int index) 
  * and size() to implement a unmodifiable list.  The AbstractList implements 
  * the other methods by using these.
@@ -36,26 +35,21 @@ import java.util.Map;
  * @author Myron
  */
 public class VoiceSectionList extends AbstractList<VoiceSection> {       
-    private Map<VoiceSectionHashMapKey, VoiceSection> voiceSectionHash;
     private AbstractVoiceOrSection constantVoiceOrSection;
 
     /**
      * Constructor.
      * 
-     * @param voiceSectionHash HashMap that stores all the VoiceSections for
-     *        the entire FractalPiece
      * @param constantVoiceOrSection the Voice or Section that is constant for
      *        all VoiceSections in this list
      */
-    public VoiceSectionList(Map<VoiceSectionHashMapKey, VoiceSection> voiceSectionHash, AbstractVoiceOrSection constantVoiceOrSection) {
-        this.voiceSectionHash = voiceSectionHash;
+    public VoiceSectionList(AbstractVoiceOrSection constantVoiceOrSection) {
         this.constantVoiceOrSection = constantVoiceOrSection;
     }    
     
     @Override
     public VoiceSection get(int index) {
-        VoiceSectionHashMapKey key = this.constantVoiceOrSection.getHashMapKeyForOtherTypeIndex(index);
-        return this.voiceSectionHash.get(key);
+        return this.constantVoiceOrSection.getVoiceSectionForOtherTypeIndex(index);
     }
     
     /**
@@ -66,13 +60,12 @@ public class VoiceSectionList extends AbstractList<VoiceSection> {
      * @return the appropriate voiceSection
      */
     public VoiceSection getByOtherTypeUniqueIndex(int uniqueIndex) {        
-        VoiceSectionHashMapKey key = this.constantVoiceOrSection.getHashMapKeyForOtherTypeUniqueIndex(uniqueIndex);
-        return this.voiceSectionHash.get(key);
+        return this.constantVoiceOrSection.getVoiceSectionForOtherTypeUniqueIndex(uniqueIndex);
     }
 
     @Override
     public int size() {
-        if (this.constantVoiceOrSection.getListOfMainType().contains(this.constantVoiceOrSection)) {
+        if (this.constantVoiceOrSection.getListOfMainType().containsVoiceOrSection(this.constantVoiceOrSection)) {
             return this.constantVoiceOrSection.getListOfOtherType().size();
         }        
         
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+import com.myronmarston.music.NoteList;
+
+import java.util.*;
+
+/**
+ * A size-bounded, least-recently-used cache of voice section results, shared
+ * by all FractalPieces in this process.  Results are keyed by their content
+ * (see VoiceSectionResultCacheKey), so identical voice sections in different
+ * pieces only need to be generated once.  The cached results are read-only and
+ * have no source voice section set on their notes; each VoiceSection works
+ * with its own clone.
+ * 
+ * @author Myron
+ */
+public class VoiceSectionResultCache {
+    
+    /**
+     * The default maximum number of notes held by the shared cache.
+     */
+    public static final int DEFAULT_MAX_NOTE_COUNT = 250000;
+    
+    private static final VoiceSectionResultCache instance = new VoiceSectionResultCache(DEFAULT_MAX_NOTE_COUNT);
+    
+    // access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<VoiceSectionResultCacheKey, NoteList> results = new LinkedHashMap<VoiceSectionResultCacheKey, NoteList>(16, 0.75f, true);
+    private int maxNoteCount;
+    private int noteCount;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxNoteCount the maximum number of notes to hold in the cache
+     */
+    public VoiceSectionResultCache(int maxNoteCount) {
+        this.setMaxNoteCount(maxNoteCount);
+    }
+    
+    /**
+     * Gets the cache shared by all FractalPieces.
+     * 
+     * @return the shared cache
+     */
+    public static VoiceSectionResultCache getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Gets the cached result for the given key, and counts the hit or miss.
+     * 
+     * @param key the key
+     * @return the read-only result, or null if it is not cached
+     */
+    public synchronized NoteList get(VoiceSectionResultCacheKey key) {
+        NoteList result = results.get(key);
+        if (result == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return result;
+    }
+    
+    /**
+     * Checks whether or not a result is cached for the given key.  Unlike 
+     * get(), this does not count a hit or miss or mark the entry as used.
+     * 
+     * @param key the key
+     * @return true if a result is cached for the key
+     */
+    public synchronized boolean containsKey(VoiceSectionResultCacheKey key) {
+        return results.containsKey(key);
+    }
+    
+    /**
+     * Adds a result to the cache, evicting the least recently used results as
+     * necessary to stay within the maximum note count.  Results larger than the
+     * maximum note count are not cached.
+     * 
+     * @param key the key
+     * @param result the read-only result
+     * @throws IllegalArgumentException if the result is not read-only
+     */
+    public synchronized void put(VoiceSectionResultCacheKey key, NoteList result) throws IllegalArgumentException {
+        if (!result.isReadOnly()) throw new IllegalArgumentException("Only read-only results may be cached, since they are shared.");
+        if (getWeight(result) > maxNoteCount) return;
+        
+        NoteList previous = results.put(key, result);
+        if (previous != null) noteCount -= getWeight(previous);
+        noteCount += getWeight(result);
+        this.evictToMaxNoteCount();
+    }
+    
+    /**
+     * Removes all results from the cache and resets the statistics.
+     */
+    public synchronized void clear() {
+        results.clear();
+        noteCount = 0;
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+    
+    /**
+     * Gets the maximum number of notes to hold in the cache.
+     * 
+     * @return the maximum note count
+     */
+    public synchronized int getMaxNoteCount() {
+        return maxNoteCount;
+    }
+
+    /**
+     * Sets the maximum number of notes to hold in the cache.  Set this to zero
+     * to disable caching.
+     * 
+     * @param maxNoteCount the maximum note count
+     * @throws IllegalArgumentException if maxNoteCount is negative
+     */
+    public synchronized void setMaxNoteCount(int maxNoteCount) throws IllegalArgumentException {
+        if (maxNoteCount < 0) throw new IllegalArgumentException("The maximum note count must not be negative.");
+        this.maxNoteCount = maxNoteCount;
+        this.evictToMaxNoteCount();
+    }
+    
+    /**
+     * Gets the number of results in the cache.
+     * 
+     * @return the number of results
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+    
+    /**
+     * Gets the number of notes held by the cache.
+     * 
+     * @return the note count
+     */
+    public synchronized int getNoteCount() {
+        return noteCount;
+    }
+
+    /**
+     * Gets the number of lookups that found a cached result.
+     * 
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups that did not find a cached result.
+     * 
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of results that have been evicted to stay within the 
+     * maximum note count.
+     * 
+     * @return the eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    /**
+     * Evicts the least recently used results until the note count is within
+     * the maximum.
+     */
+    private void evictToMaxNoteCount() {
+        Iterator<NoteList> iterator = results.values().iterator();
+        while (noteCount > maxNoteCount && iterator.hasNext()) {
+            noteCount -= getWeight(iterator.next());
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+    
+    /**
+     * Gets the weight of a result.  Empty results still count as one, so the
+     * number of entries stays bounded.
+     * 
+     * @param result the result
+     * @return the weight
+     */
+    private static int getWeight(NoteList result) {
+        return result.size() + 1;
+    }
+}
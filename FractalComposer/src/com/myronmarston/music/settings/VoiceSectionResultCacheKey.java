@@ -0,0 +1,112 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+import com.myronmarston.music.scales.Scale;
+
+/**
+ * Identifies the content of a voice section result, independent of the 
+ * FractalPiece, Voice and Section that produced it.  Two voice sections with
+ * equal keys always generate identical notes, so this is used as the key for
+ * the VoiceSectionResultCache.
+ * 
+ * @author Myron
+ */
+public class VoiceSectionResultCacheKey {
+    private final String germString;
+    private final Scale germScale;
+    private final Scale scale;
+    private final SectionSettings sectionSettings;
+    private final VoiceSettings voiceSettings;
+    private final boolean rest;
+    private final int hash;
+
+    /**
+     * Constructor.  Read-only copies of the settings are stored, so later 
+     * changes to the passed settings will not affect this key.
+     * 
+     * @param germString the germ string of the piece
+     * @param germScale the scale the germ string is parsed with
+     * @param scale the scale the voice section uses
+     * @param sectionSettings the effective section settings
+     * @param voiceSettings the effective voice settings
+     * @param rest whether or not the voice section is a rest
+     */
+    public VoiceSectionResultCacheKey(String germString, Scale germScale, Scale scale, SectionSettings sectionSettings, VoiceSettings voiceSettings, boolean rest) {
+        this.germString = germString;
+        this.germScale = germScale;
+        this.scale = scale;
+        this.sectionSettings = (sectionSettings == null || sectionSettings.isReadOnly() ? sectionSettings : sectionSettings.getReadOnlyCopy());
+        this.voiceSettings = (voiceSettings == null || voiceSettings.isReadOnly() ? voiceSettings : voiceSettings.getReadOnlyCopy());
+        this.rest = rest;
+        this.hash = this.calculateHashCode();
+    }
+
+    // equals() and hashCode() were generated by Netbeans IDE; the hash code
+    // is calculated once since the key is immutable.
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final VoiceSectionResultCacheKey other = (VoiceSectionResultCacheKey) obj;
+        if (this.hash != other.hash) {
+            return false;
+        }
+        if (this.rest != other.rest) {
+            return false;
+        }
+        if (this.germString != other.germString && (this.germString == null || !this.germString.equals(other.germString))) {
+            return false;
+        }
+        if (this.germScale != other.germScale && (this.germScale == null || !this.germScale.equals(other.germScale))) {
+            return false;
+        }
+        if (this.scale != other.scale && (this.scale == null || !this.scale.equals(other.scale))) {
+            return false;
+        }
+        if (this.sectionSettings != other.sectionSettings && (this.sectionSettings == null || !this.sectionSettings.equals(other.sectionSettings))) {
+            return false;
+        }
+        if (this.voiceSettings != other.voiceSettings && (this.voiceSettings == null || !this.voiceSettings.equals(other.voiceSettings))) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private int calculateHashCode() {
+        int h = 5;
+        h = 59 * h + (this.germString != null ? this.germString.hashCode() : 0);
+        h = 59 * h + (this.germScale != null ? this.germScale.hashCode() : 0);
+        h = 59 * h + (this.scale != null ? this.scale.hashCode() : 0);
+        h = 59 * h + (this.sectionSettings != null ? this.sectionSettings.hashCode() : 0);
+        h = 59 * h + (this.voiceSettings != null ? this.voiceSettings.hashCode() : 0);
+        h = 59 * h + (this.rest ? 1 : 0);
+        return h;
+    }
+}
@@ -19,6 +19,7 @@
 
 package com.myronmarston.music.settings;
 
+import com.myronmarston.music.Note;
 import com.myronmarston.music.NoteList;
 import com.myronmarston.music.scales.Scale;
 import com.myronmarston.music.transformers.*;
@@ -27,6 +28,9 @@ import com.myronmarston.util.Publisher;
 import com.myronmarston.util.Subscriber;
 import org.simpleframework.xml.*;
 
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+
 /**
  * Specifies settings for a voice.  
  * 
@@ -67,6 +71,16 @@ public class VoiceSettings extends AbstractVoiceOrSectionSettings implements Sub
      */
     public void setSelfSimilaritySettings(SelfSimilaritySettings selfSimilaritySettings) throws UnsupportedOperationException {
         this.readOnlyException();
+        this.attachSelfSimilaritySettings(selfSimilaritySettings);
+    }
+    
+    /**
+     * Replaces the self-similarity settings without checking whether or not 
+     * this object is read-only, so that read-only objects can still be cloned.
+     * 
+     * @param selfSimilaritySettings the new self-similarity settings
+     */
+    private void attachSelfSimilaritySettings(SelfSimilaritySettings selfSimilaritySettings) {
         if (this.selfSimilaritySettings != null) this.selfSimilaritySettings.removeSubscriber(this);        
         this.selfSimilaritySettings = selfSimilaritySettings;                
         if (this.selfSimilaritySettings != null) this.selfSimilaritySettings.addSubscriber(this);        
@@ -88,9 +102,84 @@ public class VoiceSettings extends AbstractVoiceOrSectionSettings implements Sub
 
     @Override    
     public NoteList applySettingsToNoteList(NoteList noteList, Scale scale) {        
-        SelfSimilarityTransformer selfSimilarityT = new SelfSimilarityTransformer(this.getSelfSimilaritySettings());
+        return this.applySettingsToNoteList(noteList, scale, null);
+    }
+    
+    /**
+     * Applies these settings to the given note list, using the given executor
+     * to generate large self-similarity levels in parallel.
+     * 
+     * @param noteList the note list to apply the settings to
+     * @param scale the scale to use in conjunction with the settings
+     * @param executor the executor to use, or null to apply the settings on
+     *        the calling thread
+     * @return the result of applying the settings to the note list
+     */
+    public NoteList applySettingsToNoteList(NoteList noteList, Scale scale, Executor executor) {        
+        NoteList temp = super.applySettingsToNoteList(noteList, scale);
+        
+        // the result of the other settings is already a new list, so we don't
+        // need the copy the self-similarity transformer makes when it has 
+        // nothing to apply...
+        if (!this.getSelfSimilaritySettings().selfSimilarityShouldBeAppliedToSomething()) return temp;
         
-        return selfSimilarityT.transform(super.applySettingsToNoteList(noteList, scale));        
+        SelfSimilarityTransformer selfSimilarityT = new SelfSimilarityTransformer(this.getSelfSimilaritySettings());
+        selfSimilarityT.setExecutor(executor);
+        return selfSimilarityT.transform(temp);        
+    }
+    
+    /**
+     * Applies these settings to the given note list, like 
+     * applySettingsToNoteList(), but generates the self-similar result one 
+     * note at a time rather than building the entire note list in memory.
+     * 
+     * @param noteList the note list to apply the settings to
+     * @param scale the scale to use in conjunction with the settings
+     * @return an iterator over the result of applying the settings
+     */
+    public Iterator<Note> iterateSettingsAppliedToNoteList(NoteList noteList, Scale scale) {
+        SelfSimilarityTransformer selfSimilarityT = new SelfSimilarityTransformer(this.getSelfSimilaritySettings());
+        return selfSimilarityT.iterator(super.applySettingsToNoteList(noteList, scale));
+    }
+    
+    /**
+     * Creates an index that gives random access to the result of applying 
+     * these settings to the given note list, without generating the result.
+     * 
+     * @param noteList the note list to apply the settings to
+     * @param scale the scale to use in conjunction with the settings
+     * @return the index
+     */
+    public SelfSimilarityTransformer.FractalIndex createFractalIndex(NoteList noteList, Scale scale) {
+        SelfSimilarityTransformer selfSimilarityT = new SelfSimilarityTransformer(this.getSelfSimilaritySettings());
+        return selfSimilarityT.createFractalIndex(super.applySettingsToNoteList(noteList, scale));
+    }
+    
+    /**
+     * Gets the duration of the result of applying these settings to the given
+     * note list, without generating the result.
+     * 
+     * @param noteList the note list to apply the settings to
+     * @param scale the scale to use in conjunction with the settings
+     * @return the duration of the result
+     */
+    public Fraction getDurationOfSettingsAppliedToNoteList(NoteList noteList, Scale scale) {
+        SelfSimilarityTransformer selfSimilarityT = new SelfSimilarityTransformer(this.getSelfSimilaritySettings());
+        return selfSimilarityT.getTransformedDuration(super.applySettingsToNoteList(noteList, scale));
+    }
+    
+    /**
+     * Gets the number of notes in the result of applying these settings to 
+     * the given note list, without generating the result.
+     * 
+     * @param noteList the note list to apply the settings to
+     * @param scale the scale to use in conjunction with the settings
+     * @return the number of notes in the result, or Long.MAX_VALUE if there
+     *         are too many to count
+     */
+    public long getNoteCountOfSettingsAppliedToNoteList(NoteList noteList, Scale scale) {
+        SelfSimilarityTransformer selfSimilarityT = new SelfSimilarityTransformer(this.getSelfSimilaritySettings());
+        return selfSimilarityT.getTransformedNoteCount(super.applySettingsToNoteList(noteList, scale));
     }
 
     public void publisherNotification(Publisher p, Object args) {        
@@ -107,11 +196,24 @@ public class VoiceSettings extends AbstractVoiceOrSectionSettings implements Sub
         return vs.getReadOnlyCopy();
     }                
     
+    @Override
+    public VoiceSettings getEditableCopy() {
+        VoiceSettings vs = (VoiceSettings) super.getEditableCopy();
+        vs.setSelfSimilaritySettings(vs.getSelfSimilaritySettings().getEditableCopy());
+        return vs;
+    }
+
+    @Override
+    void makeReadOnly() {
+        super.makeReadOnly();
+        this.getSelfSimilaritySettings().makeReadOnly();
+    }
+    
     @Override
     public VoiceSettings clone() {        
         VoiceSettings cloned = (VoiceSettings) super.clone();                
         SelfSimilaritySettings clonedSSS = cloned.getSelfSimilaritySettings().clone();                
-        cloned.setSelfSimilaritySettings(clonedSSS);
+        cloned.attachSelfSimilaritySettings(clonedSSS);
         return cloned;
     }
     
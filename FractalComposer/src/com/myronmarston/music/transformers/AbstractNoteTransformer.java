@@ -0,0 +1,62 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.transformers;
+
+import com.myronmarston.music.Note;
+import com.myronmarston.music.NoteList;
+import com.myronmarston.music.PackedNoteList;
+
+/**
+ * Base class for transformers that transform each note on their own.  The 
+ * NoteList is transformed by cloning each note and transforming the clone;
+ * a PackedNoteList is transformed by transforming each unpacked note and 
+ * packing it into the result.
+ * 
+ * @author Myron
+ */
+public abstract class AbstractNoteTransformer implements NoteTransformer {
+    
+    public NoteList transform(NoteList input) {
+        Note newNote;
+        NoteList output = new NoteList(input.size());
+        
+        for (Note inputNote : input.getReadOnlyNotes()) {
+            newNote = inputNote.clone();
+            this.transformNote(newNote);
+            output.add(newNote);
+        }
+        
+        return output;
+    }
+    
+    public PackedNoteList transform(PackedNoteList input) {
+        PackedNoteList output = new PackedNoteList(input.size());
+        output.setInstrument(input.getInstrument());
+        
+        // each unpacked note is already a new object, so there is no need to 
+        // clone it...
+        for (Note note : input) {
+            this.transformNote(note);
+            output.add(note);
+        }
+        
+        return output;
+    }
+}
@@ -35,7 +35,7 @@ public class InversionTransformer implements Transformer {
         Note firstNote = input.getFirstAudibleNote();
         NoteList output = new NoteList(input.size());
         
-        for (Note inputNote : input) {
+        for (Note inputNote : input.getReadOnlyNotes()) {
             newNote = inputNote.clone();
             
             if (!newNote.isRest()) {
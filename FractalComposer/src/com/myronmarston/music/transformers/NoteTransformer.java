@@ -0,0 +1,49 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.transformers;
+
+import com.myronmarston.music.Note;
+import com.myronmarston.music.PackedNoteList;
+
+/**
+ * A transformer that transforms each note on its own, without regard to the 
+ * other notes of the NoteList.  Several of these can be fused together with a
+ * TransformerChain so that a NoteList is transformed in a single pass.
+ * 
+ * @author Myron
+ */
+public interface NoteTransformer extends Transformer {
+    
+    /**
+     * Applies this transformation directly to the given note, rather than to
+     * a copy of it.
+     * 
+     * @param note the note to transform
+     */
+    void transformNote(Note note);
+    
+    /**
+     * Performs the transformation on a packed note list.
+     * 
+     * @param input the packed note list to transform
+     * @return the transformed packed note list
+     */
+    PackedNoteList transform(PackedNoteList input);
+}
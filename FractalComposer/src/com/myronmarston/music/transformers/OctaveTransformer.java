@@ -20,7 +20,6 @@
 package com.myronmarston.music.transformers;
 
 import com.myronmarston.music.Note;
-import com.myronmarston.music.NoteList;
 
 /**
  * Transforms the given NoteList by moving it up or down some number of octaves.
@@ -28,7 +27,7 @@ import com.myronmarston.music.NoteList;
  * 
  * @author Myron
  */
-public class OctaveTransformer implements Transformer {
+public class OctaveTransformer extends AbstractNoteTransformer {
     private final int octaveChange;
     
     /**
@@ -49,21 +48,10 @@ public class OctaveTransformer implements Transformer {
     public int getOctaveChange() {
         return octaveChange;
     }
-        
-    public NoteList transform(NoteList input) {
-        Note newNote;
-        NoteList output = new NoteList(input.size());
-        
-        for (Note inputNote : input) {
-            newNote = inputNote.clone();
-                        
-            if (!newNote.isRest()) { // don't change the octave on a rest...
-                newNote.setOctave(newNote.getOctave() + this.octaveChange);
-            }                        
-            
-            output.add(newNote);
+    
+    public void transformNote(Note note) {
+        if (!note.isRest()) { // don't change the octave on a rest...
+            note.setOctave(note.getOctave() + this.octaveChange);
         }
-        
-        return output;
     }
 }
@@ -35,32 +35,33 @@ public class RetrogradeTransformer implements Transformer {
         // make a copy to reverse...
         NoteList copy = input.clone();
         
-        // reverse the copy, rather than the original input...
-        Collections.reverse(copy);        
+        // reverse the copy, rather than the original input.  This doesn't
+        // copy the notes the copy shares with a read-only input...
+        copy.reverse();        
 
         // set our first germ note properly.
         // we might have multiple copies of the germ, so we have to iterate over
         // the list and fix it
         int listSize = copy.size();
-        List<Note> notesThatShouldBeFirstInGermCopy = new ArrayList<Note>(copy.size());
+        List<Note> notes = copy.getReadOnlyNotes();
+        boolean[] shouldBeFirstInGermCopy = new boolean[listSize];
         for (int i = 0; i < listSize; i++) {
-            Note note = copy.get(i);
-            
-            if (note.isFirstNoteOfGermCopy()) {
+            if (notes.get(i).isFirstNoteOfGermCopy()) {
                 // if this note was the first note of a germ copy, it is now the
                 // last note of a germ copy, and that means the next note will
                 // be the first note of a germ copy, or, in the case of the last
                 // note of the entire list, using mod listSize gives us the
                 // first note of the entire list
-                notesThatShouldBeFirstInGermCopy.add(copy.get((i + 1) % listSize));                
+                shouldBeFirstInGermCopy[(i + 1) % listSize] = true;
             }
-            
-            // set all notes to false; we will set the ones that should be true
-            // below based on our list
-            note.setIsFirstNoteOfGermCopy(false);
         }
         
-        for (Note note : notesThatShouldBeFirstInGermCopy) note.setIsFirstNoteOfGermCopy(true);
+        // only get (and so copy) the notes that change...
+        for (int i = 0; i < listSize; i++) {
+            if (notes.get(i).isFirstNoteOfGermCopy() != shouldBeFirstInGermCopy[i]) {
+                copy.get(i).setIsFirstNoteOfGermCopy(shouldBeFirstInGermCopy[i]);
+            }
+        }
         
         return copy;
     }
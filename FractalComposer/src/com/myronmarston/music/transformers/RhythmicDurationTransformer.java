@@ -20,7 +20,6 @@
 package com.myronmarston.music.transformers;
 
 import com.myronmarston.music.Note;
-import com.myronmarston.music.NoteList;
 
 import com.myronmarston.util.Fraction;
 
@@ -31,7 +30,7 @@ import com.myronmarston.util.Fraction;
  * 
  * @author Myron
  */
-public class RhythmicDurationTransformer implements Transformer {  
+public class RhythmicDurationTransformer extends AbstractNoteTransformer {  
     private final Fraction scaleFactor;
     
     /**
@@ -68,21 +67,10 @@ public class RhythmicDurationTransformer implements Transformer {
         }            
     }
     
-     public NoteList transform(NoteList input) {
-        Note newNote;
-        NoteList output = new NoteList(input.size());
-        
-        for (Note inputNote : input) {
-            newNote = inputNote.clone();
-            
-            // if the scale factor is zero, we'll get a div-by-zero exception.  
-            // our code should prevent it from ever reaching here if it's zero...
-            assert this.scaleFactor.asDouble() != 0d : this.scaleFactor;
-            newNote.setDuration(newNote.getDuration().dividedBy(this.scaleFactor));            
-            
-            output.add(newNote);
-        }
-        
-        return output;
+    public void transformNote(Note note) {
+        // if the scale factor is zero, we'll get a div-by-zero exception.  
+        // our code should prevent it from ever reaching here if it's zero...
+        assert this.scaleFactor.asDouble() != 0d : this.scaleFactor;
+        note.setDuration(note.getDuration().dividedBy(this.scaleFactor));
     }
 }
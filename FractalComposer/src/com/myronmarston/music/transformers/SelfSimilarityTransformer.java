@@ -22,8 +22,20 @@ package com.myronmarston.music.transformers;
 import com.myronmarston.music.MidiNote;
 import com.myronmarston.music.Note;
 import com.myronmarston.music.NoteList;
+import com.myronmarston.music.PackedNoteList;
 import com.myronmarston.music.settings.SelfSimilaritySettings;
+import com.myronmarston.music.settings.VoiceSection;
+import com.myronmarston.util.ConcurrencyHelper;
 import com.myronmarston.util.Fraction;
+import com.myronmarston.util.MathHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 /**
  * Transformer that applies the self-similarity algorithm to the given NoteList.
@@ -35,6 +47,13 @@ import com.myronmarston.util.Fraction;
  */
 public class SelfSimilarityTransformer implements Transformer {   
     private SelfSimilaritySettings settings;        
+    private Executor executor;
+    
+    /**
+     * The minimum number of notes a self-similarity level must produce before
+     * it is generated in parallel.  Smaller levels are not worth the overhead.
+     */
+    public static final int PARALLEL_LEVEL_SIZE_THRESHOLD = 2048;
 
     /**
      * Gets the self-similarity settings to be used by this transformer.  
@@ -76,6 +95,30 @@ public class SelfSimilarityTransformer implements Transformer {
      */
     public SelfSimilarityTransformer() {};
     
+    /**
+     * Gets the executor used to generate large self-similarity levels in 
+     * parallel.
+     * 
+     * @return the executor, or null if everything is generated on the calling
+     *         thread
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used to generate large self-similarity levels in 
+     * parallel.  Each germ note's copy of the previous level is generated as
+     * a separate task, once a level reaches PARALLEL_LEVEL_SIZE_THRESHOLD 
+     * notes.
+     * 
+     * @param executor the executor, or null to generate everything on the 
+     *        calling thread
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+    
     public NoteList transform(NoteList input) {                
         if (!this.getSettings().selfSimilarityShouldBeAppliedToSomething()) {
             // there is no self-similarity, so just return a copy of the input
@@ -83,70 +126,220 @@ public class SelfSimilarityTransformer implements Transformer {
         }            
              
         NoteList tempList = input;
+        TransformerChain[] germNoteChains = this.getGermNoteChains(input);
         
         for (int i = 0; i < this.getSettings().getSelfSimilarityIterations(); i++) {
-            tempList = transformOneLevel(input, tempList);
+            tempList = transformOneLevel(germNoteChains, input, tempList);
         }
         
         return tempList;
     }
     
-    private NoteList transformOneLevel(NoteList germ, NoteList input) {           
-        Note firstGermNote = germ.getFirstAudibleNote(); // the note we will compare against for the self-similarity
-        NoteList transformedList; // used to store the temporary results of the transformations                
+    /**
+     * Gets an iterator over the result of applying self-similarity to the 
+     * given input.  The iterator produces the same notes as transform(), but
+     * generates them one at a time by walking the germ tree depth-first, so 
+     * only O(iterations) memory is needed rather than memory for the entire
+     * result.  The input should not be modified while the iterator is in use.
+     * 
+     * @param input the note list to apply self-similarity to
+     * @return an iterator that generates the transformed notes
+     */
+    public Iterator<Note> iterator(NoteList input) {
+        return new DepthFirstIterator(input);
+    }
+    
+    /**
+     * Applies self-similarity to the given input, packing the result into a
+     * PackedNoteList.  The result is generated with iterator(), so only the 
+     * packed form of the result is ever held in memory.  The voice sections of
+     * a FractalPiece do not use this; it is for callers that opt in to the 
+     * packed form.
+     * 
+     * @param input the note list to apply self-similarity to
+     * @return the transformed notes, packed
+     */
+    public PackedNoteList transformToPackedList(NoteList input) {
+        return new PackedNoteList(this.iterator(input));
+    }
+    
+    /**
+     * Creates an index that gives random access to the result of applying 
+     * self-similarity to the given input, without generating the result.
+     * 
+     * @param input the note list to apply self-similarity to
+     * @return the index
+     * @throws UnsupportedOperationException if the result has more than 
+     *         Long.MAX_VALUE notes
+     */
+    public FractalIndex createFractalIndex(NoteList input) throws UnsupportedOperationException {
+        return new FractalIndex(input);
+    }
+    
+    /**
+     * Gets the duration of the result of applying self-similarity to the 
+     * given input, without generating the result.
+     * 
+     * @param input the note list to apply self-similarity to
+     * @return the duration of the transformed note list
+     */
+    public Fraction getTransformedDuration(NoteList input) {
+        Fraction[] levelDurations = this.getLevelDurations(input);
+        return levelDurations[levelDurations.length - 1];
+    }
+    
+    /**
+     * Gets the number of notes in the result of applying self-similarity to
+     * the given input, without generating the result.
+     * 
+     * @param input the note list to apply self-similarity to
+     * @return the number of notes in the transformed note list, or 
+     *         Long.MAX_VALUE if there are too many to count
+     */
+    public long getTransformedNoteCount(NoteList input) {
+        int levels = (this.getSettings().selfSimilarityShouldBeAppliedToSomething() ? this.getSettings().getSelfSimilarityIterations() : 0);
+        long rests = 0;
+        for (Note germNote : input) {
+            if (germNote.isRest()) rests++;
+        }
+        long audibleNotes = input.size() - rests;
+        
+        // each audible germ note produces a copy of the previous level, but 
+        // each rest produces just one rest...
+        long noteCount = input.size();
+        for (int i = 0; i < levels; i++) {
+            noteCount = MathHelper.saturatedAdd(MathHelper.saturatedMultiply(audibleNotes, noteCount), rests);
+        }
+        
+        return noteCount;
+    }
+    
+    /**
+     * Gets the duration of each level of the self-similarity result.  Index 0 
+     * contains the duration of the input; the last index contains the duration
+     * of the final result.
+     * 
+     * @param input the note list to apply self-similarity to
+     * @return an array of the level durations
+     */
+    private Fraction[] getLevelDurations(NoteList input) {
+        int levels = (this.getSettings().selfSimilarityShouldBeAppliedToSomething() ? this.getSettings().getSelfSimilarityIterations() : 0);
+        Fraction[] levelDurations = new Fraction[levels + 1];
+        levelDurations[0] = input.getDuration();
+        if (levels == 0) return levelDurations;
+        
+        // Each germ note produces a copy of the previous level, scaled by the 
+        // germ note's rhythm, so each level is a constant multiple of the last.
+        Fraction levelScaleFactor = new Fraction(input.size(), 1);
+        if (this.getSettings().getApplyToRhythm()) {
+            Note firstGermNote = input.getFirstAudibleNote();
+            levelScaleFactor = new Fraction(0, 1);
+            for (Note germNote : input) {
+                levelScaleFactor = levelScaleFactor.plus(germNote.getDuration().dividedBy(firstGermNote.getDuration()));
+            }            
+        }
+        
+        for (int i = 1; i <= levels; i++) {
+            levelDurations[i] = levelDurations[i - 1].times(levelScaleFactor);
+        }
+        
+        return levelDurations;
+    }
+    
+    private NoteList transformOneLevel(final TransformerChain[] germNoteChains, NoteList germ, final NoteList input) {           
         NoteList output = new NoteList(germ.size() * input.size()); // the final output
-                
-        for (Note germNote : germ) {                  
-            if (germNote.isRest()) {                
-                transformedList = new NoteList();
-                
-                // the rest one will be one complete copy of the germ, all enclosed in a rest,
-                // so we need to set the first note flag on it
-                Note restNote = Note.createRest(input.getDuration());
-                restNote.setIsFirstNoteOfGermCopy(true);
-                
-                transformedList.add(restNote);                
-                transformedList = transform_rhythm(transformedList, firstGermNote, germNote);
-            } else {                
-                transformedList = transform_pitch(input, firstGermNote, germNote);
-                transformedList = transform_rhythm(transformedList, firstGermNote, germNote);
-                transformedList = transform_volume(transformedList, firstGermNote, germNote);
+        
+        if (this.executor == null || germ.size() * input.size() < PARALLEL_LEVEL_SIZE_THRESHOLD) {
+            for (int i = 0; i < germ.size(); i++) {                  
+                output.addAll(transformForGermNote(input, germ.get(i), germNoteChains[i]));            
             }
-            output.addAll(transformedList);            
+            
+            return output;
+        }
+        
+        // each germ note's copy of the input is independent of the others, 
+        // so generate them in parallel, then put them together in order...
+        List<Callable<NoteList>> tasks = new ArrayList<Callable<NoteList>>(germ.size());
+        for (int i = 0; i < germ.size(); i++) {
+            final Note germNote = germ.get(i);
+            final TransformerChain germNoteChain = germNoteChains[i];
+            tasks.add(new Callable<NoteList>() {
+                public NoteList call() {
+                    return transformForGermNote(input, germNote, germNoteChain);
+                }
+            });
+        }
+        
+        for (NoteList transformedList : ConcurrencyHelper.invokeAll(this.executor, tasks)) {
+            output.addAll(transformedList);
         }
         
         return output;
     }
+    
+    private NoteList transformForGermNote(NoteList input, Note germNote, TransformerChain germNoteChain) {
+        if (!germNote.isRest()) return germNoteChain.transform(input);
+        
+        // the rest one will be one complete copy of the germ, all enclosed in a rest,
+        // so we need to set the first note flag on it
+        Note restNote = Note.createRest(input.getDuration());
+        restNote.setIsFirstNoteOfGermCopy(true);
+        germNoteChain.transformNote(restNote);
+        
+        NoteList transformedList = new NoteList(1);
+        transformedList.add(restNote);
+        return transformedList;
+    }
+    
+    /**
+     * Gets the transformations each germ note applies to its copy of the 
+     * previous self-similarity level, fused into one chain per germ note so 
+     * that each copy is generated in a single pass.
+     * 
+     * @param germ the note list to apply self-similarity to
+     * @return an array containing the chain for each germ note
+     */
+    private TransformerChain[] getGermNoteChains(NoteList germ) {
+        Note firstGermNote = germ.getFirstAudibleNote(); // the note we will compare against for the self-similarity
+        TransformerChain[] chains = new TransformerChain[germ.size()];
+        
+        for (int i = 0; i < germ.size(); i++) {
+            Note germNote = germ.get(i);
+            chains[i] = new TransformerChain();
+            
+            // a rest replaces its entire copy with a single rest, so only the
+            // rhythm applies to it...
+            if (!germNote.isRest()) addPitchTransformers(chains[i], firstGermNote, germNote);
+            addRhythmTransformer(chains[i], firstGermNote, germNote);
+            if (!germNote.isRest()) addVolumeTransformer(chains[i], firstGermNote, germNote);
+        }
+        
+        return chains;
+    }
 
-    private NoteList transform_pitch(NoteList input, Note firstNote, Note inputNote) {
-        if (!this.getSettings().getApplyToPitch()) return input;
+    private void addPitchTransformers(TransformerChain chain, Note firstNote, Note inputNote) {
+        if (!this.getSettings().getApplyToPitch()) return;
                                                    
         // transpose the input to the correct octave...
-        OctaveTransformer octaveTransformer = new OctaveTransformer(inputNote.getOctave() - firstNote.getOctave());
-        NoteList octaveTransformedList = octaveTransformer.transform(input);
+        chain.add(new OctaveTransformer(inputNote.getOctave() - firstNote.getOctave()));
 
         // transpose the input to the correct pitch level...        
-        TransposeTransformer transposer = new TransposeTransformer(inputNote.getScaleStep() - firstNote.getScaleStep(), inputNote.getLetterNumber() - firstNote.getLetterNumber());
-        NoteList transposedList = transposer.transform(octaveTransformedList);
+        chain.add(new TransposeTransformer(inputNote.getScaleStep() - firstNote.getScaleStep(), inputNote.getLetterNumber() - firstNote.getLetterNumber()));
 
         // set the segment chromatic adjustment on this note as necessary...
-        int segmentChromaticAdjustment = inputNote.getChromaticAdjustment() - firstNote.getChromaticAdjustment();
-        for (Note n : transposedList) n.setSegmentChromaticAdjustment(segmentChromaticAdjustment);
-        
-        return transposedList;
+        chain.add(new SegmentChromaticAdjustmentTransformer(inputNote.getChromaticAdjustment() - firstNote.getChromaticAdjustment()));
     }
 
-    private NoteList transform_rhythm(NoteList input, Note firstNote, Note inputNote) {
-        if (!this.getSettings().getApplyToRhythm()) return input;                
+    private void addRhythmTransformer(TransformerChain chain, Note firstNote, Note inputNote) {
+        if (!this.getSettings().getApplyToRhythm()) return;                
         
         // scale the rhythm...
         assert (inputNote.getDuration().compareTo(0) > 0) : inputNote.getDuration(); // we would get div-by-zero below if the duration is zero, and less than zero is nonsensical
-        RhythmicDurationTransformer rhythmScaler = new RhythmicDurationTransformer(firstNote.getDuration().dividedBy(inputNote.getDuration()));
-        return rhythmScaler.transform(input);
+        chain.add(new RhythmicDurationTransformer(firstNote.getDuration().dividedBy(inputNote.getDuration())));
     }
     
-    private NoteList transform_volume(NoteList input, Note firstNote, Note inputNote) {
-        if (!this.getSettings().getApplyToVolume()) return input;
+    private void addVolumeTransformer(TransformerChain chain, Note firstNote, Note inputNote) {
+        if (!this.getSettings().getApplyToVolume()) return;
                         
         int remainingVolumeRange = // get the above or below volume range based on the volume of the current note relative to the first note
             (inputNote.getVolume() > firstNote.getVolume()) ? 
@@ -154,7 +347,7 @@ public class SelfSimilarityTransformer implements Transformer {
             firstNote.getVolume() - MidiNote.MIN_VELOCITY;
         
         // if there's no volume range left to use, we have no way to scale it...
-        if (remainingVolumeRange == 0) return input;
+        if (remainingVolumeRange == 0) return;
         
         // Our input note volume should not be 0, or we will get a scale factor of -1,
         // which our volume transformer does not allow.  But the code that calls this
@@ -162,7 +355,379 @@ public class SelfSimilarityTransformer implements Transformer {
         assert inputNote.getVolume() != 0 : inputNote.getVolume();
         
         Fraction scaleFactor = new Fraction(inputNote.getVolume() - firstNote.getVolume(), remainingVolumeRange);
-        VolumeTransformer volumeScaler = new VolumeTransformer(scaleFactor);
-        return volumeScaler.transform(input);        
+        chain.add(new VolumeTransformer(scaleFactor));        
+    }
+    
+    /**
+     * Sets the segment chromatic adjustment on each note, including rests.
+     */
+    private static class SegmentChromaticAdjustmentTransformer extends AbstractNoteTransformer {
+        private final int segmentChromaticAdjustment;
+        
+        public SegmentChromaticAdjustmentTransformer(int segmentChromaticAdjustment) {
+            this.segmentChromaticAdjustment = segmentChromaticAdjustment;
+        }
+        
+        public void transformNote(Note note) {
+            note.setSegmentChromaticAdjustment(this.segmentChromaticAdjustment);
+        }
+    }
+    
+    /**
+     * Iterator that generates the self-similarity result depth-first.  The 
+     * current position is tracked as a path through the germ tree: path[0] is
+     * the index of the germ note at the outermost level, and the last element
+     * is the index of the input note that is being transformed.
+     */
+    private class DepthFirstIterator implements Iterator<Note> {
+        private final NoteList germ;
+        private final Fraction[] levelDurations;
+        private final TransformerChain[] germNoteChains;
+        private final int[] path;
+        private boolean hasNext;
+        
+        /**
+         * Constructor.
+         * 
+         * @param germ the note list to apply self-similarity to
+         */
+        public DepthFirstIterator(NoteList germ) {
+            this.germ = germ;
+            this.levelDurations = getLevelDurations(germ);
+            int levels = this.levelDurations.length - 1;
+            this.path = new int[levels + 1];
+            this.germNoteChains = (levels == 0 ? new TransformerChain[0] : getGermNoteChains(germ));
+            
+            this.hasNext = germ.size() > 0;
+        }
+        
+        public boolean hasNext() {
+            return this.hasNext;
+        }
+
+        public Note next() {
+            if (!this.hasNext) throw new NoSuchElementException();
+            int levels = this.path.length - 1;
+            
+            // a rest in the germ replaces its entire copy of the previous level
+            // with one rest, so find the outermost level that has one...
+            int restLevel = levels;
+            for (int i = 0; i < levels; i++) {
+                if (this.germ.get(this.path[i]).isRest()) {
+                    restLevel = i;
+                    break;
+                }
+            }
+            
+            Note note;
+            if (restLevel == levels) {
+                note = this.germ.get(this.path[levels]).clone();
+            } else {
+                // the rest will be one complete copy of the germ, all enclosed in a rest,
+                // so we need to set the first note flag on it
+                note = Note.createRest(this.levelDurations[levels - restLevel - 1]);
+                note.setIsFirstNoteOfGermCopy(true);
+            }
+            
+            // apply the germ note chains from the innermost level outwards...
+            for (int i = Math.min(restLevel, levels - 1); i >= 0; i--) {
+                this.germNoteChains[this.path[i]].transformNote(note);
+            }
+            
+            this.advance(restLevel);
+            return note;
+        }
+        
+        /**
+         * Moves the path to the next note, skipping everything below the given
+         * level.
+         * 
+         * @param level the level to advance
+         */
+        private void advance(int level) {
+            Arrays.fill(this.path, level + 1, this.path.length, 0);
+            
+            for (int i = level; i >= 0; i--) {
+                if (++this.path[i] < this.germ.size()) return;
+                this.path[i] = 0;
+            }
+            
+            this.hasNext = false;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("This iterator does not support removal.");
+        }
+    }
+    
+    /**
+     * Random access into the result of applying self-similarity to a germ, 
+     * without generating the result.  Each level of the result is made of one
+     * copy of the level below it for each germ note (or a single rest, for a
+     * rest germ note), so the position of a note is found by walking down the
+     * levels, choosing the germ note whose copy contains it at each one.  This
+     * takes O(iterations * log(germ size)) time per note.  The germ should not
+     * be modified while the index is in use.
+     */
+    public class FractalIndex {
+        private final NoteList germ;
+        private final Fraction[] levelDurations;
+        private final long[] levelSizes;
+        private final TransformerChain[] germNoteChains;
+        private final int[] audibleNotesBefore;
+        private final int[] restsBefore;
+        private final Fraction[] durationFactors;
+        private final Fraction[] durationFactorsBefore;
+        private VoiceSection sourceVoiceSection;
+        
+        /**
+         * Constructor.
+         * 
+         * @param germ the note list to apply self-similarity to
+         * @throws UnsupportedOperationException if the result has more than
+         *         Long.MAX_VALUE notes
+         */
+        protected FractalIndex(NoteList germ) throws UnsupportedOperationException {
+            this.germ = germ;
+            this.levelDurations = getLevelDurations(germ);
+            int levels = this.levelDurations.length - 1;
+            this.germNoteChains = (levels == 0 ? new TransformerChain[0] : getGermNoteChains(germ));
+            
+            // the copy of the level below for each germ note is scaled by the
+            // germ note's duration relative to the first audible note...
+            int germSize = germ.size();
+            Note firstGermNote = germ.getFirstAudibleNote();
+            boolean applyToRhythm = levels > 0 && getSettings().getApplyToRhythm();
+            this.audibleNotesBefore = new int[germSize + 1];
+            this.restsBefore = new int[germSize + 1];
+            this.durationFactors = new Fraction[germSize];
+            this.durationFactorsBefore = new Fraction[germSize + 1];
+            this.durationFactorsBefore[0] = Fraction.valueOf(0, 1);
+            for (int i = 0; i < germSize; i++) {
+                Note germNote = germ.get(i);
+                this.audibleNotesBefore[i + 1] = this.audibleNotesBefore[i] + (germNote.isRest() ? 0 : 1);
+                this.restsBefore[i + 1] = this.restsBefore[i] + (germNote.isRest() ? 1 : 0);
+                this.durationFactors[i] = (applyToRhythm ? germNote.getDuration().dividedBy(firstGermNote.getDuration()) : Fraction.valueOf(1, 1));
+                this.durationFactorsBefore[i + 1] = this.durationFactorsBefore[i].plus(this.durationFactors[i]);
+            }
+            
+            this.levelSizes = new long[levels + 1];
+            this.levelSizes[0] = germSize;
+            for (int i = 1; i <= levels; i++) {
+                long audibleNotes = this.audibleNotesBefore[germSize];
+                if (audibleNotes > 0 && this.levelSizes[i - 1] > (Long.MAX_VALUE - germSize) / audibleNotes) {
+                    throw new UnsupportedOperationException("The self-similarity result has too many notes to be indexed.");
+                }
+                this.levelSizes[i] = audibleNotes * this.levelSizes[i - 1] + this.restsBefore[germSize];
+            }
+        }
+        
+        /**
+         * Gets the number of notes in the result.
+         * 
+         * @return the number of notes
+         */
+        public long size() {
+            return this.levelSizes[this.levelSizes.length - 1];
+        }
+        
+        /**
+         * Gets the duration of the result.
+         * 
+         * @return the duration
+         */
+        public Fraction getDuration() {
+            return this.levelDurations[this.levelDurations.length - 1];
+        }
+
+        /**
+         * Gets the voice section that is set as the source of the notes 
+         * returned by getNote().
+         * 
+         * @return the source voice section, or null
+         */
+        public VoiceSection getSourceVoiceSection() {
+            return sourceVoiceSection;
+        }
+
+        /**
+         * Sets the voice section that is set as the source of the notes 
+         * returned by getNote().
+         * 
+         * @param sourceVoiceSection the source voice section, or null
+         */
+        public void setSourceVoiceSection(VoiceSection sourceVoiceSection) {
+            this.sourceVoiceSection = sourceVoiceSection;
+        }
+        
+        /**
+         * Gets the note at the given index of the result.  This is the same as
+         * the note at that index of the list returned by transform().
+         * 
+         * @param index the index of the note
+         * @return a new note
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        public Note getNote(long index) throws IndexOutOfBoundsException {
+            int[] path = this.getPath(index);
+            int levels = path.length - 1;
+            int restLevel = this.getRestLevel(path);
+            
+            Note note;
+            if (restLevel == levels) {
+                note = this.germ.get(path[levels]).clone();
+            } else {
+                // the rest will be one complete copy of the germ, all enclosed in a rest,
+                // so we need to set the first note flag on it
+                note = Note.createRest(this.levelDurations[levels - restLevel - 1]);
+                note.setIsFirstNoteOfGermCopy(true);
+            }
+            
+            // apply the germ note chains from the innermost level outwards...
+            for (int i = Math.min(restLevel, levels - 1); i >= 0; i--) {
+                this.germNoteChains[path[i]].transformNote(note);
+            }
+            
+            if (this.sourceVoiceSection != null) note.setSourceVoiceSection(this.sourceVoiceSection);
+            return note;
+        }
+        
+        /**
+         * Gets the time at which the note at the given index starts, in whole
+         * notes from the start of the result.
+         * 
+         * @param index the index of the note
+         * @return the start time
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        public Fraction getStartTime(long index) throws IndexOutOfBoundsException {
+            int[] path = this.getPath(index);
+            int levels = path.length - 1;
+            
+            Fraction startTime = Fraction.valueOf(0, 1);
+            Fraction scale = Fraction.valueOf(1, 1);
+            for (int i = 0; i < levels; i++) {
+                Fraction copyDuration = this.levelDurations[levels - 1 - i].times(scale);
+                startTime = startTime.plus(copyDuration.times(this.durationFactorsBefore[path[i]]));
+                if (this.germ.get(path[i]).isRest()) return startTime;
+                scale = scale.times(this.durationFactors[path[i]]);
+            }
+            
+            return startTime.plus(this.germ.getStartTime(path[levels]).times(scale));
+        }
+        
+        /**
+         * Gets the index of the note that sounds at the given time.
+         * 
+         * @param time the time, in whole notes from the start of the result
+         * @return the index of the note, or -1 if the time is before the start
+         *         or at or after the end of the result
+         */
+        public long getNoteIndexAtTime(Fraction time) {
+            if (time.compareTo(0L) < 0 || time.compareTo(this.getDuration()) >= 0) return -1;
+            int levels = this.levelDurations.length - 1;
+            
+            long index = 0;
+            Fraction offset = time;
+            Fraction scale = Fraction.valueOf(1, 1);
+            for (int i = 0; i < levels; i++) {
+                Fraction copyDuration = this.levelDurations[levels - 1 - i].times(scale);
+                int germIndex = this.findLast(this.durationFactorsBefore, offset.dividedBy(copyDuration));
+                offset = offset.minus(copyDuration.times(this.durationFactorsBefore[germIndex]));
+                index += this.getNoteCountBefore(germIndex, this.levelSizes[levels - 1 - i]);
+                if (this.germ.get(germIndex).isRest()) return index;
+                scale = scale.times(this.durationFactors[germIndex]);
+            }
+            
+            return index + this.germ.getNoteIndexAtTime(offset.dividedBy(scale));
+        }
+        
+        /**
+         * Gets the path through the germ tree to the note at the given index:
+         * the germ note chosen at each level, from the outermost in, followed 
+         * by the index of the germ note at the innermost level.  If a rest is
+         * chosen, the rest of the path is left at zero.
+         * 
+         * @param index the index of the note
+         * @return the path
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        private int[] getPath(long index) throws IndexOutOfBoundsException {
+            if (index < 0 || index >= this.size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+            int levels = this.levelSizes.length - 1;
+            int[] path = new int[levels + 1];
+            
+            long remaining = index;
+            for (int i = 0; i < levels; i++) {
+                long copySize = this.levelSizes[levels - 1 - i];
+                
+                // binary search for the last germ note whose copy starts at or before the index...
+                int low = 0;
+                int high = this.germ.size() - 1;
+                while (low < high) {
+                    int mid = (low + high + 1) >>> 1;
+                    if (this.getNoteCountBefore(mid, copySize) <= remaining) {
+                        low = mid;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                
+                path[i] = low;
+                remaining -= this.getNoteCountBefore(low, copySize);
+                if (this.germ.get(low).isRest()) return path;
+            }
+            
+            path[levels] = (int) remaining;
+            return path;
+        }
+        
+        /**
+         * Gets the outermost level of the path that chose a rest.
+         * 
+         * @param path the path
+         * @return the level, or the number of levels if there is no rest
+         */
+        private int getRestLevel(int[] path) {
+            int levels = path.length - 1;
+            for (int i = 0; i < levels; i++) {
+                if (this.germ.get(path[i]).isRest()) return i;
+            }
+            return levels;
+        }
+        
+        /**
+         * Gets the number of notes in the copies for the germ notes before the
+         * given one.
+         * 
+         * @param germIndex the index of the germ note
+         * @param copySize the number of notes in a copy of the level below
+         * @return the number of notes
+         */
+        private long getNoteCountBefore(int germIndex, long copySize) {
+            return this.audibleNotesBefore[germIndex] * copySize + this.restsBefore[germIndex];
+        }
+        
+        /**
+         * Finds the last index of the given array that is less than or equal to
+         * the value, ignoring the last element.
+         * 
+         * @param values the array of values, in ascending order
+         * @param value the value to find
+         * @return the index
+         */
+        private int findLast(Fraction[] values, Fraction value) {
+            int low = 0;
+            int high = values.length - 2;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (values[mid].compareTo(value) <= 0) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
     }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.transformers;
+
+import com.myronmarston.music.Note;
+
+import java.util.*;
+
+/**
+ * Fuses several note transformers into one.  Transforming a NoteList with the 
+ * chain gives the same result as transforming it with each transformer in 
+ * turn, but each note is cloned only once, rather than once per transformer.
+ * Example: OctaveTransformer(1), TransposeTransformer(2, 2): C4 D4 -> E5 F5
+ * 
+ * @author Myron
+ */
+public class TransformerChain extends AbstractNoteTransformer {
+    private final List<NoteTransformer> transformers = new ArrayList<NoteTransformer>();
+    
+    /**
+     * Constructor.
+     * 
+     * @param transformers the transformers to apply, in order
+     */
+    public TransformerChain(NoteTransformer ... transformers) {
+        this.transformers.addAll(Arrays.asList(transformers));
+    }
+    
+    /**
+     * Gets the transformers in this chain, in the order they are applied.
+     * 
+     * @return a read-only list of the transformers
+     */
+    public List<NoteTransformer> getTransformers() {
+        return Collections.unmodifiableList(this.transformers);
+    }
+    
+    /**
+     * Adds a transformer to the end of the chain.
+     * 
+     * @param transformer the transformer to add
+     */
+    public void add(NoteTransformer transformer) {
+        this.transformers.add(transformer);
+    }
+    
+    public void transformNote(Note note) {
+        for (NoteTransformer t : this.transformers) t.transformNote(note);
+    }
+}
@@ -20,7 +20,6 @@
 package com.myronmarston.music.transformers;
 
 import com.myronmarston.music.Note;
-import com.myronmarston.music.NoteList;
 
 /**
  * Transformer that transposes the notes of the NoteList to a different pitch
@@ -31,7 +30,7 @@ import com.myronmarston.music.NoteList;
  * 
  * @author Myron
  */
-public class TransposeTransformer implements Transformer {   
+public class TransposeTransformer extends AbstractNoteTransformer {   
     private final int transposeSteps;
     private final int transposeLetterNumbers;           
                
@@ -64,20 +63,9 @@ public class TransposeTransformer implements Transformer {
         this.transposeLetterNumbers = transposeLetterNames;
     }  
     
-    public NoteList transform(NoteList input) {
-        Note newNote;
-        NoteList output = new NoteList(input.size());
-        
-        for (Note inputNote : input) {
-            newNote = inputNote.clone();
-            
-            if (!newNote.isRest()) { // don't change a rest...
-                newNote.performTransformerAdjustment(this.transposeSteps, this.transposeLetterNumbers, 0);
-            }            
-            
-            output.add(newNote);
+    public void transformNote(Note note) {
+        if (!note.isRest()) { // don't change a rest...
+            note.performTransformerAdjustment(this.transposeSteps, this.transposeLetterNumbers, 0);
         }
-        
-        return output;
     }
 }
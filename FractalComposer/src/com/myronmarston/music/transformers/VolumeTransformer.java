@@ -21,7 +21,6 @@ package com.myronmarston.music.transformers;
 
 import com.myronmarston.music.MidiNote;
 import com.myronmarston.music.Note;
-import com.myronmarston.music.NoteList;
 import com.myronmarston.util.Fraction;
 
 /**
@@ -34,7 +33,7 @@ import com.myronmarston.util.Fraction;
  * 
  * @author Myron
  */
-public class VolumeTransformer implements Transformer {        
+public class VolumeTransformer extends AbstractNoteTransformer {        
     private final Fraction scaleFactor;
 
     /**
@@ -72,29 +71,16 @@ public class VolumeTransformer implements Transformer {
         if (scaleFactor.compareTo(1L) > 0 || scaleFactor.compareTo(-1L) <= 0) throw new IllegalArgumentException("The volume scale factor must be between -1 and 1.");
     }
     
-    public NoteList transform(NoteList input) {
-        int remainingVolumeRange = 0;
-        int volumeAdjustment = 0;
-        Note newNote;
-        NoteList output = new NoteList(input.size());
+    public void transformNote(Note note) {
+        if (note.isRest()) return; // don't change the volume of rests...
         
-        for (Note inputNote : input) {
-            newNote = inputNote.clone();
-            
-            if (!newNote.isRest()) { // don't change the volume of rests...                    
-                remainingVolumeRange = 
-                    (this.scaleFactor.compareTo(0L) < 0) ?
-                    newNote.getVolume() - MidiNote.MIN_VELOCITY :
-                    MidiNote.MAX_VELOCITY - newNote.getVolume();
+        int remainingVolumeRange = 
+            (this.scaleFactor.compareTo(0L) < 0) ?
+            note.getVolume() - MidiNote.MIN_VELOCITY :
+            MidiNote.MAX_VELOCITY - note.getVolume();
 
-                volumeAdjustment = (int) Math.round(this.scaleFactor.times(remainingVolumeRange).asDouble());
+        int volumeAdjustment = (int) Math.round(this.scaleFactor.times(remainingVolumeRange).asDouble());
 
-                newNote.setVolume(newNote.getVolume() + volumeAdjustment);
-            }
-            
-            output.add(newNote);
-        }
-        
-        return output;
+        note.setVolume(note.getVolume() + volumeAdjustment);
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.util;
+
+import java.util.*;
+
+/**
+ * An Iterable that iterates over several other Iterables, one after another,
+ * without copying their elements into a collection.
+ * 
+ * @param <T> the type of element
+ * @author Myron
+ */
+public class ConcatenatedIterable<T> implements Iterable<T> {
+    private final List<? extends Iterable<T>> iterables;
+
+    /**
+     * Constructor.
+     * 
+     * @param iterables the iterables to concatenate, in order
+     */
+    public ConcatenatedIterable(List<? extends Iterable<T>> iterables) {
+        this.iterables = iterables;
+    }
+
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private final Iterator<? extends Iterable<T>> outer = iterables.iterator();
+            private Iterator<T> inner = Collections.<T>emptyList().iterator();
+            
+            public boolean hasNext() {
+                while (!this.inner.hasNext() && this.outer.hasNext()) {
+                    this.inner = this.outer.next().iterator();
+                }
+                
+                return this.inner.hasNext();
+            }
+
+            public T next() {
+                if (!this.hasNext()) throw new NoSuchElementException();
+                return this.inner.next();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException("This iterator does not support removal.");
+            }
+        };
+    }
+}
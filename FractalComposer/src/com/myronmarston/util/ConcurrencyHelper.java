@@ -0,0 +1,93 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.util;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A class containing static helper methods for running work in parallel.
+ * 
+ * @author Myron
+ */
+public class ConcurrencyHelper {
+    
+    /**
+     * Runs the given tasks using the given executor and returns their results
+     * in the same order as the tasks.  The calling thread helps out: it runs 
+     * any task that the executor has not started yet, rather than just
+     * waiting for it.  This means it is safe to call this method from a task 
+     * that is itself running on the executor, even if the executor has a
+     * bounded number of threads.  Exceptions thrown by a task are rethrown 
+     * on the calling thread.
+     * 
+     * @param <T> the type of result
+     * @param executor the executor to use; if null, the tasks are all run on
+     *        the calling thread
+     * @param tasks the tasks to run
+     * @return the results of the tasks, in order
+     */
+    public static <T> List<T> invokeAll(Executor executor, List<? extends Callable<T>> tasks) {
+        List<FutureTask<T>> futures = new ArrayList<FutureTask<T>>(tasks.size());
+        for (Callable<T> task : tasks) futures.add(new FutureTask<T>(task));
+        
+        // hand off all but the first task; we'll start on that one ourselves...
+        if (executor != null) {
+            try {
+                for (int i = 1; i < futures.size(); i++) executor.execute(futures.get(i));
+            } catch (RejectedExecutionException ex) {
+                // the executor is saturated or shut down; any task it did not 
+                // accept will simply be run on this thread below.
+            }
+        }
+        
+        List<T> results = new ArrayList<T>(futures.size());
+        for (FutureTask<T> future : futures) {
+            // this does nothing if the executor has already started the task
+            future.run();
+            results.add(getResult(future));
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Waits for the given future to finish and gets its result, rethrowing
+     * any exception thrown by the task.
+     * 
+     * @param <T> the type of result
+     * @param future the future
+     * @return the result
+     */
+    public static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UndeclaredThrowableException(ex, "Interrupted while waiting for a task to finish.");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new UndeclaredThrowableException(cause, "A task threw an unexpected checked exception.");
+        }
+    }
+}
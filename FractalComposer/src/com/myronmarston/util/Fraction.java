@@ -88,6 +88,44 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
    * The character used to augment rhythmic durations in lilypond notation.
    */
   private static final char LILYPOND_AUGMENTATION_CHAR = '.';
+  
+  /**
+   * The largest value held in the cache of common durations.
+   */
+  private static final long MAX_CACHED_VALUE = 4L;
+  
+  /**
+   * The denominators of the common durations that are cached: the powers of
+   * 2 up to MAX_ALLOWED_DURATION_DENOM, and the triplet values.
+   */
+  private static final long[] CACHED_DENOMINATORS = {1L, 2L, 3L, 4L, 6L, 8L, 12L, 16L, 24L, 32L, 48L, 64L};
+  
+  /**
+   * Maps a denominator to its index in CACHED_DENOMINATORS, or -1 if values
+   * with that denominator are not cached.
+   */
+  private static final int[] CACHED_DENOMINATOR_INDICES = new int[(int) MAX_ALLOWED_DURATION_DENOM + 1];
+  
+  /**
+   * Cache of common durations, from 0 to MAX_CACHED_VALUE, indexed by the 
+   * denominator index and then by the numerator.
+   */
+  private static final Fraction[][] CACHE = new Fraction[CACHED_DENOMINATORS.length][];
+  
+  static {
+    Arrays.fill(CACHED_DENOMINATOR_INDICES, -1);
+    for (int i = 0; i < CACHED_DENOMINATORS.length; i++) {
+      long den = CACHED_DENOMINATORS[i];
+      CACHED_DENOMINATOR_INDICES[(int) den] = i;
+      CACHE[i] = new Fraction[(int) (MAX_CACHED_VALUE * den) + 1];
+      
+      // only store reduced values; the others are stored with a smaller 
+      // denominator...
+      for (long num = 0; num < CACHE[i].length; num++) {
+        if (gcd(num, den) == 1L) CACHE[i][(int) num] = new Fraction(num, den);
+      }
+    }
+  }
         
   /** Return the numerator **/  
   public final long numerator() { return numerator_; }
@@ -145,6 +183,47 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     denominator_ = b / g;
   }
 
+  /** 
+   * Create a Fraction from a numerator and denominator that are already in
+   * reduced form, with a positive denominator.
+   */
+  private Fraction(long reducedNum, long reducedDen, boolean reduced) {
+    assert reduced && reducedDen > 0 && gcd(reducedNum, reducedDen) == 1L : reducedNum + "/" + reducedDen;
+    numerator_ = reducedNum;
+    denominator_ = reducedDen;
+  }
+  
+  /**
+   * Gets a Fraction equal in value to num / den.  Common durations (from 0 to
+   * 4/1, with denominators that are powers of 2 up to 64 or triplet values) 
+   * are returned from a cache rather than being allocated.  Fractions are
+   * immutable, so the cached instances are safe to share.
+   * 
+   * @param num the numerator
+   * @param den the denominator
+   * @return the fraction
+   * @throws IllegalArgumentException if the denominator is zero
+   */
+  public static Fraction valueOf(long num, long den) throws IllegalArgumentException {
+    if (den == 0L) throw new IllegalArgumentException("The fraction denominator cannot be zero."); 
+    
+    // normalize, as the constructor does...
+    if (den < 0) {
+      num = -num;
+      den = -den;
+    }
+    long g = gcd(num, den);
+    num /= g;
+    den /= g;
+    
+    if (num >= 0 && den <= MAX_ALLOWED_DURATION_DENOM) {
+      int denIndex = CACHED_DENOMINATOR_INDICES[(int) den];
+      if (denIndex >= 0 && num < CACHE[denIndex].length) return CACHE[denIndex][(int) num];
+    }
+    
+    return new Fraction(num, den, true);
+  }
+
   /** Create a fraction with the same value as Fraction f **/
   public Fraction(Fraction f) {
     numerator_ = f.numerator();
@@ -329,18 +408,21 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     return x;
   }
 
+  // The arithmetic methods below use valueOf() so that common results come
+  // from the cache rather than being allocated.
+
   /** return a Fraction representing the negated value of this Fraction **/
   public Fraction negative() {
     long an = numerator();
     long ad = denominator();
-    return new Fraction(-an, ad);
+    return valueOf(-an, ad);
   }
 
   /** return a Fraction representing 1 / this Fraction **/
   public Fraction inverse() {
     long an = numerator();
     long ad = denominator();
-    return new Fraction(ad, an);
+    return valueOf(ad, an);
   }
 
   /** return a Fraction representing this Fraction plus b **/
@@ -349,7 +431,7 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     long ad = denominator();
     long bn = b.numerator();
     long bd = b.denominator();
-    return new Fraction(an*bd+bn*ad, ad*bd);
+    return valueOf(an*bd+bn*ad, ad*bd);
   }
 
   /** return a Fraction representing this Fraction plus n **/
@@ -358,7 +440,7 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     long ad = denominator();
     long bn = n;
     long bd = 1;
-    return new Fraction(an*bd+bn*ad, ad*bd);
+    return valueOf(an*bd+bn*ad, ad*bd);
   }
 
   /** return a Fraction representing this Fraction minus b **/
@@ -367,7 +449,7 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     long ad = denominator();
     long bn = b.numerator();
     long bd = b.denominator();
-    return new Fraction(an*bd-bn*ad, ad*bd);
+    return valueOf(an*bd-bn*ad, ad*bd);
   }
 
   /** return a Fraction representing this Fraction minus n **/
@@ -376,7 +458,7 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     long ad = denominator();
     long bn = n;
     long bd = 1;
-    return new Fraction(an*bd-bn*ad, ad*bd);
+    return valueOf(an*bd-bn*ad, ad*bd);
   }
 
   /** return a Fraction representing this Fraction times b **/
@@ -385,7 +467,7 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     long ad = denominator();
     long bn = b.numerator();
     long bd = b.denominator();
-    return new Fraction(an*bn, ad*bd);
+    return valueOf(an*bn, ad*bd);
   }
 
   /** return a Fraction representing this Fraction times n **/
@@ -394,7 +476,7 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     long ad = denominator();
     long bn = n;
     long bd = 1;
-    return new Fraction(an*bn, ad*bd);
+    return valueOf(an*bn, ad*bd);
   }
 
   /** return a Fraction representing this Fraction divided by b **/
@@ -403,7 +485,7 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     long ad = denominator();
     long bn = b.numerator();
     long bd = b.denominator();
-    return new Fraction(an*bd, ad*bn);
+    return valueOf(an*bd, ad*bn);
   }
 
   /** return a Fraction representing this Fraction divided by n **/
@@ -412,7 +494,7 @@ public class Fraction implements Cloneable, Comparable, java.io.Serializable {
     long ad = denominator();
     long bn = n;
     long bd = 1;
-    return new Fraction(an*bd, ad*bn);
+    return valueOf(an*bd, ad*bn);
   }    
 
   /** return a number less, equal, or greater than zero
@@ -52,6 +52,33 @@ public class MathHelper {
         return  m * (n / greatestCommonDivisor(m, n));
     }
     
+    /**
+     * Adds two non-negative numbers, returning Long.MAX_VALUE rather than 
+     * overflowing.
+     * 
+     * @param m a non-negative number
+     * @param n another non-negative number
+     * @return the sum, or Long.MAX_VALUE if the sum is too large
+     */
+    public static long saturatedAdd(final long m, final long n) {
+        assert m >= 0 && n >= 0;
+        return (m > Long.MAX_VALUE - n ? Long.MAX_VALUE : m + n);
+    }
+    
+    /**
+     * Multiplies two non-negative numbers, returning Long.MAX_VALUE rather 
+     * than overflowing.
+     * 
+     * @param m a non-negative number
+     * @param n another non-negative number
+     * @return the product, or Long.MAX_VALUE if the product is too large
+     */
+    public static long saturatedMultiply(final long m, final long n) {
+        assert m >= 0 && n >= 0;
+        if (m == 0 || n == 0) return 0;
+        return (m > Long.MAX_VALUE / n ? Long.MAX_VALUE : m * n);
+    }
+    
     /**
      * Calculates the least common multiple of a list of numbers.
      * 
@@ -79,6 +106,87 @@ public class MathHelper {
         return leastCommonMultiple(restOfList);
     }        
     
+    /**
+     * Calculates the least common multiple of the denominators of every 
+     * product of one of the given values and exactly factorCount of the given
+     * factors (the same factor may be used more than once).  The products are
+     * not enumerated: for each prime, the largest power of it that can appear
+     * in a product's denominator is calculated from the smallest exponent of
+     * that prime among the values and among the factors.  The least common 
+     * multiple of these denominators is a multiple of the denominator of any
+     * sum of these products, too.
+     * 
+     * @param values the values
+     * @param factors the factors
+     * @param factorCount the number of factors in each product
+     * @return the least common multiple, or Long.MAX_VALUE if it is too large
+     *         to be represented as a long
+     */
+    public static long leastCommonMultipleOfProductDenominators(Collection<Fraction> values, Collection<Fraction> factors, int factorCount) {
+        if (values.isEmpty()) throw new IllegalArgumentException("You passed an empty collection of values.  It must contain at least one value.");
+        if (factors.isEmpty()) factorCount = 0;
+        
+        SortedSet<Long> primes = new TreeSet<Long>();
+        for (Fraction f : values) addPrimeFactors(f, primes);
+        if (factorCount > 0) for (Fraction f : factors) addPrimeFactors(f, primes);
+        
+        long result = 1L;
+        for (long prime : primes) {
+            int minValueExponent = Integer.MAX_VALUE;
+            for (Fraction f : values) minValueExponent = Math.min(minValueExponent, getPrimeExponent(f, prime));
+            
+            int minFactorExponent = 0;
+            if (factorCount > 0) {
+                minFactorExponent = Integer.MAX_VALUE;
+                for (Fraction f : factors) minFactorExponent = Math.min(minFactorExponent, getPrimeExponent(f, prime));
+            }
+            
+            // a negative exponent means the prime is in the denominator...
+            long denominatorExponent = -((long) minValueExponent + (long) factorCount * minFactorExponent);
+            for (long i = 0; i < denominatorExponent; i++) {
+                if (result > Long.MAX_VALUE / prime) return Long.MAX_VALUE;
+                result *= prime;
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Gets the exponent of the given prime in the given fraction.  This is 
+     * positive if the prime divides the numerator, and negative if it divides
+     * the denominator.
+     * 
+     * @param f the fraction
+     * @param prime the prime number
+     * @return the exponent
+     */
+    private static int getPrimeExponent(Fraction f, long prime) {
+        int exponent = 0;
+        for (long n = Math.abs(f.numerator()); n != 0 && n % prime == 0; n /= prime) exponent++;
+        for (long d = f.denominator(); d % prime == 0; d /= prime) exponent--;
+        return exponent;
+    }
+    
+    /**
+     * Adds the prime factors of the numerator and denominator of the given 
+     * fraction to the given set.
+     * 
+     * @param f the fraction
+     * @param primes the set to add the prime factors to
+     */
+    private static void addPrimeFactors(Fraction f, Set<Long> primes) {
+        for (long n : new long[] {Math.abs(f.numerator()), f.denominator()}) {
+            for (long p = 2; p <= n / p; p++) {
+                while (n % p == 0) {
+                    primes.add(p);
+                    n /= p;
+                }
+            }
+            if (n > 1) primes.add(n);
+        }
+    }
+    
     /**
      * Calculates the base two logarithm of the given number.
      * 
@@ -132,13 +240,41 @@ public class MathHelper {
      * @return the normalized value
      */
     public static int getNormalizedValue(int value, int mod) {        
-        while (value < 0) value += mod;        
-        int returnVal = value % mod;
+        int returnVal = floorMod(value, mod);
         assert returnVal >= 0 && returnVal < mod : returnVal;
         
         return returnVal;
     }
     
+    /**
+     * Divides two numbers, rounding the quotient towards negative infinity 
+     * rather than towards zero.
+     * 
+     * @param dividend the dividend
+     * @param divisor the divisor
+     * @return the largest integer less than or equal to the quotient
+     */
+    public static int floorDiv(int dividend, int divisor) {
+        int quotient = dividend / divisor;
+        // integer division rounds towards zero; adjust when the signs differ 
+        // and there is a remainder...
+        if ((dividend % divisor != 0) && ((dividend ^ divisor) < 0)) quotient--;
+        return quotient;
+    }
+    
+    /**
+     * Gets the modulus of two numbers, with the sign of the divisor.  Unlike
+     * the % operator, this gives a non-negative value for a negative dividend
+     * and a positive divisor.
+     * 
+     * @param dividend the dividend
+     * @param divisor the divisor
+     * @return dividend - floorDiv(dividend, divisor) * divisor
+     */
+    public static int floorMod(int dividend, int divisor) {
+        return dividend - floorDiv(dividend, divisor) * divisor;
+    }
+    
     /**
      * Gets the median value from a list of numbers.  This is the value that has
      * the same number of values above it and below it when the list has
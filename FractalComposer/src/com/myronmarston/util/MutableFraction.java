@@ -0,0 +1,233 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.util;
+
+/**
+ * A mutable fraction, used to accumulate sums of durations in loops without
+ * allocating a new Fraction for each step.  The denominator is kept as the 
+ * least common multiple of the denominators that have been added, so adding
+ * a fraction with the same denominator requires no GCD at all.  The value is
+ * only reduced when it is converted back to a Fraction.
+ * 
+ * @author Myron
+ */
+public class MutableFraction implements Comparable<MutableFraction> {
+    private long numerator;
+    private long denominator;
+    
+    /**
+     * Default constructor.  Initializes the value to zero.
+     */
+    public MutableFraction() {
+        this(0L, 1L);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param numerator the numerator
+     * @param denominator the denominator
+     * @throws IllegalArgumentException if the denominator is zero
+     */
+    public MutableFraction(long numerator, long denominator) throws IllegalArgumentException {
+        this.set(numerator, denominator);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param value the initial value
+     */
+    public MutableFraction(Fraction value) {
+        this.set(value);
+    }
+    
+    /**
+     * Gets the numerator.  The value is not necessarily in reduced form.
+     * 
+     * @return the numerator
+     */
+    public long numerator() {
+        return this.numerator;
+    }
+    
+    /**
+     * Gets the denominator.  This is always positive, but the value is not
+     * necessarily in reduced form.
+     * 
+     * @return the denominator
+     */
+    public long denominator() {
+        return this.denominator;
+    }
+    
+    /**
+     * Sets the value.
+     * 
+     * @param numerator the numerator
+     * @param denominator the denominator
+     * @return this object
+     * @throws IllegalArgumentException if the denominator is zero
+     */
+    public MutableFraction set(long numerator, long denominator) throws IllegalArgumentException {
+        if (denominator == 0L) throw new IllegalArgumentException("The fraction denominator cannot be zero.");
+        
+        this.numerator = (denominator < 0 ? -numerator : numerator);
+        this.denominator = (denominator < 0 ? -denominator : denominator);
+        return this;
+    }
+    
+    /**
+     * Sets the value.
+     * 
+     * @param value the value
+     * @return this object
+     */
+    public MutableFraction set(Fraction value) {
+        return this.set(value.numerator(), value.denominator());
+    }
+    
+    /**
+     * Adds the given value to this one.
+     * 
+     * @param numerator the numerator of the value to add
+     * @param denominator the denominator of the value to add
+     * @return this object
+     * @throws IllegalArgumentException if the denominator is zero
+     */
+    public MutableFraction add(long numerator, long denominator) throws IllegalArgumentException {
+        if (denominator == 0L) throw new IllegalArgumentException("The fraction denominator cannot be zero.");
+        if (denominator < 0) {
+            numerator = -numerator;
+            denominator = -denominator;
+        }
+        
+        if (denominator == this.denominator) {
+            this.numerator += numerator;
+        } else {
+            long gcd = Fraction.gcd(this.denominator, denominator);
+            this.numerator = this.numerator * (denominator / gcd) + numerator * (this.denominator / gcd);
+            this.denominator *= (denominator / gcd);
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Adds the given value to this one.
+     * 
+     * @param value the value to add
+     * @return this object
+     */
+    public MutableFraction add(Fraction value) {
+        return this.add(value.numerator(), value.denominator());
+    }
+    
+    /**
+     * Subtracts the given value from this one.
+     * 
+     * @param value the value to subtract
+     * @return this object
+     */
+    public MutableFraction subtract(Fraction value) {
+        return this.add(-value.numerator(), value.denominator());
+    }
+    
+    /**
+     * Multiplies this value by the given whole number.
+     * 
+     * @param factor the number to multiply by
+     * @return this object
+     */
+    public MutableFraction multiply(long factor) {
+        this.numerator *= factor;
+        return this;
+    }
+    
+    /**
+     * Gets the value of this fraction multiplied by the given whole number, 
+     * which must produce a whole number.  This is useful for converting a time
+     * in whole notes to midi ticks.
+     * 
+     * @param factor the number to multiply by
+     * @return the result of the multiplication
+     */
+    public long timesAsLong(long factor) {
+        // the product should be a whole number; test that this is in fact the case...
+        assert (this.numerator * factor) % this.denominator == 0 : this.toString() + " * " + factor;        
+        return (this.numerator * factor) / this.denominator;
+    }
+    
+    /**
+     * Compares this value with the given fraction.
+     * 
+     * @param other the fraction to compare to
+     * @return a number less, equal, or greater than zero reflecting whether 
+     *         this is less, equal or greater than the other fraction
+     */
+    public int compareTo(Fraction other) {
+        return compare(this.numerator, this.denominator, other.numerator(), other.denominator());
+    }
+    
+    /**
+     * Compares this value with the given whole number.
+     * 
+     * @param n the number to compare to
+     * @return a number less, equal, or greater than zero reflecting whether 
+     *         this is less, equal or greater than n
+     */
+    public int compareTo(long n) {
+        return compare(this.numerator, this.denominator, n, 1L);
+    }
+    
+    public int compareTo(MutableFraction other) {
+        return compare(this.numerator, this.denominator, other.numerator, other.denominator);
+    }
+    
+    private static int compare(long an, long ad, long bn, long bd) {
+        long l = an * bd;
+        long r = bn * ad;
+        return (l < r) ? -1 : ((l == r) ? 0 : 1);
+    }
+    
+    /**
+     * Gets the value as a double.
+     * 
+     * @return the value
+     */
+    public double asDouble() {
+        return ((double) this.numerator) / ((double) this.denominator);
+    }
+    
+    /**
+     * Converts this value to an immutable, reduced Fraction.  Common values 
+     * are returned from Fraction's cache.
+     * 
+     * @return the fraction
+     */
+    public Fraction toFraction() {
+        return Fraction.valueOf(this.numerator, this.denominator);
+    }
+
+    @Override
+    public String toString() {
+        return this.numerator + "/" + this.denominator;
+    }
+}
@@ -20,6 +20,8 @@
 package com.myronmarston.music;
 
 import com.myronmarston.util.FileHelper;
+import java.lang.reflect.Field;
+import java.net.*;
 import java.util.*;
 import javax.sound.midi.MidiEvent;
 import org.junit.Test;
@@ -60,7 +62,51 @@ public class InstrumentTest {
         assertEquals("Trumpet", Instrument.getInstrument("TRUMPET").getName());
         assertNull(Instrument.getInstrument("crazy instrument that doesn't exit"));
     }
+    
+    @Test
+    public void getInstrument_legacyNames() {
+        // names from older versions were cut off at 20 characters
+        assertSame(Instrument.getInstrument("Bright Acoustic Piano"), Instrument.getInstrument("Bright Acoustic Pian"));
+        assertSame(Instrument.getInstrument("Electric Bass (finger)"), Instrument.getInstrument("electric bass (finge"));
+        assertEquals("Acoustic Guitar (nylon)", Instrument.getInstrument("Acoustic Guitar (nyl").getName());
+        assertNull(Instrument.getInstrument("Bright Acoustic"));
+    }
 
+    @Test
+    public void generalMidiPrograms() {
+        assertEquals(128, Instrument.AVAILABLE_INSTRUMENTS.size());
+        Set<Integer> programs = new HashSet<Integer>();
+        for (String name : Instrument.AVAILABLE_INSTRUMENTS) {
+            programs.add(Instrument.getInstrument(name).getProgram());
+        }
+        assertEquals(128, programs.size());
+        assertTrue(programs.contains(0));
+        assertTrue(programs.contains(127));
+        
+        assertEquals("Acoustic Grand Piano", Instrument.DEFAULT.getName());
+        assertEquals(0, Instrument.DEFAULT.getProgram());
+        assertEquals(42, Instrument.getInstrument("Cello").getProgram());
+    }
+    
+    @Test
+    public void instrumentsDoNotLoadSoundbank() throws Exception {
+        // use a fresh class loader, since other tests may have loaded the soundbank
+        URL[] classPath = new URL[] {
+            Instrument.class.getProtectionDomain().getCodeSource().getLocation(),
+            org.simpleframework.xml.Root.class.getProtectionDomain().getCodeSource().getLocation()
+        };
+        ClassLoader loader = new URLClassLoader(classPath, null);
+        Class<?> instrumentClass = Class.forName(Instrument.class.getName(), true, loader);
+        Object cello = instrumentClass.getMethod("getInstrument", String.class).invoke(null, "Cello");
+        MidiEvent event = (MidiEvent) instrumentClass.getMethod("getProgramChangeMidiEvent", int.class).invoke(cello, 3);
+        assertMidiProgramChangeEventEquals(event, 0, 3, 42);
+        instrumentClass.getMethod("toGuidoString").invoke(cello);
+        
+        Field current = Class.forName(MidiSoundbank.class.getName(), true, loader).getDeclaredField("current");
+        current.setAccessible(true);
+        assertNull(current.get(null));
+    }
+    
     @Test
     public void testGetProgramChangeMidiEvent() {
         Instrument i = Instrument.getInstrument("Cello");
@@ -52,6 +52,156 @@ public class NoteListTest {
         
         assertEquals(new Fraction(3, 1), germ.getDuration());
     }    
+    
+    @Test
+    public void cloneOfReadOnlyListSharesNotesUntilUsed() throws Exception {
+        NoteList original = NoteList.parseNoteListString("G4,1/4 A4,1/8 B4,1/8 C5,1/2", Scale.DEFAULT).getReadOnlyCopy();
+        NoteList clone = original.clone();
+        
+        // reading the clone without get() does not copy anything...
+        assertEquals(original.getDuration(), clone.getDuration());
+        assertSame(original.getFirstAudibleNote(), original.get(0));
+        for (int i = 0; i < original.size(); i++) assertSame(original.get(i), clone.getReadOnlyNotes().get(i));
+        
+        // ...but get() hands out a copy the caller can change
+        Note note = clone.get(1);
+        assertNotSame(original.get(1), note);
+        assertSame(note, clone.get(1));
+        note.setVolume(note.getVolume() + 1);
+        assertEquals(original.get(1).getVolume() + 1, clone.get(1).getVolume());
+        
+        // a clone of the clone still shares the notes it has not copied...
+        NoteList cloneOfClone = clone.clone();
+        assertSame(original.get(0), cloneOfClone.getReadOnlyNotes().get(0));
+        assertNotSame(clone.get(1), cloneOfClone.getReadOnlyNotes().get(1));
+        
+        // inserting and removing notes keeps track of which ones are shared...
+        clone.add(0, Note.createRest(new Fraction(1, 4)));
+        clone.remove(2);
+        assertSame(original.get(0), clone.getReadOnlyNotes().get(1));
+        assertSame(original.get(2), clone.getReadOnlyNotes().get(2));
+        assertNotSame(original.get(2), clone.get(2));
+        assertSame(original.get(3), clone.getReadOnlyNotes().get(3));
+        
+        assertEquals(4, clone.size());
+        assertEquals(new Fraction(9, 8), clone.getDuration());
+    }
+    
+    @Test
+    public void cloneOfReadOnlyListDoesNotCopyNotesToRemoveOrMoveThem() throws Exception {
+        NoteList original = NoteList.parseNoteListString("G4,1/4 A4,1/8 B4,1/8 C5,1/2 D5,1/4", Scale.DEFAULT).getReadOnlyCopy();
+        NoteList unchanged = NoteList.parseNoteListString("G4,1/4 A4,1/8 B4,1/8 C5,1/2 D5,1/4", Scale.DEFAULT);
+        NoteList clone = original.clone();
+        
+        // removing or replacing a note hands back the shared note itself...
+        assertSame(original.get(4), clone.remove(4));
+        assertSame(original.get(3), clone.set(3, Note.createRest(new Fraction(1, 2))));
+        
+        // ...which is still copied before get() hands it out if it is put back
+        clone.set(0, original.get(3));
+        assertNotSame(original.get(3), clone.get(0));
+        assertEquals(original.get(3), clone.get(0));
+        clone.get(0).setVolume(clone.get(0).getVolume() + 1);
+        assertEquals(unchanged, original);
+        
+        // reversing a clone doesn't copy its notes or change the original...
+        NoteList reversed = original.clone();
+        reversed.reverse();
+        for (int i = 0; i < original.size(); i++) assertSame(original.get(i), reversed.getReadOnlyNotes().get(original.size() - 1 - i));
+        assertEquals(unchanged, original);
+        
+        // clearing a clone forgets about its shared notes...
+        reversed.clear();
+        Note note = Note.createRest(new Fraction(1, 4));
+        reversed.add(note);
+        assertSame(note, reversed.get(0));
+        assertEquals(unchanged, original);
+    }
+    
+    @Test
+    public void getReadOnlyCopyWithScale() throws Exception {
+        Scale scale = new MajorScale(NoteName.C);
+        Scale equalScale = new MajorScale(NoteName.C);
+        NoteList original = NoteList.parseNoteListString("C4,1/4 R,1/8 D4,1/8", scale).getReadOnlyCopy();
+        NoteList copy = original.getReadOnlyCopy(equalScale);
+        
+        assertTrue(copy.isReadOnly());
+        assertEquals(original, copy);
+        assertSame(equalScale, copy.get(0).getScale());
+        assertSame(equalScale, copy.get(2).getScale());
+        assertSame(scale, original.get(0).getScale());
+        assertSame(scale, original.get(2).getScale());
+        
+        // the rest has no scale, so the copy shares it...
+        assertSame(original.get(1), copy.get(1));
+        
+        // ...and a copy with the same scale instance shares all of the notes
+        NoteList sameScaleCopy = copy.getReadOnlyCopy(equalScale);
+        for (int i = 0; i < copy.size(); i++) assertSame(copy.get(i), sameScaleCopy.get(i));
+    }
+    
+    @Test
+    public void getDuration_cachedUntilModified() {
+        NoteList germ = new NoteList();
+        germ.add(new Note(0, 0, 4, 0, new Fraction(1, 1), 96, Scale.DEFAULT, 0));
+        germ.add(new Note(1, 1, 4, 0, new Fraction(1, 2), 64, Scale.DEFAULT, 0));
+        assertEquals(new Fraction(3, 2), germ.getDuration());
+        assertSame(germ.getDuration(), germ.getDuration());
+        
+        germ.add(Note.createRest(new Fraction(1, 4)));
+        assertEquals(new Fraction(7, 4), germ.getDuration());
+        
+        germ.set(0, Note.createRest(new Fraction(1, 8)));
+        assertEquals(new Fraction(7, 8), germ.getDuration());
+        
+        germ.remove(1);
+        assertEquals(new Fraction(3, 8), germ.getDuration());
+        
+        germ.clear();
+        assertEquals(new Fraction(0, 1), germ.getDuration());
+    }
+    
+    @Test
+    public void getStartTimeAndNoteAtTime() {
+        NoteList germ = new NoteList();
+        germ.add(new Note(0, 0, 4, 0, new Fraction(1, 1), 96, Scale.DEFAULT, 0));
+        germ.add(new Note(1, 1, 4, 0, new Fraction(1, 2), 64, Scale.DEFAULT, 0));
+        germ.add(new Note(2, 2, 4, 0, new Fraction(1, 3), 64, Scale.DEFAULT, 0));
+        germ.add(new Note(0, 0, 4, 0, new Fraction(1, 1), 96, Scale.DEFAULT, 0));
+        
+        assertEquals(new Fraction(0, 1), germ.getStartTime(0));
+        assertEquals(new Fraction(1, 1), germ.getStartTime(1));
+        assertEquals(new Fraction(3, 2), germ.getStartTime(2));
+        assertEquals(new Fraction(11, 6), germ.getStartTime(3));
+        assertEquals(new Fraction(17, 6), germ.getStartTime(4));
+        assertEquals(germ.getDuration(), germ.getStartTime(4));
+        
+        assertEquals(-1, germ.getNoteIndexAtTime(new Fraction(-1, 4)));
+        assertEquals(0, germ.getNoteIndexAtTime(new Fraction(0, 1)));
+        assertEquals(0, germ.getNoteIndexAtTime(new Fraction(99, 100)));
+        assertEquals(1, germ.getNoteIndexAtTime(new Fraction(1, 1)));
+        assertEquals(2, germ.getNoteIndexAtTime(new Fraction(7, 4)));
+        assertEquals(3, germ.getNoteIndexAtTime(new Fraction(11, 6)));
+        assertEquals(3, germ.getNoteIndexAtTime(new Fraction(5, 2)));
+        assertEquals(-1, germ.getNoteIndexAtTime(new Fraction(17, 6)));
+        assertSame(germ.get(2), germ.getNoteAtTime(new Fraction(7, 4)));
+        assertNull(germ.getNoteAtTime(new Fraction(3, 1)));
+        
+        // the index must be rebuilt after a modification...
+        germ.add(0, Note.createRest(new Fraction(1, 2)));
+        assertEquals(new Fraction(3, 2), germ.getStartTime(2));
+        assertEquals(0, germ.getNoteIndexAtTime(new Fraction(1, 4)));
+        assertEquals(1, germ.getNoteIndexAtTime(new Fraction(1, 2)));
+        
+        assertEquals(-1, new NoteList().getNoteIndexAtTime(new Fraction(0, 1)));
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void getStartTime_outOfBounds() {
+        NoteList germ = new NoteList();
+        germ.add(Note.createRest(new Fraction(1, 2)));
+        germ.getStartTime(2);
+    }
    
     @Test
     public void parseNoteListString() throws InvalidKeySignatureException, NoteStringParseException { 
@@ -304,6 +304,26 @@ public class NoteTest {
         assertTrue(mn.getPitch() <= MidiNote.MAX_PITCH_NUM);        
     }
     
+    @Test
+    public void getNormalizedScaleStepAndOctave() throws Exception {
+        int numScaleSteps = Scale.DEFAULT.getScaleStepArray().length;
+        for (int scaleStep = -15; scaleStep <= 15; scaleStep++) {
+            Note n = new Note(scaleStep, scaleStep, 4, 1, new Fraction(1, 4), 64, Scale.DEFAULT, 0);
+            Note normalized = n.getNormalizedNote();
+            assertEquals(normalized.getScaleStep(), n.getNormalizedScaleStep());
+            assertEquals(normalized.getOctave(), n.getNormalizedOctave());
+            assertEquals(normalized.getLetterNumber(), n.getNormalizedLetterNumber());
+            assertTrue(n.getNormalizedScaleStep() >= 0 && n.getNormalizedScaleStep() < numScaleSteps);
+            assertEquals(n.getScaleStep() + numScaleSteps * n.getOctave(), n.getNormalizedScaleStep() + numScaleSteps * n.getNormalizedOctave());
+        }
+        
+        Note n = new Note(-1, -1, 4, 0, new Fraction(1, 4), 64, Scale.DEFAULT, 0);
+        assertEquals(numScaleSteps - 1, n.getNormalizedScaleStep());
+        assertEquals(3, n.getNormalizedOctave());
+        assertEquals(6, n.getNormalizedLetterNumber());
+        assertEquals(n.getNormalizedNote().convertToMidiNote(0L, 4, 0, true).getPitch(), n.convertToMidiNote(0L, 4, 0, true).getPitch());
+    }
+    
     @Test
     public void performTransformerAdjustment() throws Exception {
         Scale scale = new MajorPentatonicScale(NoteName.G);        
@@ -391,6 +411,53 @@ public class NoteTest {
         }
     }
     
+    @Test
+    public void parseNoteStringAcceptsSameStringsAsRegex() throws InvalidKeySignatureException {
+        String[] noteNamesOrRests = new String[] {"", "C", "c", "Bb", "bB", "Cbb", "Cbbb", "F#", "f##", "Ax", "gX", "H", "R", "r", "Rb", "#"};
+        String[] octaves = new String[] {"", "0", "4", "9", "12", "T"};
+        String[] durationsAndDynamics = new String[] {"", ",", ",1", ",3/8", ",12/16", ",0/4", ",1/0", ",01", ",1/", ",MF", ",mp", ",ppp", ",MPF", ",M", ",1/4,F", ",1/4,", ",1/4,MF,MF", ",MF,1/4", ", 1/4", ",1/4 "};
+        Scale scale = new MajorScale(NoteName.D);
+        
+        for (String noteNameOrRest : noteNamesOrRests) {
+            for (String octave : octaves) {
+                for (String durationOrDynamic : durationsAndDynamics) {
+                    String noteString = noteNameOrRest + octave + durationOrDynamic;
+                    boolean regexMatches = Note.REGEX_PATTERN.matcher(noteString).matches();
+                    boolean parsed;
+                    try {
+                        Note.parseNoteString(noteString, scale, null, null);
+                        parsed = true;
+                    } catch (NoteStringParseException ex) {
+                        parsed = false;
+                    }
+                    
+                    assertEquals("Parsing of '" + noteString + "'", regexMatches, parsed);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void parseNoteStringGivesSamePitchForAllScales() throws InvalidKeySignatureException, NoteStringParseException {
+        Scale[] scales = new Scale[] {new MajorScale(NoteName.Eb), new NaturalMinorScale(NoteName.A), new HarmonicMinorScale(NoteName.B), new MajorPentatonicScale(NoteName.Fs), new ChromaticScale(NoteName.G)};
+        String[] noteNames = new String[] {"Cbb", "Cb", "C", "C#", "Cx", "Eb", "E#", "Gb", "A", "Bb", "B", "B#", "Bx"};
+        
+        for (String noteName : noteNames) {
+            for (int octave = 0; octave <= 9; octave++) {
+                String noteString = noteName + octave + ",1/8,P";
+                Note chromaticNote = Note.parseNoteString(noteString, Scale.DEFAULT, null, null);
+                int expectedPitch = chromaticNote.convertToMidiNote(0L, 8, 0, true).getPitch();
+                
+                for (Scale scale : scales) {
+                    Note n = Note.parseNoteString(noteString, scale, null, null);
+                    assertEquals(noteString + " in " + scale, expectedPitch, n.convertToMidiNote(0L, 8, 0, true).getPitch());
+                    assertEquals(new Fraction(1, 8), n.getDuration());
+                    assertEquals(Dynamic.P.getMidiVolume(), n.getVolume());
+                }
+            }
+        }
+    }
+    
     public static void assertNotesEqual(Note expected, Note actual, boolean allowDifferentVoiceSectionReferences) {                        
         // These could be null if we passed NoteList.getFirstAudibleNote() as
         // sometimes there is not an audible note
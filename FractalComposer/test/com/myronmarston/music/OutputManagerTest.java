@@ -96,6 +96,31 @@ public class OutputManagerTest {
         });           
     }
 
+    @Test
+    public void constructFromNoteStreams() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4,1/4 A4,1/8 R,1/8 B4,1/4,F G4");
+        fp.createDefaultSettings();
+        fp.getSections().get(1).getVoiceSections().get(0).setRest(true);
+        
+        List<NoteStream> streams = new ArrayList<NoteStream>();
+        for (Voice v : fp.getVoices()) streams.add(v.getEntireVoiceStream());
+        OutputManager streamedOM = new OutputManager(fp, streams);
+        
+        List<NoteList> lists = new ArrayList<NoteList>();
+        for (Voice v : fp.getVoices()) lists.add(v.getEntireVoice());
+        OutputManager listOM = new OutputManager(fp, lists);
+        
+        assertEquals(listOM.getPieceNotation().toGuidoString(), streamedOM.getPieceNotation().toGuidoString());
+        assertEquals(listOM.getSequence().getResolution(), streamedOM.getSequence().getResolution());
+        assertEquals(listOM.getSequence().getTickLength(), streamedOM.getSequence().getTickLength());
+        assertEquals(listOM.getSequence().getTracks().length, streamedOM.getSequence().getTracks().length);
+        for (int i = 0; i < lists.size(); i++) {
+            NoteListTest.assertNoteListsEqual(lists.get(i), streamedOM.getNoteLists().get(i));
+            assertEquals(lists.get(i).getInstrument(), streamedOM.getNoteLists().get(i).getInstrument());
+        }
+    }
+    
     @Test
     public void getGuidoNotation_forPentatonicScale() throws Exception {
         FractalPiece fp = new FractalPiece();
@@ -289,6 +314,13 @@ public class OutputManagerTest {
         assertEquals(48, om.getMidiTickResolution());
     }       
     
+    @Test(expected=UnsupportedOperationException.class)
+    public void getMidiTickResolution_tooLargeForMidiSequence() throws Exception {
+        // 7 * 11 * 13 * 17 * 19 = 323323 ticks per quarter note...
+        NoteList nl = NoteList.parseNoteListString("C4,1/7 C4,1/11 C4,1/13 C4,1/17 C4,1/19", new MajorScale(NoteName.C));
+        new OutputManager(this.outputManager.getFractalPiece(), Arrays.asList(nl));
+    }
+    
     @Test
     public void tempoIsCached() throws Exception {
         FractalPiece fp = new FractalPiece();
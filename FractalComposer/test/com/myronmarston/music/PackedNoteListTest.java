@@ -0,0 +1,135 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music;
+
+import com.myronmarston.music.scales.*;
+import com.myronmarston.music.settings.*;
+import com.myronmarston.music.transformers.*;
+import com.myronmarston.util.Fraction;
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Myron
+ */
+public class PackedNoteListTest {
+    
+    private static NoteList getTestNoteList() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4,1/4 A4,1/8 R,1/8 B4,1/6,F F#4,1/12");
+        fp.createDefaultSettings();
+        return fp.getVoices().get(0).getEntireVoice();
+    }
+    
+    @Test
+    public void packedListContainsSameNotes() throws Exception {
+        NoteList notes = getTestNoteList();
+        notes.setInstrument(Instrument.getInstrument("Viola"));
+        PackedNoteList packed = new PackedNoteList(notes);
+        
+        assertEquals(notes.size(), packed.size());
+        assertEquals(notes.getInstrument(), packed.getInstrument());
+        assertEquals(notes.getDuration(), packed.getDuration());
+        
+        Iterator<Note> packedIterator = packed.iterator();
+        for (int i = 0; i < notes.size(); i++) {
+            assertEquals(notes.get(i), packed.get(i));
+            assertEquals(notes.get(i), packedIterator.next());
+            assertSame(notes.get(i).getSourceVoiceSection(), packed.get(i).getSourceVoiceSection());
+        }        
+        assertFalse(packedIterator.hasNext());
+        
+        NoteListTest.assertNoteListsEqual(notes, packed.toNoteList());
+    }
+    
+    @Test
+    public void segmentTableOnlyGrowsWhenScaleOrVoiceSectionChanges() throws Exception {
+        VoiceSection vs = getTestNoteList().get(0).getSourceVoiceSection();
+        PackedNoteList packed = new PackedNoteList();
+        
+        for (int i = 0; i < 3; i++) {
+            Note n = new Note(0, 0, 4, 0, new Fraction(1, 4), 64, Scale.DEFAULT, 0);
+            n.setSourceVoiceSection(vs);
+            packed.add(n);
+        }
+        assertEquals(1, packed.getSegmentCount());
+        
+        packed.add(new Note(0, 0, 4, 0, new Fraction(1, 4), 64, new NaturalMinorScale(NoteName.D), 0));
+        assertEquals(2, packed.getSegmentCount());
+        assertEquals(new NaturalMinorScale(NoteName.D), packed.get(3).getScale());
+        assertEquals(Scale.DEFAULT, packed.get(2).getScale());
+        assertSame(vs, packed.get(2).getSourceVoiceSection());
+        assertNull(packed.get(3).getSourceVoiceSection());
+    }
+    
+    @Test
+    public void retrievedNotesAreCopies() throws Exception {
+        PackedNoteList packed = new PackedNoteList();
+        packed.add(new Note(0, 0, 4, 0, new Fraction(1, 4), 64, Scale.DEFAULT, 0));
+        
+        packed.get(0).setOctave(6);
+        assertEquals(4, packed.get(0).getOctave());
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void insertingIsNotSupported() throws Exception {
+        PackedNoteList packed = new PackedNoteList();
+        packed.add(Note.createRest(new Fraction(1, 4)));
+        packed.add(0, Note.createRest(new Fraction(1, 4)));
+    }
+    
+    @Test
+    public void transformPackedList() throws Exception {
+        NoteList notes = getTestNoteList();
+        TransformerChain chain = new TransformerChain(new OctaveTransformer(1), new TransposeTransformer(2, 2));
+        
+        PackedNoteList result = chain.transform(new PackedNoteList(notes));
+        NoteListTest.assertNoteListsEqual(chain.transform(notes), result.toNoteList());
+    }
+    
+    @Test
+    public void selfSimilarityTransformToPackedList() throws Exception {
+        NoteList germ = NoteList.parseNoteListString("G4,1/4 A4,1/8 R,1/8 B4,1/4,F G4", Scale.DEFAULT);
+        SelfSimilarityTransformer t = new SelfSimilarityTransformer(true, true, true, 3);
+        
+        NoteListTest.assertNoteListsEqual(t.transform(germ), t.transformToPackedList(germ).toNoteList());
+    }
+    
+    @Test
+    public void outputManagerAcceptsPackedLists() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4,1/4 A4,1/8 R,1/8 B4,1/4,F G4");
+        fp.createDefaultSettings();
+        
+        List<NoteList> lists = new ArrayList<NoteList>();
+        List<PackedNoteList> packedLists = new ArrayList<PackedNoteList>();
+        for (Voice v : fp.getVoices()) {
+            lists.add(v.getEntireVoice());
+            packedLists.add(new PackedNoteList(v.getEntireVoice()));
+        }
+        
+        OutputManager listOM = new OutputManager(fp, lists);
+        OutputManager packedOM = new OutputManager(fp, packedLists);
+        assertEquals(listOM.getPieceNotation().toGuidoString(), packedOM.getPieceNotation().toGuidoString());
+        assertEquals(listOM.getSequence().getTickLength(), packedOM.getSequence().getTickLength());
+    }
+}
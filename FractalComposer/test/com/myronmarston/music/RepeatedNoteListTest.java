@@ -0,0 +1,84 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music;
+
+import com.myronmarston.music.scales.*;
+import com.myronmarston.util.Fraction;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Myron
+ */
+public class RepeatedNoteListTest {
+    
+    @Test
+    public void repeatsNotes() throws Exception {
+        NoteList notes = NoteList.parseNoteListString("C4,1/4 D4,1/8 E4,1/8", new MajorScale());
+        Note rest = Note.createRest(new Fraction(1, 4));
+        RepeatedNoteList view = new RepeatedNoteList(notes, 3, rest);
+        
+        assertEquals(10, view.size());
+        assertEquals(new Fraction(7, 4), view.getDuration());
+        assertSame(notes.get(1), view.get(1));
+        assertSame(notes.get(1), view.get(4));
+        assertSame(notes.get(2), view.get(8));
+        assertSame(rest, view.get(9));
+        
+        NoteList expected = new NoteList();
+        for (int i = 0; i < 3; i++) expected.addAll(notes);
+        expected.add(rest);
+        NoteListTest.assertNoteListsEqual(expected, view.toNoteList());
+        assertEquals(view.getDuration(), view.toNoteList().getDuration());
+    }
+    
+    @Test
+    public void withoutTrailingNote() throws Exception {
+        NoteList notes = NoteList.parseNoteListString("C4,1/4 D4,1/8", new MajorScale());
+        RepeatedNoteList view = new RepeatedNoteList(notes, 2, null);
+        assertEquals(4, view.size());
+        assertEquals(new Fraction(3, 4), view.getDuration());
+        assertSame(notes.get(1), view.get(3));
+        
+        view = new RepeatedNoteList(notes, 0, null);
+        assertEquals(0, view.size());
+        assertEquals(new Fraction(0, 1), view.getDuration());
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void getOutOfBounds() throws Exception {
+        NoteList notes = NoteList.parseNoteListString("C4,1/4 D4,1/8", new MajorScale());
+        new RepeatedNoteList(notes, 2, null).get(4);
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void isReadOnly() throws Exception {
+        NoteList notes = NoteList.parseNoteListString("C4,1/4 D4,1/8", new MajorScale());
+        new RepeatedNoteList(notes, 2, null).add(Note.createRest(new Fraction(1, 4)));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void negativeRepeatCount() throws Exception {
+        NoteList notes = NoteList.parseNoteListString("C4,1/4 D4,1/8", new MajorScale());
+        new RepeatedNoteList(notes, -1, null);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.scales;
+
+import com.myronmarston.util.ClassHelper;
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.jar.*;
+
+/**
+ * Benchmarks initializing the Scale class, which builds SCALE_TYPES from an
+ * explicit list, against scanning the scales package for scale types, as the
+ * static initializer used to do.  Each measurement uses a fresh class loader,
+ * so the classes are loaded again every time.  The application classes are
+ * measured both from a jar (as they are deployed) and from the directory they
+ * were loaded from.  This is not part of the unit tests; run it with main().
+ * 
+ * @author Myron
+ */
+public class ScaleStartupBenchmark {
+    private static final int RUNS = 21;
+    
+    public static void main(String[] args) throws Exception {
+        URL classesLocation = Scale.class.getProtectionDomain().getCodeSource().getLocation();
+        URL simpleXmlLocation = org.simpleframework.xml.Root.class.getProtectionDomain().getCodeSource().getLocation();
+        
+        File classesDirectory = new File(classesLocation.toURI());
+        if (classesDirectory.isDirectory()) {
+            File jarFile = createJar(classesDirectory);
+            try {
+                benchmark("jar", new URL[] {jarFile.toURI().toURL(), simpleXmlLocation});
+            } finally {
+                jarFile.delete();
+            }
+        }
+        benchmark(classesDirectory.isDirectory() ? "directory" : "jar", new URL[] {classesLocation, simpleXmlLocation});
+    }
+    
+    private static void benchmark(String description, URL[] classPath) throws Exception {
+        String packageName = Scale.class.getPackage().getName();
+        long[] registryNanos = new long[RUNS];
+        long[] scanNanos = new long[RUNS];
+        ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+        
+        try {
+            for (int i = 0; i < RUNS; i++) {
+                URLClassLoader loader = new URLClassLoader(classPath, null);
+                long start = System.nanoTime();
+                Class.forName(Scale.class.getName(), true, loader);
+                registryNanos[i] = System.nanoTime() - start;
+                
+                // The scan loads and initializes every class in the package,
+                // including Scale; the old static initializer then created
+                // each scale type reflectively.
+                loader = new URLClassLoader(classPath, null);
+                Thread.currentThread().setContextClassLoader(loader);
+                start = System.nanoTime();
+                Class<?> classHelper = Class.forName(ClassHelper.class.getName(), true, loader);
+                Class<?> scaleClass = Class.forName(Scale.class.getName(), false, loader);
+                List<?> scaleTypes = (List<?>) classHelper.getMethod("getSubclassesInPackage", String.class, Class.class).invoke(null, packageName, scaleClass);
+                for (Object scaleType : scaleTypes) {
+                    Class<?> c = (Class<?>) scaleType;
+                    if (!java.lang.reflect.Modifier.isAbstract(c.getModifiers())) c.getDeclaredConstructor().newInstance();
+                }
+                scanNanos[i] = System.nanoTime() - start;
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+        }
+        
+        System.out.println(String.format("From a %s: %.2f ms with the scale type list; %.2f ms with the package scan (median of %d runs).", 
+            description, getMedian(registryNanos) / 1000000.0, getMedian(scanNanos) / 1000000.0, RUNS));
+    }
+    
+    private static long getMedian(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+    
+    private static File createJar(File classesDirectory) throws IOException {
+        File jarFile = File.createTempFile("ScaleStartupBenchmark", ".jar");
+        JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile));
+        try {
+            addToJar(jar, classesDirectory, "");
+        } finally {
+            jar.close();
+        }
+        return jarFile;
+    }
+    
+    private static void addToJar(JarOutputStream jar, File directory, String path) throws IOException {
+        for (File file : directory.listFiles()) {
+            String name = path + file.getName();
+            if (file.isDirectory()) {
+                // directory entries are needed for the package scan to find the package
+                jar.putNextEntry(new JarEntry(name + "/"));
+                jar.closeEntry();
+                addToJar(jar, file, name + "/");
+            } else {
+                jar.putNextEntry(new JarEntry(name));
+                InputStream in = new FileInputStream(file);
+                try {
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while ((count = in.read(buffer)) > 0) jar.write(buffer, 0, count);
+                } finally {
+                    in.close();
+                }
+                jar.closeEntry();
+            }
+        }
+    }
+}
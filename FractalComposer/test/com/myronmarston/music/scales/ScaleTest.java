@@ -23,8 +23,10 @@ import com.myronmarston.music.MidiNote;
 import com.myronmarston.music.Note;
 import com.myronmarston.music.NoteName;
 
+import com.myronmarston.util.ClassHelper;
 import com.myronmarston.util.Fraction;
 
+import java.lang.reflect.Modifier;
 import java.util.*;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -580,6 +582,21 @@ public class ScaleTest {
         assertEquals(Scale.SCALE_TYPES.get(ChromaticScale.class), (new ChromaticScale()).getValidKeyNames());
     }
     
+    @Test
+    public void scaleTypesIncludeAllScalesInPackage() throws Exception {
+        // SCALE_TYPES is an explicit list; make sure no scale has been left out
+        Set<Class> concreteScaleTypes = new HashSet<Class>();
+        for (Class scaleType : ClassHelper.getSubclassesInPackage(Scale.class.getPackage().getName(), Scale.class)) {
+            if (!Modifier.isAbstract(scaleType.getModifiers())) concreteScaleTypes.add(scaleType);
+        }
+        assertEquals(concreteScaleTypes, Scale.SCALE_TYPES.keySet());
+        
+        for (Class<?> scaleType : Scale.SCALE_TYPES.keySet()) {
+            Scale s = (Scale) scaleType.getDeclaredConstructor().newInstance();
+            assertEquals(s.getValidKeyNames(), Scale.SCALE_TYPES.get(scaleType));
+        }
+    }
+    
     @Test
     public void defaultScale() {
         assertTrue(Scale.DEFAULT instanceof ChromaticScale);
@@ -643,6 +660,47 @@ public class ScaleTest {
         assertEquals(NoteName.Bb, s2.getKeyName());
     }
     
+    @Test
+    public void pitchLookupTables() throws Exception {
+        for (Class scaleType : Scale.SCALE_TYPES.keySet()) {
+            List<NoteName> keyNames = new ArrayList<NoteName>(Scale.SCALE_TYPES.get(scaleType));
+            if (keyNames.isEmpty()) keyNames.add(NoteName.C);
+            
+            for (NoteName keyName : keyNames) {
+                @SuppressWarnings("unchecked")
+                Scale s = (Scale) scaleType.getConstructor(NoteName.class).newInstance(keyName);
+                int[] scaleSteps = s.getScaleStepArray();
+                assertEquals(scaleSteps.length, s.getNumScaleSteps());
+                
+                for (int scaleStep = -2 * scaleSteps.length; scaleStep < 2 * scaleSteps.length; scaleStep++) {
+                    int normalizedScaleStep = s.getNormalizedScaleStep(scaleStep);
+                    int octave = 4 + (scaleStep - normalizedScaleStep) / scaleSteps.length;
+                    assertEquals(scaleSteps[normalizedScaleStep], s.getHalfStepsAboveTonic(scaleStep));
+                    assertEquals(scaleSteps[normalizedScaleStep] - 1 + s.getKeyName().getMidiPitchNumberAtOctave(octave), s.getMidiPitchNumber(scaleStep, 4, -1));
+                }
+                
+                for (int halfSteps = -12; halfSteps < 24; halfSteps++) {
+                    assertEquals(Arrays.binarySearch(scaleSteps, (halfSteps + 12) % 12) >= 0, s.containsChromaticPitch(halfSteps));
+                }
+                
+                // every note name should resolve to a scale step and 
+                // chromatic adjustment that produce its pitch...
+                for (NoteName noteName : NoteName.values()) {
+                    Note n = new Note();
+                    s.setNotePitchValues(n, noteName);
+                    assertEquals(s.getKeyName().getPositiveChromaticSteps(noteName), (scaleSteps[n.getScaleStep()] + n.getChromaticAdjustment() + 12) % 12);
+                }
+            }
+        }
+        
+        // the tables should follow the key...
+        Scale s = new MajorScale(NoteName.C);
+        assertEquals(60, s.getMidiPitchNumber(0, 4, 0));
+        Scale s2 = s.getCopyWithDifferentKey(NoteName.D);
+        assertEquals(62, s2.getMidiPitchNumber(0, 4, 0));
+        assertEquals(60, s.getMidiPitchNumber(0, 4, 0));
+    }
+    
     @Test
     public void getNormalizedScaleStep() throws Exception {
         assertEquals(4, (new MajorScale(NoteName.C)).getNormalizedScaleStep(4));
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+import com.myronmarston.util.FileHelper;
+import javax.sound.midi.*;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Myron
+ */
+public class BatchPieceGeneratorTest {
+
+    private static String createPieceXml(String germString) throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString(germString);
+        fp.createDefaultSettings();
+        return fp.getXmlRepresentation();
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void constructor_tooFewPendingPieces() {
+        new BatchPieceGenerator(4, 3);
+    }
+    
+    @Test
+    public void generate() throws Exception {
+        final String[] germs = new String[] {"C4 D4 E4", "G4 F4", "A4 B4 C5", "E4 E4 G4", "C4 D4 E4", "F4 A4"};
+        final List<BatchPieceGenerator.PieceSpec> specs = new ArrayList<BatchPieceGenerator.PieceSpec>();
+        File tempDirectory = FileHelper.getTempDirectory();
+        for (int i = 0; i < germs.length; i++) {
+            String midiFileName = new File(tempDirectory, "BatchTest" + System.nanoTime() + "_" + i + ".mid").getCanonicalPath();
+            specs.add(new BatchPieceGenerator.XmlPieceSpec(createPieceXml(germs[i]), midiFileName));
+        }
+        
+        // a piece with an empty germ cannot be generated...
+        BatchPieceGenerator.PieceSpec badSpec = new BatchPieceGenerator.XmlPieceSpec(createPieceXml(""), new File(tempDirectory, "BatchTestBad.mid").getCanonicalPath());
+        specs.add(3, badSpec);
+        
+        final int maxPendingPieces = 3;
+        final AtomicInteger readCount = new AtomicInteger();
+        final AtomicInteger finishedCount = new AtomicInteger();
+        final AtomicInteger maxObservedPending = new AtomicInteger();
+        final List<BatchPieceGenerator.PieceSpec> failedSpecs = Collections.synchronizedList(new ArrayList<BatchPieceGenerator.PieceSpec>());
+        
+        Iterator<BatchPieceGenerator.PieceSpec> iterator = new Iterator<BatchPieceGenerator.PieceSpec>() {
+            private final Iterator<BatchPieceGenerator.PieceSpec> inner = specs.iterator();
+            public boolean hasNext() {
+                return inner.hasNext();
+            }
+            public BatchPieceGenerator.PieceSpec next() {
+                int pending = readCount.incrementAndGet() - finishedCount.get();
+                if (pending > maxObservedPending.get()) maxObservedPending.set(pending);
+                return inner.next();
+            }
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        
+        try {
+            int generated = new BatchPieceGenerator(2, maxPendingPieces).generate(iterator, new BatchPieceGenerator.Listener() {
+                public void pieceGenerated(BatchPieceGenerator.PieceSpec spec) {
+                    finishedCount.incrementAndGet();
+                }
+                public void pieceFailed(BatchPieceGenerator.PieceSpec spec, Exception ex) {
+                    failedSpecs.add(spec);
+                    finishedCount.incrementAndGet();
+                }
+            });
+            
+            assertEquals(germs.length, generated);
+            assertEquals(Arrays.asList(badSpec), failedSpecs);
+            assertTrue(maxObservedPending.get() <= maxPendingPieces);
+            
+            for (BatchPieceGenerator.PieceSpec spec : specs) {
+                if (spec == badSpec) continue;
+                // this will throw an exception if a valid midi file was not saved...
+                Sequence seq = MidiSystem.getSequence(new File(spec.getMidiFileName()));
+                assertTrue(seq.getTracks().length > 1);
+            }
+            assertFalse(new File(badSpec.getMidiFileName()).exists());
+        } finally {
+            for (BatchPieceGenerator.PieceSpec spec : specs) new File(spec.getMidiFileName()).delete();
+        }
+    }
+    
+    @Test(timeout=60000)
+    public void generate_errorDoesNotHang() throws Exception {
+        final Error error = new AssertionError("test error");
+        final File midiFile = new File(FileHelper.getTempDirectory(), "BatchTestError" + System.nanoTime() + ".mid");
+        List<BatchPieceGenerator.PieceSpec> specs = new ArrayList<BatchPieceGenerator.PieceSpec>();
+        for (int i = 0; i < 4; i++) {
+            specs.add(new BatchPieceGenerator.PieceSpec() {
+                public FractalPiece createFractalPiece() throws Exception {
+                    throw error;
+                }
+                public String getMidiFileName() {
+                    return midiFile.getPath();
+                }
+            });
+        }
+        
+        final List<BatchPieceGenerator.PieceSpec> failedSpecs = Collections.synchronizedList(new ArrayList<BatchPieceGenerator.PieceSpec>());
+        try {
+            new BatchPieceGenerator(2, 2).generate(specs.iterator(), new BatchPieceGenerator.Listener() {
+                public void pieceGenerated(BatchPieceGenerator.PieceSpec spec) {
+                    fail("No piece should have been generated.");
+                }
+                public void pieceFailed(BatchPieceGenerator.PieceSpec spec, Exception ex) {
+                    failedSpecs.add(spec);
+                }
+            });
+            fail("The error was not rethrown.");
+        } catch (AssertionError err) {
+            assertSame(error, err);
+        }
+        
+        assertTrue(failedSpecs.isEmpty());
+        assertFalse(midiFile.exists());
+    }
+}
@@ -20,11 +20,14 @@
 package com.myronmarston.music.settings;
 
 import com.myronmarston.music.*;
+import com.myronmarston.music.notation.NotationElement;
+import com.myronmarston.music.notation.Part;
 import com.myronmarston.music.scales.*;
 import com.myronmarston.util.*;
 import javax.sound.midi.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.lang.reflect.*;
 
 import org.junit.Test;
@@ -204,6 +207,246 @@ public class FractalPieceTest {
         assertEquals(beforeUniqueVoiceIndex, fp.getVoices().getLastUniqueIndex());
     }
     
+    @Test
+    public void createPieceResultOutputManager_withVoiceGenerationExecutor() throws Exception {
+        String germString = "G4,1/4,MF A4,1/8,F B4,1/8,F G4,1/4,MF";
+        FractalPiece sequentialPiece = new FractalPiece();
+        sequentialPiece.setScale(new MajorScale(NoteName.G));
+        sequentialPiece.setGermString(germString);  
+        sequentialPiece.createDefaultSettings();
+        OutputManager sequentialOM = sequentialPiece.createPieceResultOutputManager();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            FractalPiece parallelPiece = new FractalPiece();
+            parallelPiece.setScale(new MajorScale(NoteName.G));
+            parallelPiece.setGermString(germString);  
+            parallelPiece.createDefaultSettings();
+            parallelPiece.setVoiceGenerationExecutor(executor);
+            OutputManager parallelOM = parallelPiece.createPieceResultOutputManager();
+            
+            assertEquals(sequentialOM.getNoteLists().size(), parallelOM.getNoteLists().size());
+            for (int i = 0; i < sequentialOM.getNoteLists().size(); i++) {
+                NoteListTest.assertNoteListsEqual(sequentialOM.getNoteLists().get(i), parallelOM.getNoteLists().get(i), true);
+            }
+            assertEquals(sequentialOM.getPieceNotation().toGuidoString(), parallelOM.getPieceNotation().toGuidoString());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void createPieceResultOutputManager_withPrecalculatedMidiTickResolution() throws Exception {
+        String germString = "G4,1/4,MF A4,1/8,F B4,1/6,F G4,1/12,MF R,1/4";
+        FractalPiece fp = new FractalPiece();
+        fp.setScale(new MajorScale(NoteName.G));
+        fp.setGermString(germString);  
+        fp.createDefaultSettings();
+        fp.getSections().get(1).getSettings().setApplyRetrograde(true);
+        fp.getSections().get(2).getSettings().setSpeedScaleFactor(new Fraction(3, 2));
+        fp.getVoices().get(0).getSettings().setSpeedScaleFactor(new Fraction(5, 4));
+        OutputManager scannedOM = fp.createPieceResultOutputManager();
+        
+        fp.setPrecalculateMidiTickResolution(true);
+        OutputManager precalculatedOM = fp.createPieceResultOutputManager();
+        
+        // the calculated resolution must be able to represent every note...
+        int scannedResolution = scannedOM.getSequence().getResolution();
+        int precalculatedResolution = precalculatedOM.getSequence().getResolution();
+        assertEquals(0, precalculatedResolution % scannedResolution);
+        
+        int multiple = precalculatedResolution / scannedResolution;
+        long offset = MidiNote.MIDI_SEQUENCE_START_SILENCE_TICK_OFFSET; // the silence at the start is not scaled
+        assertEquals((scannedOM.getSequence().getTickLength() - offset) * multiple, precalculatedOM.getSequence().getTickLength() - offset);
+        assertEquals(scannedOM.getPieceNotation().toGuidoString(), precalculatedOM.getPieceNotation().toGuidoString());
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void createPieceResultOutputManager_withPrecalculatedMidiTickResolutionTooLarge() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4,1/4 A4,1/8");
+        fp.createDefaultSettings();
+        fp.getSections().get(0).getSettings().setSpeedScaleFactor(new Fraction(7, 1));
+        fp.getSections().get(1).getSettings().setSpeedScaleFactor(new Fraction(11, 1));
+        fp.getSections().get(2).getSettings().setSpeedScaleFactor(new Fraction(13, 1));
+        fp.getSections().get(3).getSettings().setSpeedScaleFactor(new Fraction(17, 1));
+        fp.setPrecalculateMidiTickResolution(true);
+        
+        assertTrue(fp.calculateMidiTickResolution() > OutputManager.MAX_MIDI_TICK_RESOLUTION);
+        fp.createPieceResultOutputManager();
+    }
+    
+    @Test
+    public void estimatePieceResult() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4,1/4 A4,1/8 R,1/8 B4,1/4,F G4");
+        fp.createDefaultSettings();
+        fp.getVoices().get(0).getSettings().getSelfSimilaritySettings().setSelfSimilarityIterations(3);
+        fp.getSections().get(1).getVoiceSections().get(2).setRest(true);
+        
+        PieceEstimate estimate = fp.estimatePieceResult();
+        int sectionCount = fp.getSections().size();
+        
+        fp.setPrecalculateMidiTickResolution(true);
+        OutputManager om = fp.createPieceResultOutputManager();
+        long noteCount = 0;
+        for (NoteList nl : om.getNoteLists()) noteCount += nl.size();
+        
+        assertEquals(noteCount, estimate.getNoteCount());
+        assertEquals(om.getSequence().getResolution(), estimate.getMidiTickResolution());
+        assertEquals(noteCount * (PieceEstimate.BYTES_PER_GENERATED_NOTE + PieceEstimate.BYTES_PER_OUTPUT_NOTE), estimate.getEstimatedHeapBytes());
+        
+        // the temporary intro and outro sections should be cleared...
+        assertEquals(sectionCount, fp.getSections().size());
+    }
+    
+    @Test
+    public void createPieceResultOutputManager_generatesDistinctVoiceSectionsOnce() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4,1/4 A4,1/8 C5,1/8 B4,1/4,F G4");
+        fp.createDefaultSettings();
+        
+        Set<VoiceSectionResultCacheKey> distinctMainKeys = new HashSet<VoiceSectionResultCacheKey>();
+        for (Section s : fp.getSections()) {
+            for (VoiceSection vs : s.getVoiceSections()) distinctMainKeys.add(vs.createResultCacheKey());
+        }
+        
+        // turn off the shared cache, so that every result we generate is a miss...
+        VoiceSectionResultCache cache = VoiceSectionResultCache.getInstance();
+        int originalMaxNoteCount = cache.getMaxNoteCount();
+        try {
+            cache.setMaxNoteCount(0);
+            cache.clear();
+            String sequentialGuido = fp.createPieceResultOutputManager().getPieceNotation().toGuidoString();
+            
+            // In the layered intro and outro, each voice has one voice section
+            // with no self-similarity, and all but the slowest voice also have
+            // a rest.  Some of these may match the main voice sections.
+            int voiceCount = fp.getVoices().size();
+            int distinctIntroOutroCount = 2 * voiceCount - 1;
+            assertTrue(cache.getMissCount() <= distinctMainKeys.size() + distinctIntroOutroCount);
+            
+            // the main voice section results are kept, so this time only the
+            // intro and outro are generated, even though the voice sections 
+            // are generated in parallel...
+            cache.clear();
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                fp.setVoiceGenerationExecutor(executor);
+                assertEquals(sequentialGuido, fp.createPieceResultOutputManager().getPieceNotation().toGuidoString());
+            } finally {
+                executor.shutdown();
+            }
+            assertEquals(distinctIntroOutroCount, cache.getMissCount());
+        } finally {
+            cache.setMaxNoteCount(originalMaxNoteCount);
+        }
+    }
+    
+    @Test
+    public void createPieceResultOutputManager_noteCountLimit() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4,1/4 A4,1/8 R,1/8 B4,1/4,F G4");
+        fp.createDefaultSettings();
+        OutputManager unlimitedOM = fp.createPieceResultOutputManager();
+        int sectionCount = fp.getSections().size();
+        
+        fp.setPieceResultNoteCountLimit(fp.estimatePieceResult().getNoteCount() - 1);
+        try {
+            fp.createPieceResultOutputManager();
+            fail("An exception should have been thrown.");
+        } catch (PieceTooLargeException ex) {
+            assertEquals(fp.getPieceResultNoteCountLimit() + 1, ex.getEstimate().getNoteCount());
+        }
+        
+        // the temporary intro and outro sections should be cleared...
+        assertEquals(sectionCount, fp.getSections().size());
+        
+        fp.setPieceResultNoteCountLimit(fp.getPieceResultNoteCountLimit() + 1);
+        OutputManager limitedOM = fp.createPieceResultOutputManager();
+        assertEquals(unlimitedOM.getPieceNotation().toGuidoString(), limitedOM.getPieceNotation().toGuidoString());
+    }
+    
+    @Test
+    public void createPieceResultOutputManager_incrementalGeneration() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setScale(new MajorScale(NoteName.G));
+        fp.setGermString("G4,1/4,MF A4,1/8,F B4,1/8,F G4,1/4,MF");  
+        fp.createDefaultSettings();
+        fp.setIncrementalGeneration(true);
+        
+        OutputManager firstOM = fp.createPieceResultOutputManager();
+        List<NotationElement> firstParts = new ArrayList<NotationElement>(firstOM.getPieceNotation().getParts());
+        
+        // an edit that only touches the second voice...
+        fp.getVoices().get(1).getSettings().setOctaveAdjustment(fp.getVoices().get(1).getSettings().getOctaveAdjustment() + 1);
+        OutputManager incrementalOM = fp.createPieceResultOutputManager();
+        
+        assertSame(firstOM.getNoteLists().get(0), incrementalOM.getNoteLists().get(0));
+        assertNotSame(firstOM.getNoteLists().get(1), incrementalOM.getNoteLists().get(1));
+        assertSame(firstOM.getNoteLists().get(2), incrementalOM.getNoteLists().get(2));
+        
+        List<NotationElement> incrementalParts = incrementalOM.getPieceNotation().getParts();
+        assertSame(firstParts.get(0), incrementalParts.get(0));
+        assertNotSame(firstParts.get(1), incrementalParts.get(1));
+        assertSame(firstParts.get(2), incrementalParts.get(2));
+        assertSame(incrementalOM.getPieceNotation(), ((Part) incrementalParts.get(0)).getPiece());
+        
+        // the result should be the same as generating everything...
+        fp.setIncrementalGeneration(false);
+        OutputManager fullOM = fp.createPieceResultOutputManager();
+        assertEquals(fullOM.getPieceNotation().toGuidoString(), incrementalOM.getPieceNotation().toGuidoString());
+        assertTracksEqual(fullOM, incrementalOM);
+    }
+    
+    @Test
+    public void createPieceResultOutputManager_incrementalGenerationAfterTimeSignatureAndTempoChange() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setScale(new MajorScale(NoteName.G));
+        fp.setGermString("G4,1/4,MF A4,1/8,F B4,1/8,F G4,1/4,MF");
+        fp.createDefaultSettings();
+        fp.setGenerateLayeredIntro(true);
+        fp.setGenerateLayeredOutro(true);
+        fp.setIncrementalGeneration(true);
+        
+        OutputManager firstOM = fp.createPieceResultOutputManager();
+        fp.setTimeSignature(new TimeSignature(3, 4));
+        OutputManager incrementalOM = fp.createPieceResultOutputManager();
+        for (int i = 0; i < fp.getVoices().size(); i++) {
+            assertNotSame(firstOM.getNoteLists().get(i), incrementalOM.getNoteLists().get(i));
+        }
+        
+        fp.setIncrementalGeneration(false);
+        OutputManager fullOM = fp.createPieceResultOutputManager();
+        assertEquals(fullOM.getPieceNotation().toGuidoString(), incrementalOM.getPieceNotation().toGuidoString());
+        assertTracksEqual(fullOM, incrementalOM);
+        
+        // a tempo change must also be picked up...
+        fp.setIncrementalGeneration(true);
+        firstOM = fp.createPieceResultOutputManager();
+        fp.setTempo(fp.getTempo() + 30);
+        incrementalOM = fp.createPieceResultOutputManager();
+        assertNotSame(firstOM.getNoteLists().get(0), incrementalOM.getNoteLists().get(0));
+        
+        fp.setIncrementalGeneration(false);
+        fullOM = fp.createPieceResultOutputManager();
+        assertEquals(fullOM.getPieceNotation().toGuidoString(), incrementalOM.getPieceNotation().toGuidoString());
+        assertTracksEqual(fullOM, incrementalOM);
+    }
+    
+    private static void assertTracksEqual(OutputManager expected, OutputManager actual) {
+        Track[] expectedTracks = expected.getSequence().getTracks();
+        Track[] actualTracks = actual.getSequence().getTracks();
+        assertEquals(expectedTracks.length, actualTracks.length);
+        for (int i = 0; i < expectedTracks.length; i++) {
+            assertEquals(expectedTracks[i].size(), actualTracks[i].size());
+            for (int j = 0; j < expectedTracks[i].size(); j++) {
+                assertEquals(expectedTracks[i].get(j).getTick(), actualTracks[i].get(j).getTick());
+                assertTrue(Arrays.equals(expectedTracks[i].get(j).getMessage().getMessage(), actualTracks[i].get(j).getMessage().getMessage()));
+            }
+        }
+    }
+    
     @Test
     public void createGermOutputManager() throws Exception {
         FractalPiece fp = new FractalPiece();
@@ -349,6 +592,141 @@ public class FractalPieceTest {
         fp.createPieceResultOutputManager();
     }
     
+    @Test
+    public void snapshot() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4 A4 B4 G4");
+        fp.createDefaultSettings();
+        fp.getVoices().get(0).getVoiceSections().get(1).setOverrideVoiceSettings(true);
+        
+        FractalPiece snapshot = fp.snapshot();
+        assertTrue(snapshot.isReadOnly());
+        assertFalse(fp.isReadOnly());
+        Sequence expected = fp.createPieceResultOutputManager().getSequence();
+        
+        // editing the live piece should not affect the snapshot...
+        fp.setGermString("C4 D4");
+        fp.getVoices().get(0).getSettings().setOctaveAdjustment(3);
+        fp.createSection();
+        
+        Sequence actual = snapshot.createPieceResultOutputManager().getSequence();
+        assertEquals(expected.getTracks().length, actual.getTracks().length);
+        for (int i = 0; i < expected.getTracks().length; i++) {
+            assertTracksEqual(expected.getTracks()[i], actual.getTracks()[i]);
+        }
+        
+        // the temporary intro and outro sections should be gone...
+        assertEquals(4, snapshot.getSections().size());
+        
+        // ...and the snapshot cannot be edited
+        Voice v = snapshot.getVoices().get(0);
+        VoiceSection vs = v.getVoiceSections().get(1);
+        try { snapshot.setTempo(100); fail(); } catch (UnsupportedOperationException ex) {}
+        try { snapshot.setGermString("C4"); fail(); } catch (UnsupportedOperationException ex) {}
+        try { snapshot.createVoice(); fail(); } catch (UnsupportedOperationException ex) {}
+        try { snapshot.createSection(); fail(); } catch (UnsupportedOperationException ex) {}
+        try { snapshot.getVoices().remove(0); fail(); } catch (UnsupportedOperationException ex) {}
+        try { v.setInstrumentName(v.getInstrumentName()); fail(); } catch (UnsupportedOperationException ex) {}
+        try { v.getSettings().setOctaveAdjustment(1); fail(); } catch (UnsupportedOperationException ex) {}
+        try { v.getSettings().getSelfSimilaritySettings().setApplyToPitch(false); fail(); } catch (UnsupportedOperationException ex) {}
+        try { snapshot.getSections().get(0).getSettings().setApplyInversion(true); fail(); } catch (UnsupportedOperationException ex) {}
+        try { vs.setRest(true); fail(); } catch (UnsupportedOperationException ex) {}
+        try { vs.getVoiceSettings().setOctaveAdjustment(1); fail(); } catch (UnsupportedOperationException ex) {}
+        assertEquals(1, v.getSettings().getOctaveAdjustment());
+    }
+    
+    @Test
+    public void batchUpdate() throws Exception {
+        final FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4 A4 B4 G4");
+        fp.createDefaultSettings();
+        
+        final VoiceSection vs = fp.getVoices().get(0).getVoiceSections().get(0);
+        final VoiceSection otherVs = fp.getVoices().get(2).getVoiceSections().get(3);
+        final NoteList original = vs.getVoiceSectionResult();
+        final NoteList otherOriginal = otherVs.getVoiceSectionResult();
+        assertFalse(fp.isBatchUpdating());
+        
+        fp.batchUpdate(new Runnable() {
+            public void run() {
+                assertTrue(fp.isBatchUpdating());
+                fp.getVoices().get(0).getSettings().setOctaveAdjustment(2);
+                fp.getVoices().get(0).getSettings().getSelfSimilaritySettings().setSelfSimilarityIterations(2);
+                fp.getSections().get(0).getSettings().setApplyInversion(true);
+                
+                // nested batches only invalidate when the outermost one completes...
+                fp.batchUpdate(new Runnable() {
+                    public void run() {
+                        vs.setRest(true);
+                        vs.setRest(false);
+                    }
+                });
+                
+                // the invalidation is deferred until the batch completes
+                assertSame(original, vs.getVoiceSectionResult());
+            }
+        });
+        
+        assertFalse(fp.isBatchUpdating());
+        NoteList updated = vs.getVoiceSectionResult();
+        assertNotSame(original, updated);
+        assertFalse(original.size() == updated.size());
+        assertSame(otherOriginal, otherVs.getVoiceSectionResult());
+        
+        // the invalidation still happens when the batch throws...
+        try {
+            fp.batchUpdate(new Runnable() {
+                public void run() {
+                    fp.getSections().get(0).getSettings().setApplyInversion(false);
+                    throw new IllegalStateException();
+                }
+            });
+            fail();
+        } catch (IllegalStateException ex) {}
+        assertNotSame(updated, vs.getVoiceSectionResult());
+        
+        // ...and outside of a batch, the invalidation is immediate
+        updated = vs.getVoiceSectionResult();
+        fp.getSections().get(0).getSettings().setApplyInversion(true);
+        assertNotSame(updated, vs.getVoiceSectionResult());
+    }
+    
+    @Test
+    public void batchUpdateBlocksGenerationOnOtherThreads() throws Exception {
+        final FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4 A4 B4 G4");
+        fp.createDefaultSettings();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        
+        try {
+            final Future<OutputManager> generation[] = new Future[1];
+            final ExecutorService generationExecutor = executor;
+            fp.batchUpdate(new Runnable() {
+                public void run() {
+                    generation[0] = generationExecutor.submit(new Callable<OutputManager>() {
+                        public OutputManager call() throws Exception {
+                            return fp.createPieceResultOutputManager();
+                        }
+                    });
+                    
+                    // the generation must wait for the batch to complete...
+                    try {
+                        generation[0].get(200, TimeUnit.MILLISECONDS);
+                        fail();
+                    } catch (TimeoutException ex) {                        
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    fp.getVoices().get(0).getSettings().setOctaveAdjustment(2);
+                }
+            });
+            
+            assertNotNull(generation[0].get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
     @Test
     public void changingScaleOrGermClearsCachedVoiceSectionResults() throws Exception {
         FractalPiece fp = new FractalPiece();
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+import com.myronmarston.music.*;
+import com.myronmarston.music.scales.*;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Myron
+ */
+public class GermParseCacheTest {
+    
+    @Test
+    public void parse() throws Exception {
+        GermParseCache cache = new GermParseCache(10);
+        NoteList germ = cache.parse("C4 D4 E4", new MajorScale(NoteName.C));
+        assertTrue(germ.isReadOnly());
+        assertEquals(NoteList.parseNoteListString("C4 D4 E4", new MajorScale(NoteName.C)), germ);
+        
+        // an equal scale should find the same germ...
+        Scale scale = germ.get(0).getScale();
+        assertSame(germ, cache.parse("C4 D4 E4", scale));
+        
+        // ...but using the given scale instance
+        Scale equalScale = new MajorScale(NoteName.C);
+        NoteList germWithEqualScale = cache.parse("C4 D4 E4", equalScale);
+        assertEquals(germ, germWithEqualScale);
+        assertTrue(germWithEqualScale.isReadOnly());
+        for (Note n : germWithEqualScale) assertSame(equalScale, n.getScale());
+        for (Note n : germ) assertSame(scale, n.getScale());
+        
+        // the copy replaces the cached germ, so it is not copied again
+        assertSame(germWithEqualScale, cache.parse("C4 D4 E4", equalScale));
+        assertNotSame(germ, cache.parse("C4 D4 E4", new MajorScale(NoteName.D)));
+        assertNotSame(germ, cache.parse("C4 D4 E4", new NaturalMinorScale(NoteName.C)));
+        assertNotSame(germ, cache.parse("C4 D4 F4", new MajorScale(NoteName.C)));
+        
+        assertEquals(3L, cache.getHitCount());
+        assertEquals(4L, cache.getMissCount());
+        assertEquals(4, cache.size());
+        
+        try {
+            cache.parse("H4", new MajorScale(NoteName.C));
+            fail("Exception was not thrown");
+        } catch (NoteStringParseException ex) {}
+        assertEquals(4, cache.size());
+        
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.getHitCount());
+        assertEquals(0L, cache.getMissCount());
+    }
+    
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        GermParseCache cache = new GermParseCache(2);
+        Scale scale = new MajorScale(NoteName.C);
+        NoteList germ1 = cache.parse("C4", scale);
+        NoteList germ2 = cache.parse("D4", scale);
+        assertSame(germ1, cache.parse("C4", scale));
+        
+        cache.parse("E4", scale); // evicts D4
+        assertEquals(2, cache.size());
+        assertEquals(1L, cache.getEvictionCount());
+        assertSame(germ1, cache.parse("C4", scale));
+        assertNotSame(germ2, cache.parse("D4", scale));
+        
+        cache.setMaxSize(0);
+        assertEquals(0, cache.size());
+        cache.parse("C4", scale);
+        assertEquals(0, cache.size());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void negativeMaxSize() {
+        new GermParseCache(-1);
+    }
+    
+    @Test
+    public void fractalPieceUsesCache() throws Exception {
+        // the cache is shared, so use a germ string that no other test uses
+        String germString = "G4 A4 B4 G4 D5,1/8 C5,1/8";
+        Scale cMajor = new MajorScale(NoteName.C);
+        FractalPiece fp = new FractalPiece();
+        fp.setScale(cMajor);
+        fp.setGermString(germString);
+        NoteList germ = fp.getGerm();
+        
+        fp.setScale(new NaturalMinorScale(NoteName.E));
+        assertFalse(germ == fp.getGerm());
+        fp.setScale(cMajor);
+        assertSame(germ, fp.getGerm());
+        
+        for (Note n : fp.getGerm()) assertSame(fp.getScale(), n.getScale());
+        
+        // another piece with the same germ and scale shares the parsed germ...
+        FractalPiece fp2 = new FractalPiece();
+        fp2.setScale(fp.getScale());
+        fp2.setGermString(germString);
+        assertSame(fp.getGerm(), fp2.getGerm());
+        
+        // ...and one with an equal scale gets the same notes, using its own scale
+        FractalPiece fp3 = new FractalPiece();
+        fp3.setScale(new MajorScale(NoteName.C));
+        fp3.setGermString(germString);
+        assertEquals(fp.getGerm(), fp3.getGerm());
+        for (Note n : fp3.getGerm()) assertSame(fp3.getScale(), n.getScale());
+    }
+}
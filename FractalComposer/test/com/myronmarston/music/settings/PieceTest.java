@@ -120,7 +120,7 @@ public class PieceTest {
     }
     
     @Test
-    public void simplePieceTest() throws InvalidKeySignatureException, NoteStringParseException, GermIsEmptyException {
+    public void simplePieceTest() throws InvalidKeySignatureException, NoteStringParseException, GermIsEmptyException, PieceTooLargeException {
         FractalPiece fp = new FractalPiece();
         fp.setScale(new MajorScale(NoteName.G));
         fp.setGermString("G4,1/4 A4,1/8 B4,1/8 G4,1/4");
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Myron
+ */
+public class VoiceSectionHashMapTest {
+    
+    @Test
+    public void getByVoiceAndSection() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        Voice v1 = fp.createVoice();
+        Voice v2 = fp.createVoice();
+        Section s1 = fp.createSection();
+        Section s2 = fp.createSection();
+        VoiceSectionHashMap map = (VoiceSectionHashMap) fp.getVoiceSections();
+        
+        for (Voice v : fp.getVoices()) {
+            for (Section s : fp.getSections()) {
+                assertSame(map.get(new VoiceSectionHashMapKey(v, s)), map.get(v, s));
+                assertSame(v, map.get(v, s).getVoice());
+                assertSame(s, map.get(v, s).getSection());
+            }
+        }
+        
+        // the table should follow removals and new unique indices...
+        fp.getVoices().remove(v1);
+        assertNull(map.get(v1, s1));
+        Voice v3 = fp.createVoice();
+        fp.normalizeUniqueIndices();
+        assertEquals(1, v2.getUniqueIndex());
+        assertEquals(2, v3.getUniqueIndex());
+        
+        for (Voice v : fp.getVoices()) {
+            for (Section s : fp.getSections()) {
+                assertSame(map.get(new VoiceSectionHashMapKey(v, s)), map.get(v, s));
+            }
+        }
+        
+        assertSame(s2, fp.getSections().getByUniqueIndex(2));
+        assertSame(map.get(v3, s2), v3.getVoiceSections().getByOtherTypeUniqueIndex(2));
+        assertEquals(0, v1.getVoiceSections().size());
+        assertEquals(2, v2.getVoiceSections().size());
+    }
+    
+    @Test
+    public void getByVoiceAndSectionOnClone() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        Voice v1 = fp.createVoice();
+        Voice v2 = fp.createVoice();
+        Section s1 = fp.createSection();
+        VoiceSectionHashMap map = (VoiceSectionHashMap) fp.getVoiceSections();
+        VoiceSection v1s1 = map.get(v1, s1);
+        VoiceSection v2s1 = map.get(v2, s1);
+        
+        VoiceSectionHashMap clone = map.clone();
+        assertSame(v1s1, clone.get(v1, s1));
+        clone.remove(new VoiceSectionHashMapKey(v1, s1));
+        clone.clear();
+        assertNull(clone.get(v2, s1));
+        
+        // changes to the clone should not affect the original...
+        assertSame(v1s1, map.get(v1, s1));
+        assertSame(v2s1, map.get(v2, s1));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.settings;
+
+import com.myronmarston.music.*;
+import com.myronmarston.music.scales.*;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Myron
+ */
+public class VoiceSectionResultCacheTest {
+    
+    private static VoiceSectionResultCacheKey createKey(String germString) throws Exception {
+        Scale scale = new MajorScale();
+        return new VoiceSectionResultCacheKey(germString, scale, scale, new SectionSettings(), new VoiceSettings(), false);
+    }
+    
+    private static NoteList createResult(String noteListString) throws Exception {
+        return NoteList.parseNoteListString(noteListString, new MajorScale()).getReadOnlyCopy();
+    }
+    
+    @Test
+    public void getAndPut() throws Exception {
+        VoiceSectionResultCache cache = new VoiceSectionResultCache(100);
+        NoteList result = createResult("C4 D4 E4");
+        assertNull(cache.get(createKey("C4 D4 E4")));
+        cache.put(createKey("C4 D4 E4"), result);
+        assertSame(result, cache.get(createKey("C4 D4 E4")));
+        assertTrue(cache.containsKey(createKey("C4 D4 E4")));
+        assertFalse(cache.containsKey(createKey("C4 D4 F4")));
+        
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(0L, cache.getEvictionCount());
+        assertEquals(1, cache.size());
+        assertEquals(4, cache.getNoteCount());
+        
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getNoteCount());
+        assertEquals(0L, cache.getHitCount());
+    }
+    
+    @Test
+    public void keyUsesSettingValues() throws Exception {
+        Scale scale = new MajorScale();
+        VoiceSettings vs = new VoiceSettings();
+        VoiceSectionResultCacheKey key = new VoiceSectionResultCacheKey("C4", scale, scale, new SectionSettings(), vs, false);
+        assertEquals(key, createKey("C4"));
+        assertEquals(key.hashCode(), createKey("C4").hashCode());
+        
+        // changing the settings afterwards should not change the key...
+        vs.setOctaveAdjustment(2);
+        assertEquals(key, createKey("C4"));
+        assertFalse(key.equals(new VoiceSectionResultCacheKey("C4", scale, scale, new SectionSettings(), vs, false)));
+        assertFalse(key.equals(new VoiceSectionResultCacheKey("C4", scale, scale, new SectionSettings(), new VoiceSettings(), true)));
+        assertFalse(key.equals(new VoiceSectionResultCacheKey("C4", scale, new NaturalMinorScale(), new SectionSettings(), new VoiceSettings(), false)));
+    }
+    
+    @Test
+    public void leastRecentlyUsedResultsAreEvicted() throws Exception {
+        VoiceSectionResultCache cache = new VoiceSectionResultCache(8);
+        cache.put(createKey("A"), createResult("C4 D4 E4"));
+        cache.put(createKey("B"), createResult("C4 D4 E4"));
+        cache.get(createKey("A"));
+        
+        // adding this one goes over the limit; B is the least recently used...
+        cache.put(createKey("C"), createResult("C4"));
+        assertTrue(cache.containsKey(createKey("A")));
+        assertFalse(cache.containsKey(createKey("B")));
+        assertTrue(cache.containsKey(createKey("C")));
+        assertEquals(1L, cache.getEvictionCount());
+        assertEquals(6, cache.getNoteCount());
+        
+        // results larger than the cache are not added at all...
+        cache.put(createKey("D"), createResult("C4 D4 E4 F4 G4 A4 B4 C5"));
+        assertFalse(cache.containsKey(createKey("D")));
+        assertEquals(2, cache.size());
+        
+        cache.setMaxNoteCount(0);
+        assertEquals(0, cache.size());
+        assertEquals(3L, cache.getEvictionCount());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void put_requiresReadOnlyResult() throws Exception {
+        VoiceSectionResultCache cache = new VoiceSectionResultCache(100);
+        cache.put(createKey("C4"), NoteList.parseNoteListString("C4", new MajorScale()));
+    }
+}
@@ -21,7 +21,9 @@ package com.myronmarston.music.settings;
 
 import com.myronmarston.music.*;
 import com.myronmarston.music.scales.*;
+import com.myronmarston.music.transformers.SelfSimilarityTransformer;
 import com.myronmarston.util.Fraction;      
+import java.util.Arrays;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -334,6 +336,31 @@ public class VoiceSectionTest {
         NoteListTest.assertNoteListsEqual(expected, vs1.getLengthenedVoiceSectionResult(new Fraction(25, 2)));        
     }          
     
+    @Test
+    public void getLengthenedVoiceSectionResultView() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setScale(new MajorScale(NoteName.C));
+        fp.setGermString("C4,1/1,F D4,1/2,MP E4,1/2,MP C4,1/1,F");
+        
+        Voice v1 = fp.createVoice();                
+        fp.createSection();
+        VoiceSection vs1 = v1.getVoiceSections().get(0);
+        
+        RepeatedNoteList view = vs1.getLengthenedVoiceSectionResultView(new Fraction(25, 2));
+        assertEquals(4, view.getRepeatCount());
+        assertEquals(new Fraction(1, 2), view.getTrailingNote().getDuration());
+        assertEquals(new Fraction(25, 2), view.getDuration());
+        
+        // the view repeats the result itself rather than copying it...
+        assertSame(vs1.getVoiceSectionResult().get(0), view.get(vs1.getVoiceSectionResult().size() * 3));
+        
+        for (Fraction length : Arrays.asList(new Fraction(3, 1), new Fraction(11, 2), new Fraction(6, 1), new Fraction(25, 2))) {
+            NoteListTest.assertNoteListsEqual(vs1.getLengthenedVoiceSectionResult(length), vs1.getLengthenedVoiceSectionResultView(length).toNoteList());
+        }
+        
+        assertNull(vs1.getLengthenedVoiceSectionResultView(new Fraction(6, 1)).getTrailingNote());
+    }
+    
     @Test
     public void createOutputManager() throws Exception {
         FractalPiece fp = new FractalPiece();
@@ -563,6 +590,76 @@ public class VoiceSectionTest {
         assertTrue(vs1.getSection() == cloned.getSection());
     }
     
+    @Test
+    public void getVoiceSectionResult_sharedAcrossPieces() throws Exception {
+        VoiceSectionResultCache cache = VoiceSectionResultCache.getInstance();
+        cache.clear();
+        
+        FractalPiece fp1 = new FractalPiece();
+        fp1.setScale(new MajorScale(NoteName.G));
+        fp1.setGermString("G4 A4 B4 G4");
+        fp1.createDefaultSettings();        
+        FractalPiece fp2 = new FractalPiece();
+        fp2.setScale(new MajorScale(NoteName.G));
+        fp2.setGermString("G4 A4 B4 G4");
+        fp2.createDefaultSettings();        
+        VoiceSection vs1 = fp1.getVoices().get(0).getVoiceSections().get(1);
+        VoiceSection vs2 = fp2.getVoices().get(0).getVoiceSections().get(1);
+        assertEquals(vs1.createResultCacheKey(), vs2.createResultCacheKey());
+        
+        NoteList result1 = vs1.getVoiceSectionResult();
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(0L, cache.getHitCount());
+        
+        NoteList result2 = vs2.getVoiceSectionResult();
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(1L, cache.getHitCount());
+        NoteListTest.assertNoteListsEqual(result1, result2, true);
+        
+        // each voice section gets its own notes...
+        assertTrue(result1 != result2);
+        assertTrue(result1.get(0) != result2.get(0));
+        assertEquals(vs1, result1.get(0).getSourceVoiceSection());
+        assertEquals(vs2, result2.get(0).getSourceVoiceSection());
+        
+        // ...which use the scale instance of its own piece
+        for (Note n : result2) {
+            if (!n.isRest()) assertSame(fp2.getScale(), n.getScale());
+        }
+        
+        // a settings change produces a different key...
+        vs2.setOverrideVoiceSettings(true);
+        vs2.getVoiceSettings().setOctaveAdjustment(vs2.getVoiceSettings().getOctaveAdjustment() + 1);
+        assertFalse(vs1.createResultCacheKey().equals(vs2.createResultCacheKey()));
+        assertEquals(result1.get(0).getOctave() + 1, vs2.getVoiceSectionResult().get(0).getOctave());
+        assertEquals(2L, cache.getMissCount());
+    }
+    
+    @Test
+    public void getFractalIndex() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setGermString("G4,1/4,MF A4,1/8,F R,1/8 B4,1/4,P G4,1/4");
+        fp.createDefaultSettings();
+        
+        for (Voice v : fp.getVoices()) {
+            for (VoiceSection vs : v.getVoiceSections()) {
+                NoteList result = vs.getVoiceSectionResult();
+                SelfSimilarityTransformer.FractalIndex index = vs.getFractalIndex();
+                assertEquals(result.size(), index.size());
+                assertEquals(result.getDuration(), index.getDuration());
+                for (int k = 0; k < result.size(); k++) {
+                    NoteTest.assertNotesEqual(result.get(k), index.getNote(k), false);
+                    assertEquals(result.getStartTime(k), index.getStartTime(k));
+                }
+            }
+        }
+        
+        VoiceSection vs = fp.getVoices().get(0).getVoiceSections().get(0);
+        vs.setRest(true);
+        assertEquals(1L, vs.getFractalIndex().size());
+        NoteTest.assertNotesEqual(vs.getVoiceSectionResult().get(0), vs.getFractalIndex().getNote(0), false);
+    }
+    
     public static void assertVoiceSectionsEqual(VoiceSection expected, VoiceSection actual) {
         assertVoiceSectionsEqual(expected, actual, false);
     }
@@ -170,6 +170,29 @@ public class VoiceTest {
         NoteListTest.assertNoteListsEqual(expected, v1.getEntireVoice());
     }        
     
+    @Test
+    public void getEntireVoiceStream() throws Exception {
+        FractalPiece fp = new FractalPiece();
+        fp.setScale(new MinorPentatonicScale(NoteName.E));
+        fp.setGermString("E4,1/4 G4,1/8 R,1/8 B4,1/4,F E4");
+        fp.createDefaultSettings();
+        fp.getSections().get(2).getVoiceSections().get(1).setRest(true);
+        
+        for (Voice v : fp.getVoices()) {
+            // the first stream is generated on the fly; the second uses the 
+            // voice section results cached by getEntireVoice()
+            NoteList streamed = new NoteList();
+            for (Note n : v.getEntireVoiceStream()) streamed.add(n);
+            NoteList entireVoice = v.getEntireVoice();
+            NoteList streamedFromCache = new NoteList();
+            for (Note n : v.getEntireVoiceStream()) streamedFromCache.add(n);
+            
+            NoteListTest.assertNoteListsEqual(entireVoice, streamed);
+            NoteListTest.assertNoteListsEqual(entireVoice, streamedFromCache);
+            assertEquals(entireVoice.getInstrument(), v.getEntireVoiceStream().getInstrument());
+        }
+    }
+    
     @Test
     public void createOutputManager() throws Exception {
         FractalPiece fp = new FractalPiece();
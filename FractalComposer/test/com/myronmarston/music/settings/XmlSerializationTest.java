@@ -149,6 +149,30 @@ public class XmlSerializationTest {
         }        
     }       
     
+    @Test
+    public void deserializeLegacyInstrumentNames() throws Exception {
+        FractalPiece fp = this.fpWithDefaultSettings;
+        fp.setGermString("C4 D4 E4");
+        fp.getVoices().get(0).setInstrumentName("Bright Acoustic Piano");
+        fp.getVoices().get(1).setInstrumentName("Acoustic Guitar (nylon)");
+        fp.getVoices().get(2).setInstrumentName("Violin");
+        
+        // older versions used soundbank instrument names, cut off at 20 characters...
+        String xml = fp.getXmlRepresentation()
+            .replace("instrumentName=\"Bright Acoustic Piano\"", "instrumentName=\"Bright Acoustic Pian\"")
+            .replace("instrumentName=\"Acoustic Guitar (nylon)\"", "instrumentName=\"Acoustic Guitar (nyl\"")
+            .replace("instrumentName=\"Violin\"", "instrumentName=\"Standard Kit\"");
+        assertTrue(xml.contains("Bright Acoustic Pian\""));
+        
+        FractalPiece newFp = FractalPiece.loadFromXml(xml);
+        assertEquals("Bright Acoustic Piano", newFp.getVoices().get(0).getInstrumentName());
+        assertEquals("Acoustic Guitar (nylon)", newFp.getVoices().get(1).getInstrumentName());
+        assertEquals(Instrument.DEFAULT.getName(), newFp.getVoices().get(2).getInstrumentName());
+        
+        // this used to throw a NullPointerException for the missing instrument
+        newFp.createPieceResultOutputManager();
+    }
+    
     @Test
     public void serializeAndDeserializeFractalPiece() throws Exception {
         FractalPiece fp = this.fpWithDefaultSettings;
@@ -233,8 +257,9 @@ public class XmlSerializationTest {
         assertEquals(fp.getVoiceSections().size(), newFp.getVoiceSections().size());
         for (int v = 0; v < fp.getVoices().size(); v++) {
             for (int s = 0; s < fp.getSections().size(); s++) {
-                VoiceSection vs = fp.getVoiceSections().get(fp.getVoices().get(v).getHashMapKeyForOtherTypeIndex(s));
-                VoiceSection newVs = newFp.getVoiceSections().get(newFp.getVoices().get(v).getHashMapKeyForOtherTypeIndex(s));
+                VoiceSection vs = fp.getVoiceSections().get(new VoiceSectionHashMapKey(fp.getVoices().get(v), fp.getSections().get(s)));
+                VoiceSection newVs = newFp.getVoiceSections().get(new VoiceSectionHashMapKey(newFp.getVoices().get(v), newFp.getSections().get(s)));
+                assertSame(newVs, newFp.getVoices().get(v).getVoiceSections().get(s));
                 
                 VoiceSectionTest.assertVoiceSectionsEqual(vs, newVs, true);                
             }
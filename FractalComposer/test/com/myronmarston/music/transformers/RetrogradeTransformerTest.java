@@ -57,6 +57,17 @@ public class RetrogradeTransformerTest {
         
         //retrograding a retrograde should produce the original
         assertTransformerProducesExpectedOutput(t, expectedOutput, input);
+        
+        // a read-only input's notes are only copied if their first note of 
+        // germ copy flag changes...
+        NoteList readOnlyInput = input.getReadOnlyCopy();
+        NoteList output = t.transform(readOnlyInput);
+        assertEquals(expectedOutput, output);
+        assertNotSame(readOnlyInput.get(5), output.getReadOnlyNotes().get(0));
+        assertSame(readOnlyInput.get(4), output.getReadOnlyNotes().get(1));
+        assertSame(readOnlyInput.get(3), output.getReadOnlyNotes().get(2));
+        assertNotSame(readOnlyInput.get(2), output.getReadOnlyNotes().get(3));
+        assertEquals(input, readOnlyInput);
     }
     
 }
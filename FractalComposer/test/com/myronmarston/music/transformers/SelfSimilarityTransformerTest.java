@@ -22,7 +22,11 @@ package com.myronmarston.music.transformers;
 import com.myronmarston.music.*;
 import com.myronmarston.music.scales.*;
 import com.myronmarston.util.Fraction;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Test;
+import static org.junit.Assert.*;
 import static com.myronmarston.music.transformers.TransformerTest.*;
 
 /**
@@ -271,6 +275,123 @@ public class SelfSimilarityTransformerTest {
         expectedOutput.setfirstNotesOfGermCopy(0, 5, 10, 15, 20, 21, 26, 31, 36, 41, 42, 47, 52, 57, 62, 63, 68, 73, 78, 83, 84);
         assertTransformerProducesExpectedOutput(t, input, expectedOutput);
     }
+    
+    @Test
+    public void iteratorProducesSameNotesAsTransform() throws Exception {
+        Scale[] scales = new Scale[] {Scale.DEFAULT, new MajorScale(NoteName.G), new MinorPentatonicScale(NoteName.E)};
+        String germString = "G4,1/4,MF A4,1/8,F R,1/8 F#4,1/4,P B3,1/2,FF R,1/4";
+        
+        for (Scale scale : scales) {
+            NoteList germ = NoteList.parseNoteListString(germString, scale);
             
+            for (int i = 0; i < 8; i++) {
+                for (int iterations = 1; iterations <= 3; iterations++) {
+                    SelfSimilarityTransformer t = new SelfSimilarityTransformer((i & 1) != 0, (i & 2) != 0, (i & 4) != 0, iterations);
+                    NoteList expected = t.transform(germ);
+                    
+                    NoteList actual = new NoteList();
+                    Iterator<Note> iterator = t.iterator(germ);
+                    while (iterator.hasNext()) actual.add(iterator.next());
+                    
+                    NoteListTest.assertNoteListsEqual(expected, actual);
+                    assertEquals(expected.getDuration(), t.getTransformedDuration(germ));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void fractalIndexMatchesTransform() throws Exception {
+        Scale[] scales = new Scale[] {Scale.DEFAULT, new MajorScale(NoteName.G)};
+        String[] germStrings = new String[] {"G4,1/4,MF A4,1/8,F R,1/8 F#4,1/4,P B3,1/2,FF R,1/4", "R,1/8 C4,1/4,MF D4,1/6,P E4,1/12,F"};
+        
+        for (Scale scale : scales) {
+            for (String germString : germStrings) {
+                NoteList germ = NoteList.parseNoteListString(germString, scale);
+
+                for (int i = 0; i < 8; i++) {
+                    for (int iterations = 1; iterations <= 3; iterations++) {
+                        SelfSimilarityTransformer t = new SelfSimilarityTransformer((i & 1) != 0, (i & 2) != 0, (i & 4) != 0, iterations);
+                        NoteList expected = t.transform(germ);
+                        SelfSimilarityTransformer.FractalIndex index = t.createFractalIndex(germ);
+
+                        assertEquals(expected.size(), index.size());
+                        assertEquals(expected.size(), t.getTransformedNoteCount(germ));
+                        assertEquals(expected.getDuration(), index.getDuration());
+                        for (int k = 0; k < expected.size(); k++) {
+                            NoteTest.assertNotesEqual(expected.get(k), index.getNote(k), false);
+                            assertEquals(expected.getStartTime(k), index.getStartTime(k));
+                            assertEquals(k, index.getNoteIndexAtTime(expected.getStartTime(k)));
+                            
+                            // a time in the middle of the note should find it too...
+                            Fraction middle = expected.getStartTime(k).plus(expected.get(k).getDuration().dividedBy(2L));
+                            assertEquals(k, index.getNoteIndexAtTime(middle));
+                        }
+                        assertEquals(-1L, index.getNoteIndexAtTime(expected.getDuration()));
+                        assertEquals(-1L, index.getNoteIndexAtTime(new Fraction(-1, 8)));
+                    }
+                }
+            }
+        }
+    }
     
+    @Test
+    public void fractalIndexOfDeepResult() throws Exception {
+        NoteList germ = NoteList.parseNoteListString("G4,1/4,MF A4,1/8,F R,1/8 F#4,1/4,P B3,1/2,FF", new MajorScale(NoteName.G));
+        SelfSimilarityTransformer deep = new SelfSimilarityTransformer(true, true, true, 20);
+        SelfSimilarityTransformer.FractalIndex index = deep.createFractalIndex(germ);
+        
+        // 4 audible notes and 1 rest per level: sizes are 5, 21, 85, ...
+        long expectedSize = 5;
+        for (int i = 0; i < 20; i++) expectedSize = expectedSize * 4 + 1;
+        assertEquals(expectedSize, index.size());
+        
+        // the start of the result can be checked against the iterator...
+        Iterator<Note> iterator = deep.iterator(germ);
+        Fraction startTime = new Fraction(0, 1);
+        for (int k = 0; k < 500; k++) {
+            Note expected = iterator.next();
+            NoteTest.assertNotesEqual(expected, index.getNote(k), false);
+            assertEquals(startTime, index.getStartTime(k));
+            startTime = startTime.plus(expected.getDuration());
+        }
+        
+        // ...and the last note should end at the end of the result
+        Note last = index.getNote(index.size() - 1);
+        assertEquals(index.getDuration(), index.getStartTime(index.size() - 1).plus(last.getDuration()));
+        assertEquals(index.size() - 1, index.getNoteIndexAtTime(index.getDuration().minus(last.getDuration())));
+    }
+    
+    @Test
+    public void getTransformedNoteCount_tooManyToCount() throws Exception {
+        NoteList germ = NoteList.parseNoteListString("G4 A4 R B4", Scale.DEFAULT);
+        // 3 audible notes and 1 rest per level: sizes are 4, 13, 40, ...
+        assertEquals(40L, new SelfSimilarityTransformer(true, true, true, 2).getTransformedNoteCount(germ));
+        assertEquals(Long.MAX_VALUE, new SelfSimilarityTransformer(true, true, true, 50).getTransformedNoteCount(germ));
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void fractalIndexOutOfBounds() throws Exception {
+        NoteList germ = NoteList.parseNoteListString("G4 A4 B4", Scale.DEFAULT);
+        SelfSimilarityTransformer t = new SelfSimilarityTransformer(true, true, true, 2);
+        t.createFractalIndex(germ).getNote(27);
+    }
+    
+    @Test
+    public void transformWithExecutor() throws Exception {
+        NoteList germ = NoteList.parseNoteListString("G4,1/4,MF A4,1/8,F R,1/8 F#4,1/4,P B3,1/2,FF C5,1/8 D5,1/8,PP G4,1/4", new MajorScale(NoteName.G));
+        SelfSimilarityTransformer t = new SelfSimilarityTransformer(true, true, true, 4);
+        NoteList expected = t.transform(germ);
+        
+        // the last level is large enough to be generated in parallel...
+        assertTrue(expected.size() >= SelfSimilarityTransformer.PARALLEL_LEVEL_SIZE_THRESHOLD);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            t.setExecutor(executor);
+            NoteListTest.assertNoteListsEqual(expected, t.transform(germ));
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
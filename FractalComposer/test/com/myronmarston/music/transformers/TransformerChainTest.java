@@ -0,0 +1,83 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.music.transformers;
+
+import com.myronmarston.music.*;
+import com.myronmarston.music.scales.*;
+import com.myronmarston.util.Fraction;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static com.myronmarston.music.transformers.TransformerTest.*;
+
+/**
+ *
+ * @author Myron
+ */
+public class TransformerChainTest {
+
+    @Test
+    public void chainProducesSameOutputAsSequentialTransformers() throws Exception {
+        NoteList input = new NoteList();
+        Scale scale = new MajorScale(NoteName.A);
+        input.add(new Note(0, 0, 4, 0, new Fraction(1, 4), 64, scale, 0));
+        input.add(new Note(2, 2, 4, 1, new Fraction(1, 8), 80, scale, 0));
+        input.add(Note.createRest(new Fraction(1, 4)));
+        input.add(new Note(4, 4, 5, 0, new Fraction(1, 2), 100, scale, 0));
+        input.get(0).setIsFirstNoteOfGermCopy(true);
+        
+        OctaveTransformer octaveT = new OctaveTransformer(1);
+        VolumeTransformer volumeT = new VolumeTransformer(new Fraction(1, 2));
+        RhythmicDurationTransformer rhythmT = new RhythmicDurationTransformer(new Fraction(2, 1));
+        TransposeTransformer transposeT = new TransposeTransformer(3, 3);
+        
+        NoteList expectedOutput = transposeT.transform(rhythmT.transform(volumeT.transform(octaveT.transform(input))));
+        TransformerChain chain = new TransformerChain(octaveT, volumeT, rhythmT, transposeT);
+        assertTransformerProducesExpectedOutput(chain, input, expectedOutput);
+    }
+    
+    @Test
+    public void chainDoesNotModifyInput() throws Exception {
+        NoteList input = new NoteList();
+        Scale scale = new MajorScale(NoteName.C);
+        input.add(new Note(0, 0, 4, 0, new Fraction(1, 4), 64, scale, 0));
+        NoteList inputCopy = input.clone();
+        
+        NoteList result = new TransformerChain(new OctaveTransformer(2)).transform(input);
+        assertEquals(inputCopy, input);
+        assertNotSame(input.get(0), result.get(0));
+        assertEquals(6, result.get(0).getOctave());
+    }
+    
+    @Test
+    public void emptyChainCopiesInput() throws Exception {
+        NoteList input = new NoteList();
+        Scale scale = new MajorScale(NoteName.C);
+        input.add(new Note(0, 0, 4, 0, new Fraction(1, 4), 64, scale, 0));
+        input.add(Note.createRest(new Fraction(1, 4)));
+        
+        TransformerChain chain = new TransformerChain();
+        assertEquals(0, chain.getTransformers().size());
+        assertTransformerProducesExpectedOutput(chain, input, input);
+        
+        chain.add(new OctaveTransformer(-1));
+        assertEquals(1, chain.getTransformers().size());
+        assertEquals(3, chain.transform(input).get(0).getOctave());
+    }
+}
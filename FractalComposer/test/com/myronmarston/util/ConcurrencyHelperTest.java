@@ -0,0 +1,99 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Myron
+ */
+public class ConcurrencyHelperTest {
+    
+    private static List<Callable<Integer>> createSquaringTasks(int count) {
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < count; i++) {
+            final int value = i;
+            tasks.add(new Callable<Integer>() {
+                public Integer call() {
+                    return value * value;
+                }
+            });
+        }
+        return tasks;
+    }
+    
+    @Test
+    public void invokeAll() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Integer> results = ConcurrencyHelper.invokeAll(executor, createSquaringTasks(20));
+            assertEquals(20, results.size());
+            for (int i = 0; i < results.size(); i++) assertEquals(i * i, results.get(i).intValue());
+        } finally {
+            executor.shutdown();
+        }
+        
+        // it should also work without an executor...
+        assertEquals(Arrays.asList(0, 1, 4), ConcurrencyHelper.invokeAll(null, createSquaringTasks(3)));
+    }
+    
+    @Test
+    public void invokeAll_nestedOnSingleThread() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+            for (int i = 0; i < 3; i++) {
+                tasks.add(new Callable<Integer>() {
+                    public Integer call() {
+                        // this would deadlock if we just waited on the executor...
+                        int sum = 0;
+                        for (int value : ConcurrencyHelper.invokeAll(executor, createSquaringTasks(4))) sum += value;
+                        return sum;
+                    }
+                });
+            }
+            assertEquals(Arrays.asList(14, 14, 14), ConcurrencyHelper.invokeAll(executor, tasks));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test(expected=IllegalStateException.class)
+    public void invokeAll_rethrowsTaskException() throws Exception {
+        List<Callable<Integer>> tasks = createSquaringTasks(3);
+        tasks.add(new Callable<Integer>() {
+            public Integer call() {
+                throw new IllegalStateException();
+            }
+        });
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ConcurrencyHelper.invokeAll(executor, tasks);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
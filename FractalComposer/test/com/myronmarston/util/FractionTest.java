@@ -161,4 +161,32 @@ public class FractionTest {
         assertFalse((new Fraction("3/7")).denomIsPowerOf2());
     }
     
+    @Test
+    public void valueOf() {
+        assertEquals(new Fraction(1, 3), Fraction.valueOf(2, 6));
+        assertEquals(new Fraction(-1, 3), Fraction.valueOf(2, -6));
+        assertEquals(new Fraction(17, 7), Fraction.valueOf(17, 7));
+        assertEquals(new Fraction(9, 1), Fraction.valueOf(9, 1));
+        assertEquals(new Fraction(0, 1), Fraction.valueOf(0, 5));
+    }
+    
+    @Test
+    public void valueOfCachesCommonDurations() {
+        assertSame(Fraction.valueOf(1, 4), Fraction.valueOf(2, 8));
+        assertSame(Fraction.valueOf(1, 64), Fraction.valueOf(1, 64));
+        assertSame(Fraction.valueOf(4, 1), Fraction.valueOf(4, 1));
+        assertSame(Fraction.valueOf(1, 12), Fraction.valueOf(1, 12));
+        assertSame(Fraction.valueOf(0, 1), new Fraction(1, 4).minus(new Fraction(1, 4)));
+        assertSame(Fraction.valueOf(3, 8), new Fraction(1, 4).plus(new Fraction(1, 8)));
+        
+        // values outside of the cache are still correct...
+        assertEquals(new Fraction(5, 1), Fraction.valueOf(5, 1));
+        assertNotSame(Fraction.valueOf(5, 1), Fraction.valueOf(5, 1));
+        assertEquals(new Fraction(1, 128), Fraction.valueOf(1, 128));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void valueOfZeroDenominator() {
+        Fraction.valueOf(2, 0);
+    }
 }
\ No newline at end of file
@@ -48,6 +48,41 @@ public class MathHelperTest {
         assertEquals(expResult, result);        
     }
     
+    @Test
+    public void saturatedAddAndMultiply() {
+        assertEquals(7L, MathHelper.saturatedAdd(3L, 4L));
+        assertEquals(Long.MAX_VALUE, MathHelper.saturatedAdd(Long.MAX_VALUE - 1, 2L));
+        assertEquals(12L, MathHelper.saturatedMultiply(3L, 4L));
+        assertEquals(0L, MathHelper.saturatedMultiply(0L, Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, MathHelper.saturatedMultiply(Long.MAX_VALUE / 2, 3L));
+    }
+    
+    @Test
+    public void leastCommonMultipleOfProductDenominators() {
+        List<Fraction> values = Arrays.asList(new Fraction(1, 4), new Fraction(3, 8), new Fraction(2, 3));
+        List<Fraction> factors = Arrays.asList(new Fraction(1, 1), new Fraction(2, 1), new Fraction(3, 2), new Fraction(5, 6));
+        
+        // enumerate every product, and take the LCM of their denominators...
+        for (int factorCount = 0; factorCount <= 3; factorCount++) {
+            List<Fraction> products = new ArrayList<Fraction>(values);
+            for (int i = 0; i < factorCount; i++) {
+                List<Fraction> nextProducts = new ArrayList<Fraction>();
+                for (Fraction p : products) for (Fraction f : factors) nextProducts.add(p.times(f));
+                products = nextProducts;
+            }
+            
+            ArrayList<Long> denominators = new ArrayList<Long>();
+            for (Fraction p : products) denominators.add(p.denominator());
+            assertEquals(MathHelper.leastCommonMultiple(denominators), MathHelper.leastCommonMultipleOfProductDenominators(values, factors, factorCount));
+        }
+        
+        // with no factors, only the values are used...
+        assertEquals(24L, MathHelper.leastCommonMultipleOfProductDenominators(values, new ArrayList<Fraction>(), 5));
+        
+        // a result too large for a long is reported as Long.MAX_VALUE...
+        assertEquals(Long.MAX_VALUE, MathHelper.leastCommonMultipleOfProductDenominators(values, Arrays.asList(new Fraction(1, 3)), 100));
+    }
+    
     @Test
     public void leastCommonMultipleForList() {
         ArrayList<Long> list = new ArrayList<Long>();
@@ -99,6 +134,20 @@ public class MathHelperTest {
         assertEquals(4, MathHelper.getNormalizedValue(-10, 7));
     }
     
+    @Test
+    public void floorDivAndMod() {
+        assertEquals(1, MathHelper.floorDiv(11, 7));
+        assertEquals(-2, MathHelper.floorDiv(-10, 7));
+        assertEquals(-1, MathHelper.floorDiv(-7, 7));
+        assertEquals(0, MathHelper.floorDiv(0, 7));
+        assertEquals(-2, MathHelper.floorDiv(10, -7));
+        assertEquals(4, MathHelper.floorMod(11, 7));
+        assertEquals(4, MathHelper.floorMod(-10, 7));
+        assertEquals(0, MathHelper.floorMod(-7, 7));
+        assertEquals(-4, MathHelper.floorMod(10, -7));
+        assertEquals(Integer.MIN_VALUE, MathHelper.floorDiv(Integer.MIN_VALUE, 1));
+    }
+    
     @Test
     public void getLargestPowerOf2LessThanGivenNumber() {
         assertEquals(2L, MathHelper.getLargestPowerOf2LessThanGivenNumber(3));
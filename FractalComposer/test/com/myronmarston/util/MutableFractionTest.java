@@ -0,0 +1,80 @@
+/*
+ * Copyright 2008, Myron Marston <myron DOT marston AT gmail DOT com>
+ *
+ * This file is part of Fractal Composer.
+ *
+ * Fractal Composer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * at your option any later version.
+ *
+ * Fractal Composer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Fractal Composer.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+
+package com.myronmarston.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Myron
+ */
+public class MutableFractionTest {
+    
+    @Test
+    public void add() {
+        MutableFraction f = new MutableFraction();
+        f.add(new Fraction(1, 4)).add(new Fraction(1, 4)).add(new Fraction(1, 6));
+        assertEquals(new Fraction(2, 3), f.toFraction());
+        
+        f.add(-1, 3);
+        assertEquals(new Fraction(1, 3), f.toFraction());
+        
+        f.add(1, -3);
+        assertEquals(new Fraction(0, 1), f.toFraction());
+    }
+    
+    @Test
+    public void subtract() {
+        MutableFraction f = new MutableFraction(3, 4);
+        f.subtract(new Fraction(1, 8));
+        assertEquals(new Fraction(5, 8), f.toFraction());
+        assertEquals(0, f.compareTo(new Fraction(5, 8)));
+    }
+    
+    @Test
+    public void compareTo() {
+        MutableFraction f = new MutableFraction(new Fraction(3, 2));
+        assertTrue(f.compareTo(1L) > 0);
+        assertTrue(f.compareTo(2L) < 0);
+        assertTrue(f.compareTo(new Fraction(7, 4)) < 0);
+        assertTrue(f.compareTo(new MutableFraction(6, 4)) == 0);
+        assertTrue(f.compareTo(new MutableFraction(-6, -5)) > 0);
+    }
+    
+    @Test
+    public void timesAsLong() {
+        MutableFraction f = new MutableFraction(3, 8);
+        assertEquals(144L, f.timesAsLong(384));
+        assertEquals(new Fraction(3, 2), f.multiply(4).toFraction());
+    }
+    
+    @Test
+    public void toFractionUsesCache() {
+        MutableFraction f = new MutableFraction();
+        for (int i = 0; i < 6; i++) f.add(new Fraction(1, 12));
+        assertSame(Fraction.valueOf(1, 2), f.toFraction());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void zeroDenominator() {
+        new MutableFraction(1, 0);
+    }
+}